@@ -0,0 +1,113 @@
+package com.pdftron.reactnative.benchmark;
+
+import com.pdftron.pdf.tools.ToolManager;
+import com.pdftron.reactnative.R;
+import com.pdftron.reactnative.utils.Constants;
+import com.pdftron.reactnative.utils.IdentifierRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping the identifiers used on the JavaScript side to native ones and back, each operation
+ * looks up one identifier. The inputs are every tool and button name in {@link Constants},
+ * including those without a mapping, every tool mode, and every quick menu item id plus one
+ * that is not a menu item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdentifierRegistryBenchmark {
+
+    // sized to hold the inputs, so that the operations per invocation are fixed
+    private static final int INPUT_COUNT = 128;
+
+    private final String[] mStrings = new String[INPUT_COUNT];
+    private final int[] mMenuIds = new int[INPUT_COUNT];
+    private final ToolManager.ToolMode[] mToolModes = new ToolManager.ToolMode[INPUT_COUNT];
+
+    @Setup
+    public void setUp() throws IllegalAccessException {
+        ArrayList<String> strings = new ArrayList<>();
+        for (Field field : Constants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && String.class == field.getType()
+                    && (field.getName().startsWith("TOOL_") || field.getName().startsWith("BUTTON_"))) {
+                strings.add((String) field.get(null));
+            }
+        }
+        ArrayList<Integer> menuIds = new ArrayList<>();
+        for (Field field : R.id.class.getFields()) {
+            if (field.getName().startsWith("qm_")) {
+                menuIds.add(field.getInt(null));
+            }
+        }
+        menuIds.add(0);
+        ToolManager.ToolMode[] toolModes = ToolManager.ToolMode.values();
+        // repeat the inputs in order, lookups of the same identifier are not back to back
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            mStrings[i] = strings.get(i % strings.size());
+            mMenuIds[i] = menuIds.get(i % menuIds.size());
+            mToolModes[i] = toolModes[i % toolModes.length];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUT_COUNT)
+    public void convStringToToolMode(Blackhole blackhole) {
+        for (String string : mStrings) {
+            blackhole.consume(IdentifierRegistry.convStringToToolMode(string));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUT_COUNT)
+    public void convStringToAnnotType(Blackhole blackhole) {
+        for (String string : mStrings) {
+            blackhole.consume(IdentifierRegistry.convStringToAnnotType(string));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUT_COUNT)
+    public void convToolModeToString(Blackhole blackhole) {
+        for (ToolManager.ToolMode toolMode : mToolModes) {
+            blackhole.consume(IdentifierRegistry.convToolModeToString(toolMode));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUT_COUNT)
+    public void convStringToToolbarType(Blackhole blackhole) {
+        for (String string : mStrings) {
+            blackhole.consume(IdentifierRegistry.convStringToToolbarType(string));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUT_COUNT)
+    public void convStringToButtonId(Blackhole blackhole) {
+        for (String string : mStrings) {
+            blackhole.consume(IdentifierRegistry.convStringToButtonId(string));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUT_COUNT)
+    public void convQuickMenuIdToString(Blackhole blackhole) {
+        for (int menuId : mMenuIds) {
+            blackhole.consume(IdentifierRegistry.convQuickMenuIdToString(menuId));
+        }
+    }
+}
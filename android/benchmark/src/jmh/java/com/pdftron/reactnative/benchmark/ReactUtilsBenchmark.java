@@ -0,0 +1,87 @@
+package com.pdftron.reactnative.benchmark;
+
+import com.pdftron.reactnative.utils.ReactUtils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting props and options from the bridge to JSON, for maps nested depth levels deep
+ * with width values of each type on every level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReactUtilsBenchmark {
+
+    @Param({"1", "16"})
+    public int depth;
+
+    @Param({"8", "256"})
+    public int width;
+
+    private StubReadableMap mMap;
+    private StubReadableArray mArray;
+
+    @Setup
+    public void setUp() {
+        mMap = createMap(depth, width);
+        mArray = createArray(depth, width);
+    }
+
+    @Benchmark
+    public JSONObject convertMapToJson() throws JSONException {
+        return ReactUtils.convertMapToJson(mMap);
+    }
+
+    @Benchmark
+    public JSONArray convertArrayToJson() throws JSONException {
+        return ReactUtils.convertArrayToJson(mArray);
+    }
+
+    private static StubReadableMap createMap(int depth, int width) {
+        StubReadableMap map = new StubReadableMap();
+        for (int i = 0; i < width; i++) {
+            map.put("string" + i, "value" + i)
+                    .put("number" + i, (double) i)
+                    .put("boolean" + i, i % 2 == 0)
+                    .put("null" + i, null);
+        }
+        map.put("array", createValues(width));
+        if (depth > 1) {
+            map.put("map", createMap(depth - 1, width));
+        }
+        return map;
+    }
+
+    private static StubReadableArray createArray(int depth, int width) {
+        StubReadableArray array = createValues(width);
+        if (depth > 1) {
+            array.add(createMap(depth - 1, width));
+            array.add(createArray(depth - 1, width));
+        }
+        return array;
+    }
+
+    private static StubReadableArray createValues(int width) {
+        StubReadableArray array = new StubReadableArray();
+        for (int i = 0; i < width; i++) {
+            array.add("value" + i)
+                    .add((double) i)
+                    .add(i % 2 == 0)
+                    .add(null);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,103 @@
+package com.pdftron.reactnative.benchmark;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link ReadableArray} over plain Java values, with the same values as {@link StubReadableMap}.
+ */
+public class StubReadableArray implements ReadableArray {
+
+    private final ArrayList<Object> mValues = new ArrayList<>();
+
+    public StubReadableArray add(@Nullable Object value) {
+        mValues.add(value);
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return mValues.size();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return null == mValues.get(index);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        return (Boolean) mValues.get(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return (Double) mValues.get(index);
+    }
+
+    @Override
+    public int getInt(int index) {
+        return ((Double) mValues.get(index)).intValue();
+    }
+
+    @NonNull
+    @Override
+    public String getString(int index) {
+        return (String) mValues.get(index);
+    }
+
+    @NonNull
+    @Override
+    public ReadableArray getArray(int index) {
+        return (ReadableArray) mValues.get(index);
+    }
+
+    @NonNull
+    @Override
+    public ReadableMap getMap(int index) {
+        return (ReadableMap) mValues.get(index);
+    }
+
+    @NonNull
+    @Override
+    public Dynamic getDynamic(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    @NonNull
+    @Override
+    public ReadableType getType(int index) {
+        return typeOf(mValues.get(index));
+    }
+
+    @NonNull
+    @Override
+    public ArrayList<Object> toArrayList() {
+        return new ArrayList<>(mValues);
+    }
+
+    @NonNull
+    static ReadableType typeOf(@Nullable Object value) {
+        if (null == value) {
+            return ReadableType.Null;
+        } else if (value instanceof Boolean) {
+            return ReadableType.Boolean;
+        } else if (value instanceof Double) {
+            return ReadableType.Number;
+        } else if (value instanceof String) {
+            return ReadableType.String;
+        } else if (value instanceof ReadableMap) {
+            return ReadableType.Map;
+        } else if (value instanceof ReadableArray) {
+            return ReadableType.Array;
+        }
+        throw new IllegalArgumentException("Unsupported value " + value);
+    }
+}
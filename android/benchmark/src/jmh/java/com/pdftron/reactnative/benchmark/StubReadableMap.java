@@ -0,0 +1,114 @@
+package com.pdftron.reactnative.benchmark;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link ReadableMap} over plain Java values, standing in for the one the bridge hands to
+ * the native modules. Values are null, {@link Boolean}, {@link Double}, {@link String},
+ * {@link StubReadableMap} or {@link StubReadableArray}.
+ */
+public class StubReadableMap implements ReadableMap {
+
+    private final LinkedHashMap<String, Object> mValues = new LinkedHashMap<>();
+
+    public StubReadableMap put(@NonNull String name, @Nullable Object value) {
+        mValues.put(name, value);
+        return this;
+    }
+
+    @Override
+    public boolean hasKey(@NonNull String name) {
+        return mValues.containsKey(name);
+    }
+
+    @Override
+    public boolean isNull(@NonNull String name) {
+        return null == mValues.get(name);
+    }
+
+    @Override
+    public boolean getBoolean(@NonNull String name) {
+        return (Boolean) mValues.get(name);
+    }
+
+    @Override
+    public double getDouble(@NonNull String name) {
+        return (Double) mValues.get(name);
+    }
+
+    @Override
+    public int getInt(@NonNull String name) {
+        return ((Double) mValues.get(name)).intValue();
+    }
+
+    @Nullable
+    @Override
+    public String getString(@NonNull String name) {
+        return (String) mValues.get(name);
+    }
+
+    @Nullable
+    @Override
+    public ReadableArray getArray(@NonNull String name) {
+        return (ReadableArray) mValues.get(name);
+    }
+
+    @Nullable
+    @Override
+    public ReadableMap getMap(@NonNull String name) {
+        return (ReadableMap) mValues.get(name);
+    }
+
+    @NonNull
+    @Override
+    public Dynamic getDynamic(@NonNull String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @NonNull
+    @Override
+    public ReadableType getType(@NonNull String name) {
+        return StubReadableArray.typeOf(mValues.get(name));
+    }
+
+    @NonNull
+    @Override
+    public Iterator<Map.Entry<String, Object>> getEntryIterator() {
+        return mValues.entrySet().iterator();
+    }
+
+    @NonNull
+    @Override
+    public ReadableMapKeySetIterator keySetIterator() {
+        final Iterator<String> iterator = mValues.keySet().iterator();
+        return new ReadableMapKeySetIterator() {
+            @Override
+            public boolean hasNextKey() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String nextKey() {
+                return iterator.next();
+            }
+        };
+    }
+
+    @NonNull
+    @Override
+    public HashMap<String, Object> toHashMap() {
+        return new HashMap<>(mValues);
+    }
+}
@@ -0,0 +1,126 @@
+package com.pdftron.reactnative.utils;
+
+import com.pdftron.pdf.Annot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_ACTION_ADD;
+import static com.pdftron.reactnative.utils.Constants.KEY_ACTION_DELETE;
+import static com.pdftron.reactnative.utils.Constants.KEY_ACTION_MODIFY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class AnnotationChangeBatchTest {
+
+    private AnnotationChangeBatch mBatch;
+    private Annot mFirst;
+    private Annot mSecond;
+
+    @Before
+    public void setUp() {
+        mBatch = new AnnotationChangeBatch();
+        mFirst = mock(Annot.class);
+        mSecond = mock(Annot.class);
+    }
+
+    @Test
+    public void addedThenModifiedIsAdded() {
+        mBatch.put(KEY_ACTION_ADD, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_MODIFY, "a", mSecond, 2);
+
+        assertEquals(1, mBatch.size());
+        LinkedHashMap<Annot, Integer> added = mBatch.getChanges(KEY_ACTION_ADD);
+        assertEquals(1, added.size());
+        // the latest annotation and page are kept
+        assertEquals(Integer.valueOf(2), added.get(mSecond));
+        assertTrue(mBatch.getChanges(KEY_ACTION_MODIFY).isEmpty());
+    }
+
+    @Test
+    public void addedThenDeletedIsDropped() {
+        mBatch.put(KEY_ACTION_ADD, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_MODIFY, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_DELETE, "a", mFirst, 1);
+
+        assertTrue(mBatch.isEmpty());
+    }
+
+    @Test
+    public void deletedThenAddedIsModified() {
+        mBatch.put(KEY_ACTION_DELETE, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_ADD, "a", mSecond, 1);
+
+        assertEquals(Integer.valueOf(1), mBatch.getChanges(KEY_ACTION_MODIFY).get(mSecond));
+        assertTrue(mBatch.getChanges(KEY_ACTION_ADD).isEmpty());
+        assertTrue(mBatch.getChanges(KEY_ACTION_DELETE).isEmpty());
+    }
+
+    @Test
+    public void modifiedThenDeletedIsDeleted() {
+        mBatch.put(KEY_ACTION_MODIFY, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_MODIFY, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_DELETE, "a", mFirst, 1);
+
+        assertEquals(1, mBatch.size());
+        assertEquals(Integer.valueOf(1), mBatch.getChanges(KEY_ACTION_DELETE).get(mFirst));
+        assertTrue(mBatch.getChanges(KEY_ACTION_MODIFY).isEmpty());
+    }
+
+    @Test
+    public void changesKeepTheOrderTheyFirstOccurred() {
+        mBatch.put(KEY_ACTION_MODIFY, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_MODIFY, "b", mSecond, 2);
+        mBatch.put(KEY_ACTION_MODIFY, "a", mFirst, 3);
+
+        LinkedHashMap<Annot, Integer> modified = mBatch.getChanges(KEY_ACTION_MODIFY);
+        assertEquals(Arrays.asList(mFirst, mSecond), new ArrayList<>(modified.keySet()));
+        assertEquals(Arrays.asList(3, 2), new ArrayList<>(modified.values()));
+    }
+
+    @Test
+    public void clear() {
+        mBatch.put(KEY_ACTION_ADD, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_DELETE, "b", mSecond, 1);
+        mBatch.clear();
+
+        assertTrue(mBatch.isEmpty());
+        assertTrue(mBatch.getChanges(KEY_ACTION_DELETE).isEmpty());
+    }
+
+    @Test
+    public void deletionKeepsItsXfdfAndId() {
+        mBatch.put(KEY_ACTION_MODIFY, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_DELETE, "a", mFirst, 2, "<delete-a/>");
+        mBatch.put(KEY_ACTION_DELETE, "b", mSecond, 3, "<delete-b/>");
+
+        assertEquals(Arrays.asList("<delete-a/>", "<delete-b/>"), mBatch.getXfdf(KEY_ACTION_DELETE));
+        LinkedHashMap<String, Integer> ids = mBatch.getIds(KEY_ACTION_DELETE);
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(ids.keySet()));
+        assertEquals(Arrays.asList(2, 3), new ArrayList<>(ids.values()));
+    }
+
+    @Test
+    public void deletedThenAddedDropsTheXfdf() {
+        mBatch.put(KEY_ACTION_DELETE, "a", mFirst, 1, "<delete-a/>");
+        mBatch.put(KEY_ACTION_ADD, "a", mSecond, 1);
+
+        assertTrue(mBatch.getXfdf(KEY_ACTION_DELETE).isEmpty());
+        assertTrue(mBatch.getXfdf(KEY_ACTION_MODIFY).isEmpty());
+        assertEquals(Integer.valueOf(1), mBatch.getIds(KEY_ACTION_MODIFY).get("a"));
+    }
+
+    @Test
+    public void addedThenDeletedLeavesNoXfdf() {
+        mBatch.put(KEY_ACTION_ADD, "a", mFirst, 1);
+        mBatch.put(KEY_ACTION_DELETE, "a", mFirst, 1, "<delete-a/>");
+
+        assertTrue(mBatch.getXfdf(KEY_ACTION_DELETE).isEmpty());
+        assertTrue(mBatch.getIds(KEY_ACTION_DELETE).isEmpty());
+    }
+}
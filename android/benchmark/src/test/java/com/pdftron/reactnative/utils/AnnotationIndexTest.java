@@ -0,0 +1,115 @@
+package com.pdftron.reactnative.utils;
+
+import com.pdftron.pdf.Annot;
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.PDFViewCtrl;
+import com.pdftron.pdf.Page;
+import com.pdftron.sdf.Obj;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnnotationIndexTest {
+
+    @Test
+    public void buildIndexesAndAssignsIds() throws Exception {
+        Annot named = annot("a1");
+        Annot unnamed = annot(null);
+        AnnotationIndex index = new AnnotationIndex();
+
+        index.build(viewCtrl(page(named), page(unnamed)), 0);
+
+        assertSame(named, index.get("a1", 1));
+        verify(unnamed).setUniqueID(anyString());
+    }
+
+    @Test
+    public void readOnlyAssignsNoIds() throws Exception {
+        Annot named = annot("a1");
+        Annot unnamed = annot(null);
+        AnnotationIndex index = new AnnotationIndex();
+        index.setAssignIds(false);
+
+        index.build(viewCtrl(page(named, unnamed)), 0);
+
+        assertSame(named, index.get("a1", 1));
+        verify(unnamed, never()).setUniqueID(anyString());
+    }
+
+    @Test
+    public void clearedDuringBuildKeepsNoEntries() throws Exception {
+        final AnnotationIndex index = new AnnotationIndex();
+        final Annot first = annot("a1");
+        Annot second = annot("a2");
+        Page page = mock(Page.class);
+        when(page.getNumAnnots()).thenReturn(2);
+        when(page.getAnnot(0)).thenReturn(first);
+        when(page.getAnnot(1)).thenAnswer(new Answer<Annot>() {
+            @Override
+            public Annot answer(InvocationOnMock invocation) {
+                // e.g. all annotations removed while the page is read
+                index.clear();
+                return first;
+            }
+        });
+
+        index.build(viewCtrl(page, page(second)), 0);
+
+        assertNull(index.get("a1", 1));
+        assertNull(index.get("a2", 2));
+    }
+
+    @Test
+    public void putAfterBuild() throws Exception {
+        AnnotationIndex index = new AnnotationIndex();
+        index.build(viewCtrl(page()), 0);
+        Annot annot = annot("a1");
+        index.put(annot, 3);
+
+        assertNotNull(index.get("a1", 3));
+        assertEquals(3, index.getPageNum("a1"));
+        assertEquals(-1, index.getPageNum("a2"));
+    }
+
+    private static Annot annot(String id) throws Exception {
+        Annot annot = mock(Annot.class);
+        when(annot.isValid()).thenReturn(true);
+        if (id != null) {
+            Obj uid = mock(Obj.class);
+            when(uid.getAsPDFText()).thenReturn(id);
+            when(annot.getUniqueID()).thenReturn(uid);
+        }
+        return annot;
+    }
+
+    private static Page page(Annot... annots) throws Exception {
+        Page page = mock(Page.class);
+        when(page.getNumAnnots()).thenReturn(annots.length);
+        for (int i = 0; i < annots.length; i++) {
+            when(page.getAnnot(i)).thenReturn(annots[i]);
+        }
+        return page;
+    }
+
+    private static PDFViewCtrl viewCtrl(Page... pages) throws Exception {
+        PDFDoc pdfDoc = mock(PDFDoc.class);
+        when(pdfDoc.getPageCount()).thenReturn(pages.length);
+        for (int i = 0; i < pages.length; i++) {
+            when(pdfDoc.getPage(i + 1)).thenReturn(pages[i]);
+        }
+        PDFViewCtrl pdfViewCtrl = mock(PDFViewCtrl.class);
+        when(pdfViewCtrl.getDoc()).thenReturn(pdfDoc);
+        return pdfViewCtrl;
+    }
+}
@@ -0,0 +1,74 @@
+package com.pdftron.reactnative.utils;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_BOOKMARK_ADDED;
+import static com.pdftron.reactnative.utils.Constants.KEY_BOOKMARK_REMOVED;
+import static com.pdftron.reactnative.utils.Constants.KEY_BOOKMARK_RENAMED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BookmarkDeltaTest {
+
+    private static final String PREVIOUS = "{\"0\":\"Cover\",\"1\":\"Contents\",\"2\":\"Summary\"}";
+    private static final String CURRENT = "{\"0\":\"Cover\",\"1\":\"Table of contents\",\"3\":\"Appendix\"}";
+
+    @Test
+    public void parseEmpty() throws Exception {
+        assertEquals(0, BookmarkDelta.parse(null).length());
+        assertEquals(0, BookmarkDelta.parse("").length());
+    }
+
+    @Test
+    public void diff() throws Exception {
+        JSONObject delta = BookmarkDelta.diff(BookmarkDelta.parse(PREVIOUS), BookmarkDelta.parse(CURRENT));
+
+        assertTrue(delta.getJSONObject(KEY_BOOKMARK_ADDED).similar(new JSONObject("{\"3\":\"Appendix\"}")));
+        assertTrue(delta.getJSONObject(KEY_BOOKMARK_REMOVED).similar(new JSONObject("{\"2\":\"Summary\"}")));
+        assertTrue(delta.getJSONObject(KEY_BOOKMARK_RENAMED).similar(new JSONObject("{\"1\":\"Table of contents\"}")));
+        assertTrue(BookmarkDelta.isDelta(delta));
+        assertFalse(BookmarkDelta.isEmpty(delta));
+    }
+
+    @Test
+    public void diffOfEqualCollectionsIsEmpty() throws Exception {
+        JSONObject delta = BookmarkDelta.diff(BookmarkDelta.parse(PREVIOUS), BookmarkDelta.parse(PREVIOUS));
+        assertTrue(BookmarkDelta.isEmpty(delta));
+    }
+
+    @Test
+    public void collectionIsNotDelta() throws Exception {
+        assertFalse(BookmarkDelta.isDelta(BookmarkDelta.parse(PREVIOUS)));
+        assertTrue(BookmarkDelta.isEmpty(BookmarkDelta.parse(PREVIOUS)));
+    }
+
+    @Test
+    public void applyDiffGivesCurrent() throws Exception {
+        JSONObject delta = BookmarkDelta.diff(BookmarkDelta.parse(PREVIOUS), BookmarkDelta.parse(CURRENT));
+        JSONObject applied = BookmarkDelta.apply(BookmarkDelta.parse(PREVIOUS), delta);
+        assertTrue(applied.similar(BookmarkDelta.parse(CURRENT)));
+    }
+
+    @Test
+    public void applyPartialDelta() throws Exception {
+        JSONObject delta = new JSONObject().put(KEY_BOOKMARK_ADDED, new JSONObject().put("5", "Index"));
+        JSONObject applied = BookmarkDelta.apply(BookmarkDelta.parse(PREVIOUS), delta);
+
+        assertEquals(4, applied.length());
+        assertEquals("Index", applied.getString("5"));
+        assertEquals("Summary", applied.getString("2"));
+    }
+
+    @Test
+    public void applyRemovesBeforeAdding() throws Exception {
+        // a bookmark replaced on the same page
+        JSONObject delta = new JSONObject()
+                .put(KEY_BOOKMARK_REMOVED, new JSONObject().put("2", "Summary"))
+                .put(KEY_BOOKMARK_ADDED, new JSONObject().put("2", "Conclusion"));
+        JSONObject applied = BookmarkDelta.apply(BookmarkDelta.parse(PREVIOUS), delta);
+
+        assertEquals("Conclusion", applied.getString("2"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.pdftron.reactnative.utils;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static com.pdftron.reactnative.utils.ChunkMap.CHUNK_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ChunkMapTest {
+
+    @Test
+    public void unknownLength() {
+        ChunkMap chunks = ChunkMap.fromMeta(null);
+        assertEquals(-1, chunks.getLength());
+        assertEquals(0, chunks.firstMissing());
+        assertEquals(-1, chunks.endOfMissingRun(0));
+    }
+
+    @Test
+    public void chunksWithoutValidatorAreDropped() throws Exception {
+        JSONObject meta = new JSONObject()
+                .put(ChunkMap.META_LENGTH, 2L * CHUNK_SIZE)
+                .put(ChunkMap.META_CHUNKS, "11");
+        ChunkMap chunks = ChunkMap.fromMeta(meta);
+        assertEquals(-1, chunks.getLength());
+        assertEquals(0, chunks.firstMissing());
+    }
+
+    @Test
+    public void partialChunksAreNotMarked() {
+        ChunkMap chunks = create(3L * CHUNK_SIZE);
+        chunks.markWritten(10, CHUNK_SIZE + 5);
+        assertEquals(0, chunks.firstMissing());
+        assertEquals(3L * CHUNK_SIZE, chunks.endOfMissingRun(0));
+    }
+
+    @Test
+    public void missingRunEndsAtNextWrittenChunk() {
+        ChunkMap chunks = create(3L * CHUNK_SIZE);
+        chunks.markWritten(CHUNK_SIZE, 2L * CHUNK_SIZE);
+        assertEquals(0, chunks.firstMissing());
+        assertEquals(CHUNK_SIZE, chunks.endOfMissingRun(0));
+        assertEquals(3L * CHUNK_SIZE, chunks.endOfMissingRun(2L * CHUNK_SIZE));
+    }
+
+    @Test
+    public void lastChunkIsMarkedAtEndOfDocument() {
+        long length = 2L * CHUNK_SIZE + 100;
+        ChunkMap chunks = create(length);
+        chunks.markWritten(2L * CHUNK_SIZE, length);
+        assertEquals(0, chunks.firstMissing());
+        assertEquals(2L * CHUNK_SIZE, chunks.endOfMissingRun(0));
+
+        chunks.markWritten(0, 2L * CHUNK_SIZE);
+        assertEquals(-1, chunks.firstMissing());
+    }
+
+    @Test
+    public void firstMissingAfterWrittenChunks() {
+        ChunkMap chunks = create(3L * CHUNK_SIZE);
+        chunks.markWritten(0, 2L * CHUNK_SIZE + 1);
+        assertEquals(2L * CHUNK_SIZE, chunks.firstMissing());
+        assertEquals(3L * CHUNK_SIZE, chunks.endOfMissingRun(chunks.firstMissing()));
+    }
+
+    @Test
+    public void otherLengthClearsChunks() {
+        ChunkMap chunks = create(2L * CHUNK_SIZE);
+        chunks.markWritten(0, 2L * CHUNK_SIZE);
+        assertEquals(-1, chunks.firstMissing());
+
+        chunks.setLength(2L * CHUNK_SIZE);
+        assertEquals(-1, chunks.firstMissing());
+
+        chunks.setLength(4L * CHUNK_SIZE);
+        assertEquals(0, chunks.firstMissing());
+        assertEquals(4L * CHUNK_SIZE, chunks.endOfMissingRun(0));
+    }
+
+    @Test
+    public void resetClearsValidators() {
+        ChunkMap chunks = create(2L * CHUNK_SIZE);
+        chunks.markWritten(0, CHUNK_SIZE);
+        chunks.reset(CHUNK_SIZE);
+        assertNull(chunks.getValidator());
+        assertEquals(CHUNK_SIZE, chunks.getLength());
+        assertEquals(0, chunks.firstMissing());
+    }
+
+    @Test
+    public void weakEtagIsNotUsedForRanges() {
+        ChunkMap chunks = ChunkMap.fromMeta(null);
+        chunks.setValidators("\"v1\"", "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertEquals("\"v1\"", chunks.getValidator());
+
+        chunks.setValidators("W/\"v1\"", "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", chunks.getValidator());
+
+        chunks.setValidators("W/\"v1\"", null);
+        assertNull(chunks.getValidator());
+    }
+
+    @Test
+    public void metaRoundTrip() throws Exception {
+        ChunkMap chunks = create(3L * CHUNK_SIZE + 1);
+        chunks.markWritten(CHUNK_SIZE, 2L * CHUNK_SIZE);
+
+        JSONObject meta = chunks.toMeta(new JSONObject());
+        assertEquals("0100", meta.getString(ChunkMap.META_CHUNKS));
+        assertEquals(3L * CHUNK_SIZE + 1, meta.getLong(ChunkMap.META_LENGTH));
+
+        ChunkMap restored = ChunkMap.fromMeta(meta);
+        assertEquals("\"v1\"", restored.getValidator());
+        assertEquals(3L * CHUNK_SIZE + 1, restored.getLength());
+        assertEquals(0, restored.firstMissing());
+        assertEquals(CHUNK_SIZE, restored.endOfMissingRun(0));
+        assertEquals(3L * CHUNK_SIZE + 1, restored.endOfMissingRun(2L * CHUNK_SIZE));
+    }
+
+    @Test
+    public void metaDropsClearedValidators() throws Exception {
+        ChunkMap chunks = create(CHUNK_SIZE);
+        JSONObject meta = chunks.toMeta(new JSONObject());
+        chunks.reset(CHUNK_SIZE);
+        chunks.toMeta(meta);
+        assertFalse(meta.has(ChunkMap.META_ETAG));
+        assertFalse(meta.has(ChunkMap.META_LAST_MODIFIED));
+    }
+
+    private static ChunkMap create(long length) {
+        ChunkMap chunks = ChunkMap.fromMeta(null);
+        chunks.setValidators("\"v1\"", null);
+        chunks.setLength(length);
+        return chunks;
+    }
+}
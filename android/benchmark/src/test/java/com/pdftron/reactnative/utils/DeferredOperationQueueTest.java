@@ -0,0 +1,195 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.PDFViewCtrl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeferredOperationQueueTest {
+
+    private static class RecordingOperation implements DeferredOperationQueue.Operation {
+        final List<String> log;
+        final String name;
+        final boolean annotationsReplaced;
+        final Exception error;
+        PDFDoc appliedTo;
+
+        RecordingOperation(List<String> log, String name, boolean annotationsReplaced, Exception error) {
+            this.log = log;
+            this.name = name;
+            this.annotationsReplaced = annotationsReplaced;
+            this.error = error;
+        }
+
+        @Override
+        public boolean apply(@NonNull PDFDoc pdfDoc) throws Exception {
+            appliedTo = pdfDoc;
+            log.add(name);
+            if (error != null) {
+                throw error;
+            }
+            return annotationsReplaced;
+        }
+    }
+
+    private static class RecordingCallback implements DeferredOperationQueue.Callback {
+        boolean called;
+        Exception error;
+
+        @Override
+        public void onApplied(@Nullable Exception error) {
+            this.called = true;
+            this.error = error;
+        }
+    }
+
+    private final ArrayList<String> mLog = new ArrayList<>();
+    private final ArrayList<Boolean> mBatches = new ArrayList<>();
+    private DeferredOperationQueue mQueue;
+    private PDFViewCtrl mPdfViewCtrl;
+    private PDFDoc mPdfDoc;
+
+    @Before
+    public void setUp() {
+        mQueue = new DeferredOperationQueue(2, new DeferredOperationQueue.Listener() {
+            @Override
+            public void onBatchApplied(boolean annotationsReplaced) {
+                mBatches.add(annotationsReplaced);
+            }
+        });
+        mPdfViewCtrl = mock(PDFViewCtrl.class);
+        mPdfDoc = mock(PDFDoc.class);
+        when(mPdfViewCtrl.getDoc()).thenReturn(mPdfDoc);
+    }
+
+    @Test
+    public void offerIsBounded() {
+        assertTrue(mQueue.offer(operation("a"), new RecordingCallback()));
+        assertTrue(mQueue.offer(operation("b"), new RecordingCallback()));
+        assertFalse(mQueue.offer(operation("c"), new RecordingCallback()));
+        assertEquals(2, mQueue.size());
+
+        // operations applied right away are not bounded
+        mQueue.add(operation("d"), new RecordingCallback());
+        assertEquals(3, mQueue.size());
+    }
+
+    @Test
+    public void applyAllInOrderUnderOneLock() throws Exception {
+        RecordingOperation first = operation("a");
+        RecordingOperation second = new RecordingOperation(mLog, "b", true, null);
+        RecordingCallback firstCallback = new RecordingCallback();
+        RecordingCallback secondCallback = new RecordingCallback();
+        mQueue.offer(first, firstCallback);
+        mQueue.offer(second, secondCallback);
+
+        mQueue.applyAll(mPdfViewCtrl);
+
+        assertEquals(Arrays.asList("a", "b"), mLog);
+        assertSame(mPdfDoc, first.appliedTo);
+        assertSame(mPdfDoc, second.appliedTo);
+        assertTrue(firstCallback.called);
+        assertNull(firstCallback.error);
+        assertTrue(secondCallback.called);
+        assertEquals(Arrays.asList(true), mBatches);
+        assertEquals(0, mQueue.size());
+
+        InOrder order = inOrder(mPdfViewCtrl);
+        order.verify(mPdfViewCtrl).docLock(true);
+        order.verify(mPdfViewCtrl).docUnlock();
+    }
+
+    @Test
+    public void failedOperationDoesNotStopTheBatch() {
+        Exception error = new Exception("failed");
+        RecordingCallback failedCallback = new RecordingCallback();
+        RecordingCallback nextCallback = new RecordingCallback();
+        mQueue.offer(new RecordingOperation(mLog, "a", false, error), failedCallback);
+        mQueue.offer(operation("b"), nextCallback);
+
+        mQueue.applyAll(mPdfViewCtrl);
+
+        assertEquals(Arrays.asList("a", "b"), mLog);
+        assertSame(error, failedCallback.error);
+        assertTrue(nextCallback.called);
+        assertNull(nextCallback.error);
+        assertEquals(Arrays.asList(false), mBatches);
+    }
+
+    @Test
+    public void documentIsResolvedWhenApplied() {
+        RecordingOperation operation = operation("a");
+        mQueue.offer(operation, new RecordingCallback());
+
+        // switched after the operation was queued
+        PDFDoc other = mock(PDFDoc.class);
+        when(mPdfViewCtrl.getDoc()).thenReturn(other);
+        mQueue.applyAll(mPdfViewCtrl);
+
+        assertSame(other, operation.appliedTo);
+    }
+
+    @Test
+    public void noDocumentCancelsAll() {
+        when(mPdfViewCtrl.getDoc()).thenReturn(null);
+        RecordingCallback callback = new RecordingCallback();
+        mQueue.offer(operation("a"), callback);
+
+        mQueue.applyAll(mPdfViewCtrl);
+
+        assertTrue(mLog.isEmpty());
+        assertTrue(callback.called);
+        assertNotNull(callback.error);
+        assertTrue(mBatches.isEmpty());
+        assertEquals(0, mQueue.size());
+        verify(mPdfViewCtrl).docUnlock();
+    }
+
+    @Test
+    public void emptyQueueIsNotReported() {
+        mQueue.applyAll(mPdfViewCtrl);
+        assertTrue(mBatches.isEmpty());
+    }
+
+    @Test
+    public void cancelAll() throws Exception {
+        Exception reason = new Exception("closed");
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        mQueue.offer(operation("a"), first);
+        mQueue.offer(operation("b"), second);
+
+        mQueue.cancelAll(reason);
+
+        assertSame(reason, first.error);
+        assertSame(reason, second.error);
+        assertTrue(mLog.isEmpty());
+        assertEquals(0, mQueue.size());
+        verify(mPdfViewCtrl, never()).docLock(true);
+    }
+
+    private RecordingOperation operation(String name) {
+        return new RecordingOperation(mLog, name, false, null);
+    }
+}
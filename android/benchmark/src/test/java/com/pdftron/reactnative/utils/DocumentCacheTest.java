@@ -0,0 +1,350 @@
+package com.pdftron.reactnative.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_EVICTIONS;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_HITS;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_MISSES;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_SIZE;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_STALE_HITS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DocumentCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private Origin mOrigin;
+    private HttpServer mServer;
+    private String mUrl;
+    private DocumentCache mCache;
+
+    @Before
+    public void setUp() throws Exception {
+        mOrigin = new Origin();
+        mOrigin.set(content(200 * 1024, 1), "\"v1\"");
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/", mOrigin);
+        mServer.start();
+        mUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/doc.pdf";
+        mCache = new DocumentCache(mFolder.newFolder("cache"), 1, 64L * 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        if (mServer != null) {
+            mServer.stop(0);
+        }
+    }
+
+    @Test
+    public void missOnlyRequestsHeaders() throws Exception {
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+        assertEquals(1, mOrigin.requests.get());
+        assertEquals("bytes=0-0", mOrigin.lastRange);
+        assertEquals(1, mOrigin.bytesSent.get());
+        assertEquals(1L, (long) mCache.getStats().get(KEY_CACHE_MISSES));
+    }
+
+    @Test
+    public void adoptedCopyIsRevalidated() throws Exception {
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+        mCache.adoptRemote(mUrl, null, viewerCopy(mOrigin.content));
+
+        File cached = mCache.acquireRemoteIfCurrent(mUrl, null);
+        assertNotNull(cached);
+        assertArrayEquals(mOrigin.content, FileUtils.readFileToByteArray(cached));
+        assertEquals("\"v1\"", mOrigin.lastIfNoneMatch);
+        // the document itself was never sent by the server
+        assertEquals(1, mOrigin.bytesSent.get());
+        assertEquals(1L, (long) mCache.getStats().get(KEY_CACHE_HITS));
+        mCache.release(cached);
+    }
+
+    @Test
+    public void incompleteCopyIsNotAdopted() throws Exception {
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+        mCache.adoptRemote(mUrl, null, viewerCopy(Arrays.copyOf(mOrigin.content, 1000)));
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+    }
+
+    @Test
+    public void copyWithoutRevalidationIsNotAdopted() throws Exception {
+        mCache.adoptRemote(mUrl, null, viewerCopy(mOrigin.content));
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+        assertEquals(null, mOrigin.lastIfNoneMatch);
+    }
+
+    @Test
+    public void changedDocumentIsNotDownloaded() throws Exception {
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+        mCache.adoptRemote(mUrl, null, viewerCopy(mOrigin.content));
+
+        mOrigin.set(content(150 * 1024, 2), "\"v2\"");
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+        assertEquals(2, mOrigin.bytesSent.get());
+
+        mCache.adoptRemote(mUrl, null, viewerCopy(mOrigin.content));
+        File cached = mCache.acquireRemoteIfCurrent(mUrl, null);
+        assertNotNull(cached);
+        assertArrayEquals(mOrigin.content, FileUtils.readFileToByteArray(cached));
+        mCache.release(cached);
+    }
+
+    @Test
+    public void cachedCopyIsUsedOffline() throws Exception {
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+        mCache.adoptRemote(mUrl, null, viewerCopy(mOrigin.content));
+        byte[] content = mOrigin.content;
+        mServer.stop(0);
+        mServer = null;
+
+        File cached = mCache.acquireRemoteIfCurrent(mUrl, null);
+        assertNotNull(cached);
+        assertArrayEquals(content, FileUtils.readFileToByteArray(cached));
+        assertEquals(1L, (long) mCache.getStats().get(KEY_CACHE_STALE_HITS));
+        mCache.release(cached);
+    }
+
+    @Test(expected = IOException.class)
+    public void uncachedDocumentOffline() throws Exception {
+        mServer.stop(0);
+        mServer = null;
+        mCache.acquireRemoteIfCurrent(mUrl, null);
+    }
+
+    @Test
+    public void downloadIsShared() throws Exception {
+        File downloaded = mCache.acquireRemote(mUrl, null);
+        assertArrayEquals(mOrigin.content, FileUtils.readFileToByteArray(downloaded));
+        mCache.release(downloaded);
+        assertTrue(mOrigin.bytesSent.get() >= mOrigin.content.length);
+
+        File cached = mCache.acquireRemoteIfCurrent(mUrl, null);
+        assertNotNull(cached);
+        mCache.release(cached);
+    }
+
+    @Test
+    public void revalidatesAndDownloadsChangedDocument() throws Exception {
+        File downloaded = mCache.acquireRemote(mUrl, null);
+        assertArrayEquals(mOrigin.content, FileUtils.readFileToByteArray(downloaded));
+        mCache.release(downloaded);
+        long sent = mOrigin.bytesSent.get();
+
+        // 304
+        File cached = mCache.acquireRemote(mUrl, null);
+        assertEquals("\"v1\"", mOrigin.lastIfNoneMatch);
+        assertEquals(sent, mOrigin.bytesSent.get());
+        assertEquals(downloaded, cached);
+        mCache.release(cached);
+
+        // a new ETag
+        mOrigin.set(content(120 * 1024, 2), "\"v2\"");
+        File changed = mCache.acquireRemote(mUrl, null);
+        assertArrayEquals(mOrigin.content, FileUtils.readFileToByteArray(changed));
+        mCache.release(changed);
+
+        assertEquals(1L, (long) mCache.getStats().get(KEY_CACHE_HITS));
+        assertEquals(2L, (long) mCache.getStats().get(KEY_CACHE_MISSES));
+        assertEquals(0L, (long) mCache.getStats().get(KEY_CACHE_STALE_HITS));
+    }
+
+    @Test
+    public void copiesAreKeptPerHeaders() throws Exception {
+        File downloaded = mCache.acquireRemote(mUrl, headers("Authorization", "Bearer a"));
+        assertEquals("Bearer a", mOrigin.lastAuthorization);
+        mCache.release(downloaded);
+
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, headers("Authorization", "Bearer b")));
+        assertEquals("Bearer b", mOrigin.lastAuthorization);
+        assertNull(mCache.acquireRemoteIfCurrent(mUrl, null));
+
+        File cached = mCache.acquireRemoteIfCurrent(mUrl, headers("authorization", "Bearer a"));
+        assertNotNull(cached);
+        mCache.release(cached);
+    }
+
+    @Test
+    public void noStaleCopyForOtherHeaders() throws Exception {
+        mCache.release(mCache.acquireRemote(mUrl, headers("Authorization", "Bearer a")));
+        mServer.stop(0);
+        mServer = null;
+
+        try {
+            mCache.acquireRemoteIfCurrent(mUrl, headers("Authorization", "Bearer b"));
+            fail();
+        } catch (IOException ex) {
+            // not cached for these headers
+        }
+        try {
+            mCache.acquireRemote(mUrl, null);
+            fail();
+        } catch (IOException ex) {
+            // not cached without headers
+        }
+        File cached = mCache.acquireRemote(mUrl, headers("Authorization", "Bearer a"));
+        assertNotNull(cached);
+        mCache.release(cached);
+        assertEquals(1L, (long) mCache.getStats().get(KEY_CACHE_STALE_HITS));
+    }
+
+    @Test
+    public void remoteKeyIgnoresHeaderOrderAndCase() throws Exception {
+        assertEquals(mUrl, DocumentCache.getRemoteKey(mUrl, null));
+        assertEquals(mUrl, DocumentCache.getRemoteKey(mUrl, new JSONObject()));
+        JSONObject headers = headers("Authorization", "Bearer a").put("Cookie", "session=1");
+        JSONObject same = headers("cookie", "session=1").put("AUTHORIZATION", "Bearer a");
+        assertEquals(DocumentCache.getRemoteKey(mUrl, headers), DocumentCache.getRemoteKey(mUrl, same));
+        assertNotEquals(DocumentCache.getRemoteKey(mUrl, headers),
+                DocumentCache.getRemoteKey(mUrl, headers("Cookie", "session=2").put("Authorization", "Bearer a")));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws Exception {
+        // room for two of the documents
+        mCache = new DocumentCache(mFolder.newFolder("small"), 1, 500 * 1024);
+        String a = mUrl + "?a";
+        String b = mUrl + "?b";
+        String c = mUrl + "?c";
+        mCache.release(mCache.acquireRemote(a, null));
+        Thread.sleep(20);
+        mCache.release(mCache.acquireRemote(b, null));
+        Thread.sleep(20);
+        // used again, b is the least recently used now
+        mCache.release(mCache.acquireRemote(a, null));
+        Thread.sleep(20);
+        mCache.release(mCache.acquireRemote(c, null));
+
+        assertEquals(1L, (long) mCache.getStats().get(KEY_CACHE_EVICTIONS));
+        assertTrue(mCache.getStats().get(KEY_CACHE_SIZE) <= 500 * 1024);
+        assertNull(mCache.acquireRemoteIfCurrent(b, null));
+        File cached = mCache.acquireRemoteIfCurrent(a, null);
+        assertNotNull(cached);
+        mCache.release(cached);
+    }
+
+    @Test
+    public void documentInUseIsNotEvicted() throws Exception {
+        mCache = new DocumentCache(mFolder.newFolder("small"), 1, 300 * 1024);
+        File inUse = mCache.acquireRemote(mUrl + "?a", null);
+        mCache.release(mCache.acquireRemote(mUrl + "?b", null));
+
+        assertTrue(inUse.exists());
+        assertEquals(1L, (long) mCache.getStats().get(KEY_CACHE_EVICTIONS));
+        mCache.release(inUse);
+    }
+
+    @Test
+    public void hashAscii() throws Exception {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", DocumentCache.hash("abc"));
+    }
+
+    @Test
+    public void hashUtf8() throws Exception {
+        // of the bytes c3 a9
+        assertEquals("4a99557e4033c3539de2eb65472017cad5f9557f7a0625a09f1c3f6e2ba69c4c", DocumentCache.hash("\u00e9"));
+    }
+
+    @Test
+    public void hashKeepsHighBits() throws Exception {
+        // the same low byte as A and -
+        assertNotEquals(DocumentCache.hash("/sdcard/A.pdf"), DocumentCache.hash("/sdcard/\u0141.pdf"));
+        assertNotEquals(DocumentCache.hash("https://example.com/-"), DocumentCache.hash("https://example.com/\u4e2d"));
+    }
+
+    private static JSONObject headers(String name, String value) throws Exception {
+        return new JSONObject().put(name, value);
+    }
+
+    private File viewerCopy(byte[] content) throws IOException {
+        File file = mFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, content);
+        return file;
+    }
+
+    private static byte[] content(int length, long seed) {
+        byte[] content = new byte[length];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+    /**
+     * Serves one document with an ETag, single byte ranges and If-None-Match.
+     */
+    static class Origin implements HttpHandler {
+        volatile byte[] content;
+        volatile String etag;
+        volatile String lastRange;
+        volatile String lastIfNoneMatch;
+        volatile String lastAuthorization;
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicLong bytesSent = new AtomicLong();
+
+        void set(byte[] content, String etag) {
+            this.content = content;
+            this.etag = etag;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            byte[] content = this.content;
+            String etag = this.etag;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            lastRange = range;
+            lastIfNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(lastIfNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            int start = 0;
+            int end = content.length;
+            int code = 200;
+            if (range != null && (null == ifRange || ifRange.equals(etag))) {
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                start = Integer.parseInt(bounds[0]);
+                if (!bounds[1].isEmpty()) {
+                    end = Math.min(end, Integer.parseInt(bounds[1]) + 1);
+                }
+                code = 206;
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + content.length);
+            }
+            // counted first, the client may be done before the exchange is closed
+            bytesSent.addAndGet(end - start);
+            exchange.sendResponseHeaders(code, end - start);
+            OutputStream os = exchange.getResponseBody();
+            os.write(content, start, end - start);
+            os.close();
+        }
+    }
+}
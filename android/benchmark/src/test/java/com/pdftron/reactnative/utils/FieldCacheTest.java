@@ -0,0 +1,99 @@
+package com.pdftron.reactnative.utils;
+
+import com.pdftron.pdf.Field;
+import com.pdftron.pdf.FieldIterator;
+import com.pdftron.pdf.PDFDoc;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FieldCacheTest {
+
+    @Test
+    public void setsFieldOfSwitchedDocument() throws Exception {
+        Field first = field("name");
+        PDFDoc firstDoc = doc(first);
+        Field second = field("name");
+        PDFDoc secondDoc = doc(second);
+        FieldCache cache = new FieldCache();
+        assertSame(first, cache.get(firstDoc, "name"));
+
+        // the view switched documents, without an invalidation
+        Field field = cache.get(secondDoc, "name");
+        field.setValue("value");
+
+        assertSame(second, field);
+        verify(second).setValue("value");
+        verify(first, never()).setValue(anyString());
+    }
+
+    @Test
+    public void builtOncePerDocument() throws Exception {
+        PDFDoc pdfDoc = doc(field("a"), field("b"));
+        FieldCache cache = new FieldCache();
+        cache.get(pdfDoc, "a");
+        cache.get(pdfDoc, "b");
+        cache.get(pdfDoc, "c");
+        verify(pdfDoc, times(1)).getFieldIterator();
+    }
+
+    @Test
+    public void invalidateBuildsAgain() throws Exception {
+        PDFDoc pdfDoc = doc(field("a"));
+        FieldCache cache = new FieldCache();
+        cache.get(pdfDoc, "a");
+        cache.invalidate();
+        cache.get(pdfDoc, "a");
+        verify(pdfDoc, times(2)).getFieldIterator();
+    }
+
+    @Test
+    public void firstFieldWithNameWins() throws Exception {
+        Field first = field("a");
+        PDFDoc pdfDoc = doc(field(null), first, field("a"));
+        FieldCache cache = new FieldCache();
+        assertSame(first, cache.get(pdfDoc, "a"));
+        assertNull(cache.get(pdfDoc, "b"));
+    }
+
+    private static Field field(String name) throws Exception {
+        Field field = mock(Field.class);
+        when(field.getName()).thenReturn(name);
+        return field;
+    }
+
+    private static PDFDoc doc(final Field... fields) throws Exception {
+        PDFDoc pdfDoc = mock(PDFDoc.class);
+        when(pdfDoc.getFieldIterator()).thenAnswer(new Answer<FieldIterator>() {
+            @Override
+            public FieldIterator answer(InvocationOnMock invocation) throws Throwable {
+                final int[] next = {0};
+                FieldIterator iterator = mock(FieldIterator.class);
+                when(iterator.hasNext()).thenAnswer(new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) {
+                        return next[0] < fields.length;
+                    }
+                });
+                when(iterator.next()).thenAnswer(new Answer<Field>() {
+                    @Override
+                    public Field answer(InvocationOnMock invocation) {
+                        return fields[next[0]++];
+                    }
+                });
+                return iterator;
+            }
+        });
+        return pdfDoc;
+    }
+}
@@ -0,0 +1,98 @@
+package com.pdftron.reactnative.utils;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_COUNT;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_MAX;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_MEAN;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_P50;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_P95;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_P99;
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void empty() {
+        HashMap<String, Double> snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.get(KEY_METRIC_COUNT), DELTA);
+        assertEquals(0, snapshot.get(KEY_METRIC_MEAN), DELTA);
+        assertEquals(0, snapshot.get(KEY_METRIC_P50), DELTA);
+        assertEquals(0, snapshot.get(KEY_METRIC_P99), DELTA);
+        assertEquals(0, snapshot.get(KEY_METRIC_MAX), DELTA);
+    }
+
+    @Test
+    public void percentilesAreBucketBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000000);
+        }
+        histogram.record(100000000);
+
+        HashMap<String, Double> snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.get(KEY_METRIC_COUNT), DELTA);
+        assertEquals(1.99, snapshot.get(KEY_METRIC_MEAN), DELTA);
+        // 1000 us falls below 1024 us
+        assertEquals(1.024, snapshot.get(KEY_METRIC_P50), DELTA);
+        assertEquals(1.024, snapshot.get(KEY_METRIC_P95), DELTA);
+        assertEquals(1.024, snapshot.get(KEY_METRIC_P99), DELTA);
+        assertEquals(100, snapshot.get(KEY_METRIC_MAX), DELTA);
+    }
+
+    @Test
+    public void percentileIsCappedAtMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000000);
+
+        HashMap<String, Double> snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.get(KEY_METRIC_P50), DELTA);
+        assertEquals(1, snapshot.get(KEY_METRIC_MAX), DELTA);
+    }
+
+    @Test
+    public void tailPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1000000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(50000000);
+        }
+
+        HashMap<String, Double> snapshot = histogram.snapshot();
+        assertEquals(1.024, snapshot.get(KEY_METRIC_P50), DELTA);
+        // 50000 us falls below 65536 us, capped at the maximum
+        assertEquals(50, snapshot.get(KEY_METRIC_P95), DELTA);
+        assertEquals(50, snapshot.get(KEY_METRIC_P99), DELTA);
+    }
+
+    @Test
+    public void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        HashMap<String, Double> snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.get(KEY_METRIC_COUNT), DELTA);
+        assertEquals(0, snapshot.get(KEY_METRIC_MEAN), DELTA);
+        assertEquals(0, snapshot.get(KEY_METRIC_P50), DELTA);
+        assertEquals(0, snapshot.get(KEY_METRIC_MAX), DELTA);
+    }
+
+    @Test
+    public void longDurationsFallInLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long nanos = 10000000000000L;
+        histogram.record(nanos);
+        histogram.record(nanos);
+
+        HashMap<String, Double> snapshot = histogram.snapshot();
+        // the last bucket is bounded by 2^31 us
+        assertEquals(LatencyHistogram.toMillis((1L << 31) * 1000), snapshot.get(KEY_METRIC_P50), DELTA);
+        assertEquals(LatencyHistogram.toMillis(nanos), snapshot.get(KEY_METRIC_MAX), DELTA);
+    }
+}
@@ -0,0 +1,104 @@
+package com.pdftron.reactnative.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SerialExecutorTest {
+
+    /**
+     * Runs tasks only when asked to, like a thread that has not got to them yet.
+     */
+    private static class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.offer(command);
+        }
+
+        boolean runNext() {
+            Runnable task = mTasks.poll();
+            if (null == task) {
+                return false;
+            }
+            task.run();
+            return true;
+        }
+    }
+
+    @Test
+    public void runsInOrderAcrossExecutors() {
+        ManualExecutor worker = new ManualExecutor();
+        ManualExecutor ui = new ManualExecutor();
+        SerialExecutor queue = new SerialExecutor(worker);
+        List<String> log = new ArrayList<>();
+
+        queue.execute(record(log, "a"));
+        queue.execute(ui, record(log, "b"));
+        queue.execute(record(log, "c"));
+
+        assertTrue(worker.runNext());
+        // b is handed to the ui executor, c waits for it
+        assertFalse(worker.runNext());
+        assertTrue(ui.runNext());
+        assertTrue(worker.runNext());
+        assertEquals(Arrays.asList("a", "b", "c"), log);
+    }
+
+    @Test
+    public void oneTaskAtATime() {
+        ManualExecutor worker = new ManualExecutor();
+        SerialExecutor queue = new SerialExecutor(worker);
+        List<String> log = new ArrayList<>();
+
+        queue.execute(record(log, "a"));
+        queue.execute(record(log, "b"));
+
+        assertEquals(1, worker.mTasks.size());
+        assertFalse(queue.isEmpty());
+        worker.runNext();
+        assertTrue(queue.isEmpty());
+        worker.runNext();
+        assertEquals(Arrays.asList("a", "b"), log);
+    }
+
+    @Test
+    public void failingTaskDoesNotStopTheQueue() {
+        ManualExecutor worker = new ManualExecutor();
+        SerialExecutor queue = new SerialExecutor(worker);
+        List<String> log = new ArrayList<>();
+
+        queue.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+        queue.execute(record(log, "b"));
+
+        try {
+            worker.runNext();
+        } catch (IllegalStateException ignored) {
+        }
+        worker.runNext();
+        assertEquals(Arrays.asList("b"), log);
+    }
+
+    private static Runnable record(final List<String> log, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                log.add(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,351 @@
+package com.pdftron.reactnative.utils;
+
+import com.pdftron.common.PDFNetException;
+import com.pdftron.pdf.Annot;
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.Page;
+import com.pdftron.sdf.DictIterator;
+import com.pdftron.sdf.Obj;
+import com.pdftron.sdf.SDFDoc;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.xml.sax.SAXException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class XfdfCommandTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<xfdf xmlns=\"http://ns.adobe.com/xfdf/\" xml:space=\"preserve\">";
+    private static final String FOOTER = "</xfdf>";
+    private static final String PDF_INFO = "<pdf-info import-version=\"3\" version=\"2\" xmlns=\"http://www.pdftron.com/pdfinfo\" />";
+
+    @Test
+    public void annotationCommand() throws Exception {
+        XfdfCommand command = XfdfCommand.parse(HEADER
+                + "<add>"
+                + "<square name=\"a1\" page=\"0\" rect=\"0,0,10,10\" />"
+                + "<circle name=\"a2\" page=\"2\" rect=\"0,0,10,10\" />"
+                + "</add>"
+                + "<modify><square name=\"m1\" page=\"1\" rect=\"0,0,20,20\" /></modify>"
+                + "<delete><id page=\"3\">d1</id><id page=\"0\"> d2 </id></delete>"
+                + PDF_INFO
+                + FOOTER);
+
+        assertFalse(command.requiresFullMerge());
+        // xfdf pages are zero based
+        assertEquals(new HashSet<>(Arrays.asList(1, 3)), command.getAddedPages());
+        assertEquals(Arrays.asList("a1", "a2"), command.getAddedIds());
+        assertEquals(Collections.singletonList("m1"), command.getModifiedIds());
+        assertEquals(Arrays.asList("d1", "d2"), command.getDeletedIds());
+    }
+
+    @Test
+    public void emptySections() throws Exception {
+        XfdfCommand command = XfdfCommand.parse(HEADER + "<add /><modify /><delete /><fields />" + PDF_INFO + FOOTER);
+
+        assertFalse(command.requiresFullMerge());
+        assertTrue(command.getAddedPages().isEmpty());
+        assertTrue(command.getAddedIds().isEmpty());
+        assertTrue(command.getModifiedIds().isEmpty());
+        assertTrue(command.getDeletedIds().isEmpty());
+    }
+
+    @Test
+    public void widgetRequiresFullMerge() throws Exception {
+        XfdfCommand command = XfdfCommand.parse(HEADER
+                + "<add><widget name=\"w1\" page=\"0\" field=\"name\" /></add>"
+                + FOOTER);
+        assertTrue(command.requiresFullMerge());
+    }
+
+    @Test
+    public void fieldsRequireFullMerge() throws Exception {
+        XfdfCommand command = XfdfCommand.parse(HEADER
+                + "<fields><field name=\"name\"><value>Jane</value></field></fields>"
+                + FOOTER);
+        assertTrue(command.requiresFullMerge());
+    }
+
+    @Test
+    public void pdfInfoWithContentRequiresFullMerge() throws Exception {
+        XfdfCommand command = XfdfCommand.parse(HEADER
+                + "<pdf-info version=\"2\" xmlns=\"http://www.pdftron.com/pdfinfo\"><ffield type=\"Tx\" name=\"name\" /></pdf-info>"
+                + FOOTER);
+        assertTrue(command.requiresFullMerge());
+    }
+
+    @Test
+    public void doctypeIsRejected() throws Exception {
+        try {
+            XfdfCommand.parse("<?xml version=\"1.0\"?>"
+                    + "<!DOCTYPE xfdf [<!ENTITY name SYSTEM \"file:///etc/hosts\">]>"
+                    + "<xfdf xmlns=\"http://ns.adobe.com/xfdf/\"><add><square name=\"&name;\" page=\"0\" /></add></xfdf>");
+            fail();
+        } catch (PDFNetException expected) {
+            // rejected before parsing
+        }
+    }
+
+    @Test
+    public void malformedIsRejected() throws Exception {
+        try {
+            XfdfCommand.parse(HEADER + "<add><square name=\"a1\" page=\"0\"></add>" + FOOTER);
+            fail();
+        } catch (SAXException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void deletesAreAppended() {
+        String removed = "<xfdf><add /><modify /><delete><id page=\"0\">a1</id></delete></xfdf>";
+        String deletes = XfdfCommand.getDeletes(removed);
+        assertEquals("<id page=\"0\">a1</id>", deletes);
+
+        assertEquals("<xfdf><delete><id page=\"1\">a2</id><id page=\"0\">a1</id></delete></xfdf>",
+                XfdfCommand.appendDeletes("<xfdf><delete><id page=\"1\">a2</id></delete></xfdf>", deletes));
+        assertEquals("<xfdf><add><a/></add><delete><id page=\"0\">a1</id></delete></xfdf>",
+                XfdfCommand.appendDeletes("<xfdf><add><a/></add><delete /></xfdf>", deletes));
+        assertEquals("<xfdf><add><a/></add><delete><id page=\"0\">a1</id></delete></xfdf>",
+                XfdfCommand.appendDeletes("<xfdf><add><a/></add></xfdf>", deletes));
+        assertEquals("<xfdf><delete /></xfdf>", XfdfCommand.appendDeletes("<xfdf><delete /></xfdf>", ""));
+        assertEquals("", XfdfCommand.getDeletes("<xfdf><delete/></xfdf>"));
+    }
+
+    @Test
+    public void existingAnnotationIsFoundOnItsPage() throws Exception {
+        Annot annot = annot("a1", 1);
+        PDFDoc pdfDoc = doc(page(), page(annot), page());
+        AnnotationIndex index = new AnnotationIndex();
+
+        assertEquals(2, XfdfCommand.findPageNum(pdfDoc, index, "a1", 2));
+        assertEquals(-1, XfdfCommand.findPageNum(pdfDoc, index, "a2", 2));
+        assertEquals(-1, XfdfCommand.findPageNum(pdfDoc, index, "", 2));
+        assertEquals(-1, XfdfCommand.findPageNum(pdfDoc, index, null, 2));
+    }
+
+    @Test
+    public void movedAnnotationIsFoundThroughTheIndex() throws Exception {
+        Annot annot = annot("a1", 1);
+        PDFDoc pdfDoc = doc(page(), page(), page(annot));
+        AnnotationIndex index = new AnnotationIndex();
+        // not on the page the command names, and not indexed
+        assertEquals(-1, XfdfCommand.findPageNum(pdfDoc, index, "a1", 1));
+
+        index.put(annot, 3);
+        assertEquals(3, XfdfCommand.findPageNum(pdfDoc, index, "a1", 1));
+    }
+
+    @Test
+    public void modifyReplacesAllButKeptEntries() throws Exception {
+        Map<String, Obj> targetEntries = new LinkedHashMap<>();
+        Obj subtype = mock(Obj.class);
+        Obj contents = mock(Obj.class);
+        Obj color = mock(Obj.class);
+        Obj parent = mock(Obj.class);
+        Obj popup = mock(Obj.class);
+        Obj appearance = mock(Obj.class);
+        targetEntries.put("Subtype", subtype);
+        targetEntries.put("Contents", contents);
+        targetEntries.put("IC", color);
+        targetEntries.put("P", parent);
+        targetEntries.put("Popup", popup);
+        targetEntries.put("AP", appearance);
+        Obj target = dict(targetEntries);
+
+        Map<String, Obj> sourceEntries = new LinkedHashMap<>();
+        Obj newSubtype = mock(Obj.class);
+        Obj rect = mock(Obj.class);
+        Obj newPopup = mock(Obj.class);
+        sourceEntries.put("Subtype", newSubtype);
+        sourceEntries.put("Rect", rect);
+        sourceEntries.put("Popup", newPopup);
+        Obj converted = mock(Obj.class);
+        Obj source = dict(sourceEntries);
+
+        SDFDoc sdfDoc = mock(SDFDoc.class);
+        when(sdfDoc.importObj(converted, true)).thenReturn(source);
+        when(sdfDoc.createIndirectDict()).thenAnswer(new Answer<Obj>() {
+            @Override
+            public Obj answer(InvocationOnMock invocation) throws Throwable {
+                return dict(new LinkedHashMap<String, Obj>());
+            }
+        });
+        PDFDoc pdfDoc = mock(PDFDoc.class);
+        when(pdfDoc.getSDFDoc()).thenReturn(sdfDoc);
+        Annot annot = mock(Annot.class);
+        when(annot.getSDFObj()).thenReturn(target);
+
+        ArrayList<XfdfCommand.Change> changes = new ArrayList<>();
+        XfdfCommand.updateAnnot(pdfDoc, annot, converted, changes);
+
+        // cleared by the modify
+        assertFalse(targetEntries.containsKey("Contents"));
+        assertFalse(targetEntries.containsKey("IC"));
+        assertSame(newSubtype, targetEntries.get("Subtype"));
+        assertSame(rect, targetEntries.get("Rect"));
+        // kept
+        assertSame(parent, targetEntries.get("P"));
+        assertSame(popup, targetEntries.get("Popup"));
+        // regenerated
+        assertFalse(targetEntries.containsKey("AP"));
+        verify(annot).refreshAppearance();
+
+        assertEquals(1, changes.size());
+        changes.get(0).undo();
+        assertEquals(new HashSet<>(Arrays.asList("Subtype", "Contents", "IC", "P", "Popup", "AP")), targetEntries.keySet());
+        assertSame(subtype, targetEntries.get("Subtype"));
+        assertSame(contents, targetEntries.get("Contents"));
+        assertSame(color, targetEntries.get("IC"));
+        assertSame(appearance, targetEntries.get("AP"));
+    }
+
+    @Test
+    public void undoOfMergeSkipsAnnotationsAlreadyGone() throws Exception {
+        Annot existing = annot("a1", 1);
+        final ArrayList<Annot> annots = new ArrayList<>(Collections.singletonList(existing));
+        Page page = mock(Page.class);
+        when(page.getNumAnnots()).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                return annots.size();
+            }
+        });
+        when(page.getAnnot(anyInt())).thenAnswer(new Answer<Annot>() {
+            @Override
+            public Annot answer(InvocationOnMock invocation) {
+                return annots.get((Integer) invocation.getArgument(0));
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                annots.remove(invocation.<Annot>getArgument(0));
+                return null;
+            }
+        }).when(page).annotRemove(any(Annot.class));
+
+        XfdfCommand.Change change = XfdfCommand.mergedInto(page);
+        Annot merged = annot("a2", 2);
+        Annot invalid = annot("a3", 3);
+        when(invalid.isValid()).thenReturn(false);
+        annots.add(merged);
+        annots.add(null);
+        annots.add(invalid);
+
+        change.undo();
+
+        assertTrue(annots.contains(existing));
+        assertFalse(annots.contains(merged));
+    }
+
+    private static Annot annot(String id, long objNum) throws Exception {
+        Obj uid = mock(Obj.class);
+        when(uid.getAsPDFText()).thenReturn(id);
+        Obj sdfObj = mock(Obj.class);
+        when(sdfObj.getObjNum()).thenReturn(objNum);
+        Annot annot = mock(Annot.class);
+        when(annot.isValid()).thenReturn(true);
+        when(annot.getUniqueID()).thenReturn(uid);
+        when(annot.getSDFObj()).thenReturn(sdfObj);
+        return annot;
+    }
+
+    private static Page page(Annot... annots) throws Exception {
+        Page page = mock(Page.class);
+        when(page.getNumAnnots()).thenReturn(annots.length);
+        for (int i = 0; i < annots.length; i++) {
+            when(page.getAnnot(i)).thenReturn(annots[i]);
+        }
+        return page;
+    }
+
+    private static PDFDoc doc(Page... pages) throws Exception {
+        PDFDoc pdfDoc = mock(PDFDoc.class);
+        when(pdfDoc.getPageCount()).thenReturn(pages.length);
+        for (int i = 0; i < pages.length; i++) {
+            when(pdfDoc.getPage(i + 1)).thenReturn(pages[i]);
+        }
+        return pdfDoc;
+    }
+
+    /**
+     * @return a dictionary backed by the map
+     */
+    private static Obj dict(final Map<String, Obj> entries) throws Exception {
+        Obj dict = mock(Obj.class);
+        when(dict.findObj(anyString())).thenAnswer(new Answer<Obj>() {
+            @Override
+            public Obj answer(InvocationOnMock invocation) {
+                return entries.get(invocation.<String>getArgument(0));
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                entries.put(invocation.<String>getArgument(0), invocation.<Obj>getArgument(1));
+                return null;
+            }
+        }).when(dict).put(anyString(), any(Obj.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                entries.remove(invocation.<String>getArgument(0));
+                return null;
+            }
+        }).when(dict).erase(anyString());
+        when(dict.getDictIterator()).thenAnswer(new Answer<DictIterator>() {
+            @Override
+            public DictIterator answer(InvocationOnMock invocation) throws Throwable {
+                final Iterator<String> keys = new ArrayList<>(entries.keySet()).iterator();
+                final String[] current = {keys.hasNext() ? keys.next() : null};
+                DictIterator iterator = mock(DictIterator.class);
+                when(iterator.hasNext()).thenAnswer(new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) {
+                        return current[0] != null;
+                    }
+                });
+                when(iterator.key()).thenAnswer(new Answer<Obj>() {
+                    @Override
+                    public Obj answer(InvocationOnMock invocation) throws Throwable {
+                        Obj name = mock(Obj.class);
+                        when(name.getName()).thenReturn(current[0]);
+                        return name;
+                    }
+                });
+                doAnswer(new Answer<Void>() {
+                    @Override
+                    public Void answer(InvocationOnMock invocation) {
+                        current[0] = keys.hasNext() ? keys.next() : null;
+                        return null;
+                    }
+                }).when(iterator).next();
+                return iterator;
+            }
+        });
+        return dict;
+    }
+}
@@ -14,6 +14,7 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 import com.pdftron.pdf.dialog.digitalsignature.DigitalSignatureDialogFragment;
+import com.pdftron.reactnative.utils.PerformanceMetrics;
 import com.pdftron.reactnative.viewmanagers.DocumentViewViewManager;
 
 public class DocumentViewModule extends ReactContextBaseJavaModule implements ActivityEventListener {
@@ -36,52 +37,40 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
 
     @ReactMethod
     public void importBookmarkJson(final int tag, final String bookmarkJson, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("importBookmarkJson", new Runnable() {
             @Override
             public void run() {
                 try {
-                    mDocumentViewInstance.importBookmarkJson(tag, bookmarkJson);
-                    promise.resolve(null);
+                    mDocumentViewInstance.importBookmarkJson(tag, bookmarkJson, promise);
                 } catch (Exception ex) {
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void importAnnotationCommand(final int tag, final String xfdfCommand, final boolean initialLoad, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    mDocumentViewInstance.importAnnotationCommand(tag, xfdfCommand, initialLoad);
-                    promise.resolve(null);
-                } catch (Exception ex) {
-                    promise.reject(ex);
-                }
-            }
-        });
+        mDocumentViewInstance.importAnnotationCommand(tag, xfdfCommand, initialLoad, promise);
     }
 
     @ReactMethod
     public void importAnnotations(final int tag, final String xfdf, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("importAnnotations", new Runnable() {
             @Override
             public void run() {
                 try {
-                    mDocumentViewInstance.importAnnotations(tag, xfdf);
-                    promise.resolve(null);
+                    mDocumentViewInstance.importAnnotations(tag, xfdf, promise);
                 } catch (Exception ex) {
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void exportAnnotations(final int tag, final ReadableMap options, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("exportAnnotations", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -91,27 +80,27 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
-    public void saveDocument(final int tag, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+    public void saveDocument(final int tag, final ReadableMap options, final Promise promise) {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("saveDocument", new Runnable() {
             @Override
             public void run() {
                 try {
-                    String path = mDocumentViewInstance.saveDocument(tag);
+                    String path = mDocumentViewInstance.saveDocument(tag, options);
                     promise.resolve(path);
                 } catch (Exception ex) {
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void flattenAnnotations(final int tag, final boolean formsOnly, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("flattenAnnotations", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -121,12 +110,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void getDocumentPath(final int tag, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("getDocumentPath", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -136,12 +125,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(e);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void setToolMode(final int tag, final String item) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("setToolMode", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -150,12 +139,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     e.printStackTrace();
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void commitTool(final int tag, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("commitTool", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -165,12 +154,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(e);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void getPageCount(final int tag, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("getPageCount", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -180,12 +169,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void setFlagForFields(final int tag, final ReadableArray fields, final Integer flag, final Boolean value, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("setFlagForFields", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -195,12 +184,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void setValuesForFields(final int tag, final ReadableMap map, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("setValuesForFields", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -210,12 +199,27 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
+    }
+
+    @ReactMethod
+    public void setValuesForFieldsFromFile(final int tag, final String filePath, final Promise promise) {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("setValuesForFieldsFromFile", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mDocumentViewInstance.setValuesForFieldsFromFile(tag, filePath);
+                    promise.resolve(null);
+                } catch (Exception ex) {
+                    promise.reject(ex);
+                }
+            }
+        }));
     }
 
     @ReactMethod
     public void deleteAnnotations(final int tag, final ReadableArray annots, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("deleteAnnotations", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -225,12 +229,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void handleBackButton(final int tag, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("handleBackButton", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -240,12 +244,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void closeAllTabs(final int tag, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("closeAllTabs", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -255,12 +259,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void setFlagsForAnnotations(final int tag, final ReadableArray annotationFlaglist, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("setFlagsForAnnotations", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -270,12 +274,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void selectAnnotation(final int tag, final String annotId, final int pageNumber, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("selectAnnotation", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -285,12 +289,42 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
+    }
+
+    @ReactMethod
+    public void getSkippedEventCounts(final int tag, final Promise promise) {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("getSkippedEventCounts", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    WritableMap counts = mDocumentViewInstance.getSkippedEventCounts(tag);
+                    promise.resolve(counts);
+                } catch (Exception ex) {
+                    promise.reject(ex);
+                }
+            }
+        }));
+    }
+
+    @ReactMethod
+    public void applyAnnotationOperations(final int tag, final ReadableArray operations, final Promise promise) {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("applyAnnotationOperations", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int count = mDocumentViewInstance.applyAnnotationOperations(tag, operations);
+                    promise.resolve(count);
+                } catch (Exception ex) {
+                    promise.reject(ex);
+                }
+            }
+        }));
     }
 
     @ReactMethod
     public void setPropertiesForAnnotation(final int tag, final String annotId, final int pageNumber, final ReadableMap propertyMap, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("setPropertiesForAnnotation", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -300,12 +334,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void getPageCropBox(final int tag, final int pageNumber, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentQueue(tag, PerformanceMetrics.track("getPageCropBox", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -315,12 +349,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void setCurrentPage(final int tag, final int pageNumber, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("setCurrentPage", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -330,12 +364,12 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void getZoom(final int tag, final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        mDocumentViewInstance.runOnDocumentUiQueue(tag, PerformanceMetrics.track("getZoom", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -345,7 +379,7 @@ public class DocumentViewModule extends ReactContextBaseJavaModule implements Ac
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @Override
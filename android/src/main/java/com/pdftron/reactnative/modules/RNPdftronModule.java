@@ -1,23 +1,63 @@
 package com.pdftron.reactnative.modules;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
-import com.pdftron.pdf.PDFDoc;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.pdftron.pdf.PDFNet;
 import com.pdftron.pdf.model.StandardStampOption;
-import com.pdftron.pdf.utils.AppUtils;
-import com.pdftron.pdf.utils.Utils;
-import com.pdftron.pdf.utils.ViewerUtils;
-import com.pdftron.sdf.SDFDoc;
+import com.pdftron.reactnative.utils.DocumentCache;
+import com.pdftron.reactnative.utils.DocumentLock;
+import com.pdftron.reactnative.utils.DocumentPreloader;
+import com.pdftron.reactnative.utils.EncryptDocumentJob;
+import com.pdftron.reactnative.utils.PDFNetInitializer;
+import com.pdftron.reactnative.utils.PerformanceMetrics;
+import com.pdftron.reactnative.utils.ReactUtils;
+import com.pdftron.reactnative.utils.RenderThumbnailsJob;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.pdftron.reactnative.utils.Constants.*;
 
 public class RNPdftronModule extends ReactContextBaseJavaModule {
 
     private static final String REACT_CLASS = "RNPdftron";
 
+    private static final int ENCRYPT_THREAD_COUNT = 2;
+
+    private static final int DEFAULT_PRELOAD_PAGE_COUNT = 1;
+
+    private static final int THUMBNAIL_THREAD_COUNT = 2;
+
+    private static final ExecutorService sEncryptExecutor = Executors.newFixedThreadPool(ENCRYPT_THREAD_COUNT);
+    private static final ExecutorService sThumbnailExecutor = Executors.newFixedThreadPool(THUMBNAIL_THREAD_COUNT);
+    private static final ScheduledExecutorService sMetricsEventExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private final ConcurrentHashMap<String, EncryptDocumentJob> mEncryptJobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RenderThumbnailsJob> mThumbnailJobs = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> mMetricsEventFuture;
+
     public RNPdftronModule(ReactApplicationContext reactContext) {
         super(reactContext);
     }
@@ -28,25 +68,35 @@ public class RNPdftronModule extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    public void initialize(@NonNull String key) {
-        try {
-            AppUtils.initializePDFNetApplication(getReactApplicationContext(), key);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+    public void initialize(@NonNull String key, final Promise promise) {
+        final long start = PerformanceMetrics.start();
+        PDFNetInitializer.initialize(getReactApplicationContext(), key, new PDFNetInitializer.Callback() {
+            @Override
+            public void onInitialized(@Nullable HashMap<String, Object> stats, @Nullable Exception error) {
+                PerformanceMetrics.recordExecution("initialize", start);
+                if (null == stats) {
+                    promise.reject(error);
+                    return;
+                }
+                promise.resolve(toWritableMap(stats));
+            }
+        });
     }
 
     @ReactMethod
     public void enableJavaScript(boolean enabled) {
+        long start = PerformanceMetrics.start();
         try {
             PDFNet.enableJavaScript(enabled);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
+        PerformanceMetrics.recordExecution("enableJavaScript", start);
     }
 
     @ReactMethod
     public void getSystemFontList(final Promise promise) {
+        long start = PerformanceMetrics.start();
         String fontList = null;
         Exception exception = null;
         try {
@@ -54,6 +104,7 @@ public class RNPdftronModule extends ReactContextBaseJavaModule {
         } catch (Exception e) {
             exception = e;
         }
+        PerformanceMetrics.recordExecution("getSystemFontList", start);
 
         String finalFontList = fontList;
         Exception finalException = exception;
@@ -72,7 +123,9 @@ public class RNPdftronModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void clearRubberStampCache(final Promise promise) {
+        long start = PerformanceMetrics.start();
         StandardStampOption.clearCache(getReactApplicationContext());
+        PerformanceMetrics.recordExecution("clearRubberStampCache", start);
         getReactApplicationContext().runOnUiQueueThread(new Runnable() {
             @Override
             public void run() {
@@ -82,30 +135,303 @@ public class RNPdftronModule extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    public void encryptDocument(final String filePath, final String password, final String currentPassword, final Promise promise) {
+    public void clearDocumentCache(final Promise promise) {
+        long start = PerformanceMetrics.start();
+        DocumentPreloader.getInstance(getReactApplicationContext()).clear();
+        DocumentCache.getInstance(getReactApplicationContext()).clear();
+        PerformanceMetrics.recordExecution("clearDocumentCache", start);
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void getDocumentCacheStats(final Promise promise) {
+        long start = PerformanceMetrics.start();
+        WritableMap stats = toWritableMap(DocumentCache.getInstance(getReactApplicationContext()).getStats());
+        PerformanceMetrics.recordExecution("getDocumentCacheStats", start);
+        promise.resolve(stats);
+    }
+
+    @ReactMethod
+    public void preloadDocument(final String path, @Nullable final ReadableMap options, final Promise promise) {
+        final long start = PerformanceMetrics.start();
         try {
-            String oldPassword = currentPassword;
-            if (Utils.isNullOrEmpty(currentPassword)) {
-                oldPassword = "";
-            }
-            PDFDoc pdfDoc = new PDFDoc(filePath);
-            if (pdfDoc.initStdSecurityHandler(oldPassword)) {
-                ViewerUtils.passwordDoc(pdfDoc, password);
-                pdfDoc.lock();
-                pdfDoc.save(filePath, SDFDoc.SaveMode.REMOVE_UNUSED, null);
-                pdfDoc.unlock();
-                promise.resolve(null);
-            } else {
-                promise.reject("password", "Current password is incorrect.");
+            boolean isBase64 = false;
+            String password = null;
+            JSONObject headers = null;
+            int pageCount = DEFAULT_PRELOAD_PAGE_COUNT;
+            if (options != null) {
+                if (options.hasKey(KEY_PRELOAD_IS_BASE64_STRING)) {
+                    isBase64 = options.getBoolean(KEY_PRELOAD_IS_BASE64_STRING);
+                }
+                if (options.hasKey(KEY_PRELOAD_PASSWORD)) {
+                    password = options.getString(KEY_PRELOAD_PASSWORD);
+                }
+                if (options.hasKey(KEY_PRELOAD_CUSTOM_HEADERS)) {
+                    headers = ReactUtils.convertMapToJson(options.getMap(KEY_PRELOAD_CUSTOM_HEADERS));
+                }
+                if (options.hasKey(KEY_PRELOAD_PAGE_COUNT)) {
+                    pageCount = options.getInt(KEY_PRELOAD_PAGE_COUNT);
+                }
             }
+            DocumentPreloader.getInstance(getReactApplicationContext()).preload(path, isBase64, password, headers, pageCount,
+                    new DocumentPreloader.Callback() {
+                        @Override
+                        public void onPreloaded(@Nullable Exception error) {
+                            PerformanceMetrics.recordExecution("preloadDocument", start);
+                            if (error != null) {
+                                promise.reject(error);
+                            } else {
+                                promise.resolve(null);
+                            }
+                        }
+                    });
         } catch (Exception ex) {
             promise.reject(ex);
         }
     }
 
+    @ReactMethod
+    public void encryptDocument(final String filePath, final String password, final String currentPassword, final Promise promise) {
+        submitEncryptJob(filePath, password, currentPassword, promise);
+    }
+
+    @ReactMethod
+    public void startEncryptDocument(final String filePath, final String password, final String currentPassword, final Promise promise) {
+        String jobId = submitEncryptJob(filePath, password, currentPassword, null);
+        promise.resolve(jobId);
+    }
+
+    @ReactMethod
+    public void cancelEncryptDocument(final String jobId, final Promise promise) {
+        EncryptDocumentJob job = mEncryptJobs.get(jobId);
+        if (job != null) {
+            job.cancel();
+        }
+        promise.resolve(job != null);
+    }
+
+    /**
+     * Renders thumbnails of the given pages, resolves with their file paths. A job id given in
+     * the options allows to cancel the job, a new job with the same id cancels the previous one.
+     */
+    @ReactMethod
+    public void renderThumbnails(final String path, final ReadableArray pages, final int maxSize,
+            @Nullable final ReadableMap options, final Promise promise) {
+        String jobId = options != null && options.hasKey(KEY_JOB_ID) ? options.getString(KEY_JOB_ID) : null;
+        if (null == jobId) {
+            jobId = UUID.randomUUID().toString();
+        }
+        int[] pageNumbers = new int[pages.size()];
+        for (int i = 0; i < pageNumbers.length; i++) {
+            pageNumbers[i] = pages.getInt(i);
+        }
+        RenderThumbnailsJob job = new RenderThumbnailsJob(jobId, getReactApplicationContext().getCacheDir(), path,
+                pageNumbers, maxSize, new RenderThumbnailsJob.Listener() {
+            @Override
+            public void onComplete(@NonNull RenderThumbnailsJob job, @NonNull String[] paths) {
+                mThumbnailJobs.remove(job.getJobId(), job);
+                WritableArray result = Arguments.createArray();
+                for (String thumbnailPath : paths) {
+                    if (thumbnailPath != null) {
+                        result.pushString(thumbnailPath);
+                    } else {
+                        result.pushNull();
+                    }
+                }
+                promise.resolve(result);
+            }
+
+            @Override
+            public void onError(@NonNull RenderThumbnailsJob job, @NonNull String code, @NonNull String message) {
+                mThumbnailJobs.remove(job.getJobId(), job);
+                promise.reject(code, message);
+            }
+
+            @Override
+            public void onCancelled(@NonNull RenderThumbnailsJob job) {
+                mThumbnailJobs.remove(job.getJobId(), job);
+                promise.reject(STATUS_CANCELLED, "Thumbnail rendering cancelled.");
+            }
+        });
+        RenderThumbnailsJob previous = mThumbnailJobs.put(jobId, job);
+        if (previous != null) {
+            previous.cancel();
+        }
+        sThumbnailExecutor.execute(PerformanceMetrics.track("renderThumbnails", job));
+    }
+
+    @ReactMethod
+    public void cancelRenderThumbnails(final String jobId, final Promise promise) {
+        RenderThumbnailsJob job = mThumbnailJobs.remove(jobId);
+        if (job != null) {
+            job.cancel();
+        }
+        promise.resolve(job != null);
+    }
+
+    /**
+     * Turns recording of the method latencies on or off. With an interval, the metrics are
+     * also sent as an event at that interval while recording.
+     */
+    @ReactMethod
+    public void setPerformanceMetricsEnabled(boolean enabled, int eventIntervalMs, final Promise promise) {
+        PerformanceMetrics.setEnabled(enabled);
+        synchronized (this) {
+            if (mMetricsEventFuture != null) {
+                mMetricsEventFuture.cancel(false);
+                mMetricsEventFuture = null;
+            }
+            if (enabled && eventIntervalMs > 0) {
+                mMetricsEventFuture = sMetricsEventExecutor.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        emitEvent(ON_PERFORMANCE_METRICS, toWritableMap(PerformanceMetrics.snapshot()));
+                    }
+                }, eventIntervalMs, eventIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void getPerformanceMetrics(boolean reset, final Promise promise) {
+        WritableMap metrics = toWritableMap(PerformanceMetrics.snapshot());
+        if (reset) {
+            PerformanceMetrics.reset();
+        }
+        promise.resolve(metrics);
+    }
+
+    /**
+     * Turns recording of document lock waits and holds per call site on or off.
+     */
+    @ReactMethod
+    public void setLockMonitorEnabled(boolean enabled, int uiHoldThresholdMs, final Promise promise) {
+        DocumentLock.setMonitorEnabled(enabled, uiHoldThresholdMs);
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void getLockMetrics(boolean reset, final Promise promise) {
+        WritableMap metrics = toWritableMap(DocumentLock.snapshot());
+        if (reset) {
+            DocumentLock.reset();
+        }
+        promise.resolve(metrics);
+    }
+
+    // required by NativeEventEmitter
+    @ReactMethod
+    public void addListener(String eventName) {
+
+    }
+
+    @ReactMethod
+    public void removeListeners(Integer count) {
+
+    }
+
+    /**
+     * Queues an encryption job. With a promise, the promise settles when the job finishes;
+     * otherwise progress and completion are sent as events.
+     */
+    private String submitEncryptJob(String filePath, String password, String currentPassword, @Nullable final Promise promise) {
+        String jobId = UUID.randomUUID().toString();
+        EncryptDocumentJob job = new EncryptDocumentJob(jobId, filePath, password, currentPassword, new EncryptDocumentJob.Listener() {
+            @Override
+            public void onProgress(@NonNull EncryptDocumentJob job, double progress) {
+                if (promise == null) {
+                    WritableMap params = Arguments.createMap();
+                    params.putString(KEY_JOB_ID, job.getJobId());
+                    params.putDouble(KEY_PROGRESS, progress);
+                    emitEvent(ON_ENCRYPT_DOCUMENT_PROGRESS, params);
+                }
+            }
+
+            @Override
+            public void onComplete(@NonNull EncryptDocumentJob job) {
+                mEncryptJobs.remove(job.getJobId());
+                if (promise != null) {
+                    promise.resolve(null);
+                } else {
+                    emitEncryptFinished(job, STATUS_COMPLETED, null, null);
+                }
+            }
+
+            @Override
+            public void onError(@NonNull EncryptDocumentJob job, @NonNull String code, @NonNull String message) {
+                mEncryptJobs.remove(job.getJobId());
+                if (promise != null) {
+                    promise.reject(code, message);
+                } else {
+                    emitEncryptFinished(job, STATUS_FAILED, code, message);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull EncryptDocumentJob job) {
+                mEncryptJobs.remove(job.getJobId());
+                if (promise != null) {
+                    promise.reject(STATUS_CANCELLED, "Encryption cancelled.");
+                } else {
+                    emitEncryptFinished(job, STATUS_CANCELLED, null, null);
+                }
+            }
+        });
+        mEncryptJobs.put(jobId, job);
+        sEncryptExecutor.execute(PerformanceMetrics.track("encryptDocument", job));
+        return jobId;
+    }
+
+    private void emitEncryptFinished(EncryptDocumentJob job, String status, @Nullable String code, @Nullable String message) {
+        WritableMap params = Arguments.createMap();
+        params.putString(KEY_JOB_ID, job.getJobId());
+        params.putString(KEY_STATUS, status);
+        if (code != null) {
+            params.putString(KEY_ERROR_CODE, code);
+            params.putString(KEY_ERROR, message);
+        }
+        emitEvent(ON_ENCRYPT_DOCUMENT_FINISHED, params);
+    }
+
+    private static WritableMap toWritableMap(Map<String, ?> map) {
+        WritableMap result = Arguments.createMap();
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                //noinspection unchecked
+                result.putMap(entry.getKey(), toWritableMap((Map<String, ?>) value));
+            } else if (value instanceof List) {
+                WritableArray array = Arguments.createArray();
+                for (Object item : (List<?>) value) {
+                    //noinspection unchecked
+                    array.pushMap(toWritableMap((Map<String, ?>) item));
+                }
+                result.putArray(entry.getKey(), array);
+            } else if (value instanceof Boolean) {
+                result.putBoolean(entry.getKey(), (Boolean) value);
+            } else if (value instanceof Number) {
+                result.putDouble(entry.getKey(), ((Number) value).doubleValue());
+            } else if (value != null) {
+                result.putString(entry.getKey(), value.toString());
+            } else {
+                result.putNull(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private void emitEvent(String eventName, WritableMap params) {
+        ReactApplicationContext reactContext = getReactApplicationContext();
+        if (reactContext.hasActiveCatalystInstance()) {
+            reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit(eventName, params);
+        }
+    }
+
     @ReactMethod
     public void getVersion(final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        getReactApplicationContext().runOnUiQueueThread(PerformanceMetrics.track("getVersion", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -114,12 +440,12 @@ public class RNPdftronModule extends ReactContextBaseJavaModule {
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 
     @ReactMethod
     public void getPlatformVersion(final Promise promise) {
-        getReactApplicationContext().runOnUiQueueThread(new Runnable() {
+        getReactApplicationContext().runOnUiQueueThread(PerformanceMetrics.track("getPlatformVersion", new Runnable() {
             @Override
             public void run() {
                 try {
@@ -128,6 +454,6 @@ public class RNPdftronModule extends ReactContextBaseJavaModule {
                     promise.reject(ex);
                 }
             }
-        });
+        }));
     }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.pdf.Annot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_ACTION_ADD;
+import static com.pdftron.reactnative.utils.Constants.KEY_ACTION_DELETE;
+import static com.pdftron.reactnative.utils.Constants.KEY_ACTION_MODIFY;
+
+/**
+ * Collects annotation changes by annotation id, so that repeated changes to the same
+ * annotation within one batching window collapse into a single net change.
+ * A change can carry the XFDF of the annotation taken when it was recorded, for deletions,
+ * whose annotation is gone by the time the batch is sent.
+ * Not thread safe, callers synchronize on the batch.
+ */
+public class AnnotationChangeBatch {
+
+    private static class Change {
+        String action;
+        Annot annot;
+        int pageNum;
+        String xfdf;
+
+        Change(String action, Annot annot, int pageNum, String xfdf) {
+            this.action = action;
+            this.annot = annot;
+            this.pageNum = pageNum;
+            this.xfdf = xfdf;
+        }
+    }
+
+    private final LinkedHashMap<String, Change> mChanges = new LinkedHashMap<>();
+
+    public void put(@NonNull String action, @NonNull String id, @NonNull Annot annot, int pageNum) {
+        put(action, id, annot, pageNum, null);
+    }
+
+    public void put(@NonNull String action, @NonNull String id, @NonNull Annot annot, int pageNum, @Nullable String xfdf) {
+        Change change = mChanges.get(id);
+        if (null == change) {
+            mChanges.put(id, new Change(action, annot, pageNum, xfdf));
+            return;
+        }
+        String merged = merge(change.action, action);
+        if (null == merged) {
+            // added and removed within the same window
+            mChanges.remove(id);
+        } else {
+            change.action = merged;
+            change.annot = annot;
+            change.pageNum = pageNum;
+            change.xfdf = xfdf;
+        }
+    }
+
+    public boolean isEmpty() {
+        return mChanges.isEmpty();
+    }
+
+    public int size() {
+        return mChanges.size();
+    }
+
+    /**
+     * @return the net changes for the given action, in the order they first occurred
+     */
+    @NonNull
+    public LinkedHashMap<Annot, Integer> getChanges(@NonNull String action) {
+        LinkedHashMap<Annot, Integer> result = new LinkedHashMap<>();
+        for (Change change : mChanges.values()) {
+            if (action.equals(change.action)) {
+                result.put(change.annot, change.pageNum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the ids and page numbers of the net changes for the given action, in the order
+     * they first occurred
+     */
+    @NonNull
+    public LinkedHashMap<String, Integer> getIds(@NonNull String action) {
+        LinkedHashMap<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Change> entry : mChanges.entrySet()) {
+            if (action.equals(entry.getValue().action)) {
+                result.put(entry.getKey(), entry.getValue().pageNum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the XFDF recorded with the net changes for the given action, in the order they
+     * first occurred, skipping changes recorded without one
+     */
+    @NonNull
+    public ArrayList<String> getXfdf(@NonNull String action) {
+        ArrayList<String> result = new ArrayList<>();
+        for (Change change : mChanges.values()) {
+            if (action.equals(change.action) && change.xfdf != null) {
+                result.add(change.xfdf);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        mChanges.clear();
+    }
+
+    private static String merge(String previous, String next) {
+        if (KEY_ACTION_ADD.equals(previous)) {
+            if (KEY_ACTION_DELETE.equals(next)) {
+                return null;
+            }
+            // an added annotation that is modified is still a new annotation
+            return KEY_ACTION_ADD;
+        }
+        if (KEY_ACTION_DELETE.equals(previous)) {
+            // removed then added back, e.g. by undo
+            return KEY_ACTION_ADD.equals(next) ? KEY_ACTION_MODIFY : next;
+        }
+        return next;
+    }
+}
@@ -0,0 +1,268 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.pdftron.pdf.Annot;
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.PDFViewCtrl;
+import com.pdftron.pdf.Page;
+import com.pdftron.sdf.Obj;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps annotation ids to their page and annotation for one open document, so that ids can be
+ * resolved without scanning the annotations of a page.
+ * The index is built in the background one page at a time, holding the document lock for one
+ * page only, and kept current by the owner through {@link #put}, {@link #remove} and friends.
+ * Annotations without an id are given one while the index is built. This is done without
+ * raising modification events, as every annotation of a document without ids would be
+ * reported as changed on open; the new ids are still saved with the document. No ids are
+ * assigned while id assignment is turned off, e.g. for a read-only view.
+ */
+public class AnnotationIndex {
+
+    private static final ExecutorService sIndexExecutor = Executors.newSingleThreadExecutor();
+
+    private static class Entry {
+        final int pageNum;
+        final Annot annot;
+
+        Entry(int pageNum, Annot annot) {
+            this.pageNum = pageNum;
+            this.annot = annot;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> mEntries = new ConcurrentHashMap<>();
+    private final AtomicInteger mGeneration = new AtomicInteger();
+    // guards a build's check of its generation and its put against a clear
+    private final Object mGenerationLock = new Object();
+    private volatile boolean mAssignIds = true;
+
+    /**
+     * Turns assigning ids to annotations without one on or off, for the builds that follow.
+     */
+    public void setAssignIds(boolean assignIds) {
+        mAssignIds = assignIds;
+    }
+
+    /**
+     * Discards the current content and indexes the document again in the background.
+     */
+    public void rebuild(@NonNull final PDFViewCtrl pdfViewCtrl) {
+        final int generation;
+        synchronized (mGenerationLock) {
+            generation = mGeneration.incrementAndGet();
+            mEntries.clear();
+        }
+        sIndexExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    build(pdfViewCtrl, generation);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Empties the index and stops a build in progress.
+     */
+    public void clear() {
+        synchronized (mGenerationLock) {
+            mGeneration.incrementAndGet();
+            mEntries.clear();
+        }
+    }
+
+    /**
+     * @return the annotation with the given id on the given page, or null if it is not indexed
+     */
+    @Nullable
+    public Annot get(@Nullable String id, int pageNum) {
+        if (null == id) {
+            return null;
+        }
+        Entry entry = mEntries.get(id);
+        if (entry != null && entry.pageNum == pageNum) {
+            return entry.annot;
+        }
+        return null;
+    }
+
+    /**
+     * @return the page of the annotation with the given id, or -1 if it is not indexed
+     */
+    public int getPageNum(@Nullable String id) {
+        if (null == id) {
+            return -1;
+        }
+        Entry entry = mEntries.get(id);
+        return entry != null ? entry.pageNum : -1;
+    }
+
+    /**
+     * Must be called with the document locked.
+     */
+    public void put(@NonNull Annot annot, int pageNum) {
+        String id = getUniqueId(annot);
+        if (id != null) {
+            mEntries.put(id, new Entry(pageNum, annot));
+        }
+    }
+
+    public void remove(@Nullable String id) {
+        if (id != null) {
+            mEntries.remove(id);
+        }
+    }
+
+    /**
+     * Must be called with the document locked.
+     */
+    public void removeAnnot(@NonNull Annot annot) {
+        remove(getUniqueId(annot));
+    }
+
+    public void removePage(int pageNum) {
+        Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().pageNum == pageNum) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Indexes all annotations of a page. Must be called with the document locked.
+     */
+    public void putPage(@NonNull Page page, int pageNum) {
+        try {
+            int count = page.getNumAnnots();
+            for (int i = 0; i < count; i++) {
+                Annot annot = page.getAnnot(i);
+                if (annot != null && annot.isValid()) {
+                    put(annot, pageNum);
+                }
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    @Nullable
+    public static String getUniqueId(@NonNull Annot annot) {
+        try {
+            Obj uid = annot.getUniqueID();
+            return uid != null ? uid.getAsPDFText() : null;
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    @VisibleForTesting
+    void build(@NonNull PDFViewCtrl pdfViewCtrl, int generation) throws Exception {
+        PDFDoc pdfDoc = pdfViewCtrl.getDoc();
+        if (null == pdfDoc) {
+            return;
+        }
+        int pageCount;
+        boolean shouldUnlockRead = false;
+        try {
+            DocumentLock.docLockRead(pdfViewCtrl, "AnnotationIndex.getPageCount");
+            shouldUnlockRead = true;
+            pageCount = pdfDoc.getPageCount();
+        } finally {
+            if (shouldUnlockRead) {
+                DocumentLock.docUnlockRead(pdfViewCtrl);
+            }
+        }
+
+        for (int pageNum = 1; pageNum <= pageCount; pageNum++) {
+            if (generation != mGeneration.get()) {
+                return;
+            }
+            ArrayList<Annot> missingIds = new ArrayList<>();
+            shouldUnlockRead = false;
+            try {
+                DocumentLock.docLockRead(pdfViewCtrl, "AnnotationIndex.readPage");
+                shouldUnlockRead = true;
+                if (pageNum > pdfDoc.getPageCount()) {
+                    return;
+                }
+                Page page = pdfDoc.getPage(pageNum);
+                int count = page.getNumAnnots();
+                for (int i = 0; i < count; i++) {
+                    Annot annot = page.getAnnot(i);
+                    if (null == annot || !annot.isValid()) {
+                        continue;
+                    }
+                    String id = getUniqueId(annot);
+                    if (id != null) {
+                        if (!putIfCurrent(generation, id, new Entry(pageNum, annot))) {
+                            return;
+                        }
+                    } else if (mAssignIds) {
+                        missingIds.add(annot);
+                    }
+                }
+            } finally {
+                if (shouldUnlockRead) {
+                    DocumentLock.docUnlockRead(pdfViewCtrl);
+                }
+            }
+
+            if (!missingIds.isEmpty()) {
+                boolean shouldUnlock = false;
+                try {
+                    DocumentLock.docLock(pdfViewCtrl, "AnnotationIndex.assignIds");
+                    shouldUnlock = true;
+                    // not raised through the ToolManager, see the class comment
+                    for (Annot annot : missingIds) {
+                        // the view may have turned read-only, or the index been cleared, meanwhile
+                        if (!mAssignIds || generation != mGeneration.get()) {
+                            return;
+                        }
+                        if (annot.isValid() && null == annot.getUniqueID()) {
+                            String id = UUID.randomUUID().toString();
+                            annot.setUniqueID(id);
+                            if (!putIfCurrent(generation, id, new Entry(pageNum, annot))) {
+                                return;
+                            }
+                        }
+                    }
+                } finally {
+                    if (shouldUnlock) {
+                        DocumentLock.docUnlock(pdfViewCtrl);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the index was cleared or rebuilt since the given build started
+     */
+    private boolean putIfCurrent(int generation, @NonNull String id, @NonNull Entry entry) {
+        synchronized (mGenerationLock) {
+            if (generation != mGeneration.get()) {
+                return false;
+            }
+            mEntries.put(id, entry);
+            return true;
+        }
+    }
+}
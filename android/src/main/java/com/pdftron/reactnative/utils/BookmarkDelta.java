@@ -0,0 +1,107 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_BOOKMARK_ADDED;
+import static com.pdftron.reactnative.utils.Constants.KEY_BOOKMARK_REMOVED;
+import static com.pdftron.reactnative.utils.Constants.KEY_BOOKMARK_RENAMED;
+
+/**
+ * Computes and applies the difference between two user bookmark collections.
+ * A collection maps the zero based page index to the bookmark title, as exported by
+ * {@link com.pdftron.pdf.utils.BookmarkManager#exportPdfBookmarks}. A delta has the
+ * same shape under the keys "added", "removed" and "renamed", where removed entries
+ * carry the title they had.
+ */
+public class BookmarkDelta {
+
+    /**
+     * @return the bookmark collection of the given json, an empty collection for null
+     */
+    @NonNull
+    public static JSONObject parse(@Nullable String bookmarkJson) throws JSONException {
+        if (null == bookmarkJson || bookmarkJson.isEmpty()) {
+            return new JSONObject();
+        }
+        return new JSONObject(bookmarkJson);
+    }
+
+    public static boolean isDelta(@NonNull JSONObject json) {
+        return json.has(KEY_BOOKMARK_ADDED) || json.has(KEY_BOOKMARK_REMOVED) || json.has(KEY_BOOKMARK_RENAMED);
+    }
+
+    public static boolean isEmpty(@NonNull JSONObject delta) {
+        return length(delta.optJSONObject(KEY_BOOKMARK_ADDED)) == 0
+                && length(delta.optJSONObject(KEY_BOOKMARK_REMOVED)) == 0
+                && length(delta.optJSONObject(KEY_BOOKMARK_RENAMED)) == 0;
+    }
+
+    @NonNull
+    public static JSONObject diff(@NonNull JSONObject previous, @NonNull JSONObject current) throws JSONException {
+        JSONObject added = new JSONObject();
+        JSONObject removed = new JSONObject();
+        JSONObject renamed = new JSONObject();
+
+        Iterator<String> keys = current.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            String title = current.getString(key);
+            if (!previous.has(key)) {
+                added.put(key, title);
+            } else if (!title.equals(previous.getString(key))) {
+                renamed.put(key, title);
+            }
+        }
+        keys = previous.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!current.has(key)) {
+                removed.put(key, previous.getString(key));
+            }
+        }
+
+        JSONObject delta = new JSONObject();
+        delta.put(KEY_BOOKMARK_ADDED, added);
+        delta.put(KEY_BOOKMARK_REMOVED, removed);
+        delta.put(KEY_BOOKMARK_RENAMED, renamed);
+        return delta;
+    }
+
+    /**
+     * Applies the delta to the given collection in place.
+     */
+    @NonNull
+    public static JSONObject apply(@NonNull JSONObject bookmarks, @NonNull JSONObject delta) throws JSONException {
+        JSONObject removed = delta.optJSONObject(KEY_BOOKMARK_REMOVED);
+        if (removed != null) {
+            Iterator<String> keys = removed.keys();
+            while (keys.hasNext()) {
+                bookmarks.remove(keys.next());
+            }
+        }
+        put(bookmarks, delta.optJSONObject(KEY_BOOKMARK_ADDED));
+        put(bookmarks, delta.optJSONObject(KEY_BOOKMARK_RENAMED));
+        return bookmarks;
+    }
+
+    private static int length(@Nullable JSONObject entries) {
+        return null == entries ? 0 : entries.length();
+    }
+
+    private static void put(@NonNull JSONObject bookmarks, @Nullable JSONObject entries) throws JSONException {
+        if (null == entries) {
+            return;
+        }
+        Iterator<String> keys = entries.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            bookmarks.put(key, entries.getString(key));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.BitSet;
+
+/**
+ * Tracks which fixed size chunks of a remote document have been downloaded, together with the
+ * validators of the version they belong to. Kept in the meta file of a document cache entry,
+ * chunks without a validator are not kept as they cannot be resumed safely.
+ */
+public class ChunkMap {
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    static final String META_ETAG = "etag";
+    static final String META_LAST_MODIFIED = "lastModified";
+    static final String META_LENGTH = "length";
+    static final String META_CHUNKS = "chunks";
+
+    private String mEtag;
+    private String mLastModified;
+    private long mLength = -1;
+    private final BitSet mChunks = new BitSet();
+
+    @NonNull
+    static ChunkMap fromMeta(@Nullable JSONObject meta) {
+        ChunkMap chunkMap = new ChunkMap();
+        if (meta != null && (meta.has(META_ETAG) || meta.has(META_LAST_MODIFIED))) {
+            chunkMap.mEtag = meta.optString(META_ETAG, null);
+            chunkMap.mLastModified = meta.optString(META_LAST_MODIFIED, null);
+            chunkMap.mLength = meta.optLong(META_LENGTH, -1);
+            String chunks = meta.optString(META_CHUNKS, "");
+            for (int i = 0; i < chunks.length(); i++) {
+                if (chunks.charAt(i) == '1') {
+                    chunkMap.mChunks.set(i);
+                }
+            }
+        }
+        return chunkMap;
+    }
+
+    /**
+     * @return the offset of the first chunk still missing, -1 if the document is complete
+     */
+    long firstMissing() {
+        if (mLength < 0) {
+            return 0;
+        }
+        int index = mChunks.nextClearBit(0);
+        return index < getChunkCount() ? (long) index * CHUNK_SIZE : -1;
+    }
+
+    /**
+     * @return the end of the missing range that starts at the given offset, -1 if unknown
+     */
+    long endOfMissingRun(long start) {
+        if (mLength < 0) {
+            return -1;
+        }
+        int next = mChunks.nextSetBit((int) (start / CHUNK_SIZE));
+        return next < 0 || next >= getChunkCount() ? mLength : (long) next * CHUNK_SIZE;
+    }
+
+    /**
+     * @return the value for If-Range, weak entity tags cannot be used for ranges
+     */
+    @Nullable
+    String getValidator() {
+        if (mEtag != null && !mEtag.startsWith("W/")) {
+            return mEtag;
+        }
+        return mLastModified;
+    }
+
+    void setValidators(@Nullable String etag, @Nullable String lastModified) {
+        mEtag = etag;
+        mLastModified = lastModified;
+    }
+
+    long getLength() {
+        return mLength;
+    }
+
+    void setLength(long length) {
+        if (length >= 0 && length != mLength) {
+            if (mLength >= 0) {
+                // a different version, what was kept no longer fits
+                mChunks.clear();
+            }
+            mLength = length;
+        }
+    }
+
+    /**
+     * Starts over, used when the whole document is sent instead of a range.
+     */
+    void reset(long length) {
+        mChunks.clear();
+        mLength = length;
+        mEtag = null;
+        mLastModified = null;
+    }
+
+    /**
+     * Marks the chunks that lie within the given range of bytes as downloaded.
+     */
+    void markWritten(long from, long to) {
+        int first = (int) ((from + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        int last = mLength >= 0 && to >= mLength ? getChunkCount() : (int) (to / CHUNK_SIZE);
+        if (last > first) {
+            mChunks.set(first, last);
+        }
+    }
+
+    @NonNull
+    JSONObject toMeta(@NonNull JSONObject meta) {
+        try {
+            meta.remove(META_ETAG);
+            meta.remove(META_LAST_MODIFIED);
+            if (mEtag != null) {
+                meta.put(META_ETAG, mEtag);
+            }
+            if (mLastModified != null) {
+                meta.put(META_LAST_MODIFIED, mLastModified);
+            }
+            meta.put(META_LENGTH, mLength);
+            StringBuilder chunks = new StringBuilder();
+            int count = mLength >= 0 ? getChunkCount() : mChunks.length();
+            for (int i = 0; i < count; i++) {
+                chunks.append(mChunks.get(i) ? '1' : '0');
+            }
+            meta.put(META_CHUNKS, chunks.toString());
+        } catch (JSONException ex) {
+            ex.printStackTrace();
+        }
+        return meta;
+    }
+
+    private int getChunkCount() {
+        return (int) ((mLength + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+}
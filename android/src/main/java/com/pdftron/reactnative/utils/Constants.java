@@ -16,6 +16,13 @@ public final class Constants {
     public static final String ON_FORM_FIELD_VALUE_CHANGED = "onFormFieldValueChanged";
     public static final String ON_BOOKMARK_CHANGED = "onBookmarkChanged";
     public static final String ON_TOOL_CHANGED = "onToolChanged";
+    public static final String ON_EXPORT_ANNOTATIONS_CHUNK = "onExportAnnotationsChunk";
+    public static final String ON_SAVE_DOCUMENT_CHUNK = "onSaveDocumentChunk";
+
+    // MODULE EVENTS
+    public static final String ON_ENCRYPT_DOCUMENT_PROGRESS = "onEncryptDocumentProgress";
+    public static final String ON_ENCRYPT_DOCUMENT_FINISHED = "onEncryptDocumentFinished";
+    public static final String ON_PERFORMANCE_METRICS = "onPerformanceMetrics";
 
     // BUTTONS
     public static final String BUTTON_TOOLS = "toolsButton";
@@ -233,6 +240,7 @@ public final class Constants {
     public static final String KEY_ACTION_ADD = "add";
     public static final String KEY_ACTION_MODIFY = "modify";
     public static final String KEY_ACTION_DELETE = "delete";
+    public static final String KEY_ACTION_MIXED = "mixed";
     public static final String KEY_ANNOTATIONS = "annotations";
     public static final String KEY_XFDF_COMMAND = "xfdfCommand";
     public static final String KEY_FIELDS = "fields";
@@ -265,9 +273,77 @@ public final class Constants {
     public static final String KEY_ANNOTATION_FLAG_TOGGLE_NO_VIEW = "toggleNoView";
 
     public static final String KEY_BOOKMARK_JSON = "bookmarkJson";
+    public static final String KEY_BOOKMARK_DELTA = "bookmarkDelta";
+    public static final String KEY_BOOKMARK_ADDED = "added";
+    public static final String KEY_BOOKMARK_REMOVED = "removed";
+    public static final String KEY_BOOKMARK_RENAMED = "renamed";
+
+    public static final String BOOKMARK_CHANGE_MODE_FULL = "full";
+    public static final String BOOKMARK_CHANGE_MODE_DIFF = "diff";
 
     public static final String KEY_PREVIOUS_TOOL = "previousTool";
     public static final String KEY_TOOL = "tool";
+
+    public static final String KEY_OPERATION = "operation";
+    public static final String KEY_OPERATION_DELETE = "delete";
+    public static final String KEY_OPERATION_FLAG = "flag";
+    public static final String KEY_OPERATION_PROPERTIES = "properties";
+
+    public static final String KEY_OUTPUT_PATH = "outputPath";
+    public static final String KEY_STREAM_CHUNKS = "streamChunks";
+    public static final String KEY_CHUNK_SIZE = "chunkSize";
+    public static final String KEY_EXPORT_ID = "exportId";
+    public static final String KEY_SAVE_ID = "saveId";
+    public static final String KEY_PAGE_RANGE = "pageRange";
+    public static final String KEY_PAGE_RANGE_FROM = "from";
+    public static final String KEY_PAGE_RANGE_TO = "to";
+    public static final String KEY_ANNOTATION_TYPES = "annotationTypes";
+    public static final String KEY_CHUNK = "chunk";
+    public static final String KEY_CHUNK_INDEX = "index";
+    public static final String KEY_IS_LAST_CHUNK = "isLast";
+
+    public static final String KEY_CACHE_HITS = "hits";
+    public static final String KEY_CACHE_MISSES = "misses";
+    public static final String KEY_CACHE_STALE_HITS = "staleHits";
+    public static final String KEY_CACHE_EVICTIONS = "evictions";
+    public static final String KEY_CACHE_SIZE = "size";
+
+    public static final String KEY_METRIC_QUEUE_WAIT = "queueWait";
+    public static final String KEY_METRIC_LOCK_WAIT = "lockWait";
+    public static final String KEY_METRIC_EXECUTION = "execution";
+    public static final String KEY_METRIC_COUNT = "count";
+    public static final String KEY_METRIC_MEAN = "meanMs";
+    public static final String KEY_METRIC_P50 = "p50Ms";
+    public static final String KEY_METRIC_P95 = "p95Ms";
+    public static final String KEY_METRIC_P99 = "p99Ms";
+    public static final String KEY_METRIC_MAX = "maxMs";
+
+    public static final String KEY_LOCK_SITES = "sites";
+    public static final String KEY_LOCK_WAIT = "wait";
+    public static final String KEY_LOCK_HOLD = "hold";
+    public static final String KEY_LOCK_LONG_UI_HOLDS = "longUiHolds";
+    public static final String KEY_LOCK_SITE = "site";
+    public static final String KEY_LOCK_HOLD_MS = "holdMs";
+    public static final String KEY_LOCK_TIMESTAMP = "timestamp";
+
+    public static final String KEY_INIT_DURATION = "durationMs";
+    public static final String KEY_INIT_LIBRARY_LOAD_DURATION = "libraryLoadMs";
+    public static final String KEY_INIT_RESOURCES_DURATION = "resourcesMs";
+    public static final String KEY_INIT_ALREADY_INITIALIZED = "alreadyInitialized";
+
+    public static final String KEY_PRELOAD_IS_BASE64_STRING = "isBase64String";
+    public static final String KEY_PRELOAD_PASSWORD = "password";
+    public static final String KEY_PRELOAD_CUSTOM_HEADERS = "customHeaders";
+    public static final String KEY_PRELOAD_PAGE_COUNT = "pageCount";
+
+    public static final String KEY_JOB_ID = "jobId";
+    public static final String KEY_PROGRESS = "progress";
+    public static final String KEY_STATUS = "status";
+    public static final String KEY_ERROR_CODE = "errorCode";
+
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_CANCELLED = "cancelled";
+    public static final String STATUS_FAILED = "failed";
     // EVENTS END
 
     // Config keys
@@ -0,0 +1,149 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.common.PDFNetException;
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.PDFViewCtrl;
+
+import java.util.ArrayList;
+
+/**
+ * Document operations waiting for the download of the document to finish. Queued operations
+ * are applied in order, all under a single write lock. The number of waiting operations is
+ * bounded, the caller is told when the queue is full.
+ */
+public class DeferredOperationQueue {
+
+    private static final String TAG = DeferredOperationQueue.class.getSimpleName();
+
+    public interface Operation {
+        /**
+         * Called with the document write-locked.
+         *
+         * @param pdfDoc the document open when the operation is applied
+         * @return whether annotations were replaced in bulk, so that lookups have to be rebuilt
+         */
+        boolean apply(@NonNull PDFDoc pdfDoc) throws Exception;
+    }
+
+    public interface Callback {
+        void onApplied(@Nullable Exception error);
+    }
+
+    public interface Listener {
+        /**
+         * Called after a batch has been applied and the document unlocked.
+         */
+        void onBatchApplied(boolean annotationsReplaced);
+    }
+
+    private static class Entry {
+        final Operation operation;
+        final Callback callback;
+
+        Entry(Operation operation, Callback callback) {
+            this.operation = operation;
+            this.callback = callback;
+        }
+    }
+
+    private final int mCapacity;
+    private final Listener mListener;
+    private final ArrayList<Entry> mEntries = new ArrayList<>();
+
+    public DeferredOperationQueue(int capacity, @NonNull Listener listener) {
+        mCapacity = capacity;
+        mListener = listener;
+    }
+
+    /**
+     * @return false if the queue is full
+     */
+    public synchronized boolean offer(@NonNull Operation operation, @NonNull Callback callback) {
+        if (mEntries.size() >= mCapacity) {
+            return false;
+        }
+        mEntries.add(new Entry(operation, callback));
+        return true;
+    }
+
+    /**
+     * Adds the operation regardless of the capacity, used for operations that are applied right away.
+     */
+    public synchronized void add(@NonNull Operation operation, @NonNull Callback callback) {
+        mEntries.add(new Entry(operation, callback));
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Applies all queued operations under a single write lock, then calls their callbacks.
+     */
+    public void applyAll(@NonNull PDFViewCtrl pdfViewCtrl) {
+        ArrayList<Entry> entries = null;
+        Exception[] errors = null;
+        Exception lockError = null;
+        boolean annotationsReplaced = false;
+        boolean shouldUnlock = false;
+        try {
+            DocumentLock.docLock(pdfViewCtrl, "DeferredOperationQueue.applyAll");
+            shouldUnlock = true;
+
+            // resolved under the lock, the document may have been switched since the operations were queued
+            PDFDoc pdfDoc = pdfViewCtrl.getDoc();
+            if (null == pdfDoc) {
+                throw new PDFNetException("", 0L, TAG, "applyAll", "No document is open.");
+            }
+
+            // drained under the lock, so that nothing queued under a read lock is missed
+            synchronized (this) {
+                entries = new ArrayList<>(mEntries);
+                mEntries.clear();
+            }
+            errors = new Exception[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                try {
+                    annotationsReplaced |= entries.get(i).operation.apply(pdfDoc);
+                } catch (Exception ex) {
+                    errors[i] = ex;
+                }
+            }
+        } catch (Exception ex) {
+            lockError = ex;
+        } finally {
+            if (shouldUnlock) {
+                DocumentLock.docUnlock(pdfViewCtrl);
+            }
+        }
+
+        if (null == entries) {
+            cancelAll(lockError);
+            return;
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        mListener.onBatchApplied(annotationsReplaced);
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).callback.onApplied(errors[i]);
+        }
+    }
+
+    /**
+     * Drops all queued operations and tells their callers why.
+     */
+    public void cancelAll(@Nullable Exception reason) {
+        ArrayList<Entry> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(mEntries);
+            mEntries.clear();
+        }
+        for (Entry entry : entries) {
+            entry.callback.onApplied(reason);
+        }
+    }
+}
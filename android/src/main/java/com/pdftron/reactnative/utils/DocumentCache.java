@@ -0,0 +1,848 @@
+package com.pdftron.reactnative.utils;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_EVICTIONS;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_HITS;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_MISSES;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_SIZE;
+import static com.pdftron.reactnative.utils.Constants.KEY_CACHE_STALE_HITS;
+
+/**
+ * On-disk cache of documents that have to be written to a file before they can be opened,
+ * i.e. base64 strings, raw resources and, when enabled, remote documents. Base64 documents are
+ * keyed by a hash of their content, resources by id and app version and remote documents by url,
+ * so that opening the same document again is a cache hit. Remote documents are revalidated with
+ * their ETag or Last-Modified header on every open, and downloaded with range requests into a
+ * chunk file that is kept across interruptions, see {@link ChunkMap}.
+ * The least recently used entries are evicted once the cache grows beyond its size limit.
+ * A cached file handed out by {@link #acquireBase64} or {@link #acquireResource} must be given
+ * back with {@link #release}. The viewer edits the file it opens in place, so an entry that is in
+ * use is not shared: a second caller gets a private copy, and an entry that was modified while
+ * in use is dropped on release since it no longer matches its key.
+ */
+public class DocumentCache {
+
+    private static final String CACHE_DIR = "pdftron_documents";
+    private static final String PREFIX_BASE64 = "b64-";
+    private static final String PREFIX_RESOURCE = "res-";
+    private static final String PREFIX_REMOTE = "url-";
+    private static final String SUFFIX_CHUNKS = ".chunks";
+    private static final String SUFFIX_META = ".meta";
+    private static final long META_SAVE_INTERVAL = 4L * ChunkMap.CHUNK_SIZE;
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+    private static final String PREFIX_PRIVATE = "private-";
+    private static final String SUFFIX_PARTIAL = ".part";
+    private static final long MAX_SIZE = 256L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ExecutorService sSweepExecutor = Executors.newSingleThreadExecutor();
+
+    private static DocumentCache sInstance;
+
+    // the state an entry was handed out or given back in
+    private static class Lease {
+        long length;
+        long lastModified;
+
+        Lease(@NonNull File file) {
+            length = file.length();
+            lastModified = file.lastModified();
+        }
+
+        boolean matches(@NonNull File file) {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+
+    private final File mDirectory;
+    private final long mAppVersion;
+    private final long mMaxSize;
+    private final HashMap<String, Lease> mLeases = new HashMap<>();
+    // entries given back in this process, the viewer may still write to them shortly after
+    private final HashMap<String, Lease> mReleased = new HashMap<>();
+    // remote entries being downloaded, released once the download is committed or has failed
+    private final HashMap<String, CountDownLatch> mDownloads = new HashMap<>();
+    // validators and length of remote documents the viewer downloads itself, see acquireRemoteIfCurrent
+    private final HashMap<String, JSONObject> mProbes = new HashMap<>();
+
+    private long mHits;
+    private long mMisses;
+    private long mStaleHits;
+    private long mEvictions;
+
+    private DocumentCache(@NonNull Context context) {
+        this(new File(context.getCacheDir(), CACHE_DIR), getAppVersion(context), MAX_SIZE);
+    }
+
+    @VisibleForTesting
+    DocumentCache(@NonNull File directory, long appVersion, long maxSize) {
+        mDirectory = directory;
+        mDirectory.mkdirs();
+        mAppVersion = appVersion;
+        mMaxSize = maxSize;
+        final long startTime = System.currentTimeMillis();
+        sSweepExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                sweep(startTime);
+            }
+        });
+    }
+
+    public static synchronized DocumentCache getInstance(@NonNull Context context) {
+        if (null == sInstance) {
+            sInstance = new DocumentCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return a file with the decoded content of the base64 string
+     */
+    @NonNull
+    public File acquireBase64(@NonNull String base64) throws IOException {
+        String name = PREFIX_BASE64 + hash(base64) + ".pdf";
+        synchronized (this) {
+            File cached = acquireCached(name);
+            if (cached != null) {
+                mHits++;
+                return cached;
+            }
+            mMisses++;
+        }
+        File partial = createPartialFile();
+        try {
+            ReactUtils.decodeBase64ToFile(base64, partial);
+        } catch (IOException ex) {
+            partial.delete();
+            throw ex;
+        }
+        return commit(partial, name);
+    }
+
+    /**
+     * @return a file with the content of the raw resource
+     */
+    @NonNull
+    public File acquireResource(@NonNull Context context, int resId, @NonNull String resName,
+            @NonNull String extension) throws IOException {
+        String name = PREFIX_RESOURCE + resId + "-" + mAppVersion + "-" + resName + extension;
+        synchronized (this) {
+            File cached = acquireCached(name);
+            if (cached != null) {
+                mHits++;
+                return cached;
+            }
+            mMisses++;
+        }
+        File partial = createPartialFile();
+        InputStream is = null;
+        OutputStream os = null;
+        try {
+            is = context.getResources().openRawResource(resId);
+            os = new FileOutputStream(partial);
+            IOUtils.copyLarge(is, os, new byte[BUFFER_SIZE]);
+            os.close();
+            os = null;
+        } catch (IOException ex) {
+            partial.delete();
+            throw ex;
+        } finally {
+            IOUtils.closeQuietly(is);
+            IOUtils.closeQuietly(os);
+        }
+        return commit(partial, name);
+    }
+
+    /**
+     * Revalidates the cached copy of the remote document with a conditional request, without
+     * downloading the document. The cached copy is also used when the server cannot be reached.
+     * If the document is not cached or has changed, the validators and length the server sent
+     * are kept, so that the copy the viewer downloads can be added with {@link #adoptRemote}.
+     * Blocks on network, must not be called on the UI thread.
+     *
+     * @param headers additional request headers, such as authorization
+     * @return the cached copy if it is current, null if the document has to be downloaded
+     */
+    @Nullable
+    public File acquireRemoteIfCurrent(@NonNull String url, @Nullable JSONObject headers) throws IOException {
+        String name = getRemoteName(url, headers);
+        File metaFile = new File(mDirectory, name + SUFFIX_META);
+        JSONObject meta = null;
+        synchronized (this) {
+            if (metaFile.exists() && new File(mDirectory, name).exists()) {
+                meta = readMeta(metaFile);
+            }
+        }
+
+        HttpURLConnection connection = openConnection(url, headers);
+        try {
+            // only the headers are needed
+            connection.setRequestProperty("Range", "bytes=0-0");
+            if (meta != null) {
+                if (meta.has(ChunkMap.META_ETAG)) {
+                    connection.setRequestProperty("If-None-Match", meta.optString(ChunkMap.META_ETAG));
+                }
+                if (meta.has(ChunkMap.META_LAST_MODIFIED)) {
+                    connection.setRequestProperty("If-Modified-Since", meta.optString(ChunkMap.META_LAST_MODIFIED));
+                }
+            }
+            int responseCode;
+            try {
+                responseCode = connection.getResponseCode();
+            } catch (IOException ex) {
+                if (meta != null) {
+                    synchronized (this) {
+                        File cached = acquireCached(name);
+                        if (cached != null) {
+                            // offline, a possibly outdated copy is better than none
+                            mStaleHits++;
+                            return cached;
+                        }
+                    }
+                }
+                throw ex;
+            }
+            if (HttpURLConnection.HTTP_NOT_MODIFIED == responseCode && meta != null) {
+                synchronized (this) {
+                    File cached = acquireCached(name);
+                    if (cached != null) {
+                        mHits++;
+                        return cached;
+                    }
+                }
+            }
+
+            long length = -1;
+            if (HttpURLConnection.HTTP_PARTIAL == responseCode) {
+                length = parseContentRangeLength(connection.getHeaderField("Content-Range"));
+            } else if (HttpURLConnection.HTTP_OK == responseCode) {
+                length = connection.getContentLength();
+            }
+            String etag = connection.getHeaderField("ETag");
+            String lastModified = connection.getHeaderField("Last-Modified");
+            synchronized (this) {
+                mMisses++;
+                mProbes.remove(name);
+                if (length > 0 && (etag != null || lastModified != null)) {
+                    // taken before the viewer downloads, a change in between only makes the copy
+                    // newer than its validators, which is revalidated on the next open
+                    JSONObject probe = new JSONObject();
+                    try {
+                        probe.put(ChunkMap.META_ETAG, etag);
+                        probe.put(ChunkMap.META_LAST_MODIFIED, lastModified);
+                        probe.put(ChunkMap.META_LENGTH, length);
+                        mProbes.put(name, probe);
+                    } catch (JSONException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            }
+            return null;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Adds the copy of a remote document that the viewer downloaded after
+     * {@link #acquireRemoteIfCurrent} returned null for it, under the validators the server sent
+     * then. The copy is only added if it has the length the server announced, i.e. it is
+     * complete and was not saved over. Copies the file, must not be called on the UI thread.
+     */
+    public void adoptRemote(@NonNull String url, @Nullable JSONObject headers, @NonNull File file) {
+        String name;
+        JSONObject probe;
+        try {
+            name = getRemoteName(url, headers);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return;
+        }
+        synchronized (this) {
+            probe = mProbes.remove(name);
+        }
+        if (null == probe || !file.isFile() || file.length() != probe.optLong(ChunkMap.META_LENGTH, -1)) {
+            return;
+        }
+        File partial = createPartialFile();
+        try {
+            FileUtils.copyFile(file, partial);
+            if (partial.length() != probe.optLong(ChunkMap.META_LENGTH, -1)) {
+                partial.delete();
+                return;
+            }
+            // not handed out, the viewer keeps using its own copy
+            release(commitRemote(partial, name, probe));
+        } catch (IOException ex) {
+            partial.delete();
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Downloads the document, or revalidates the cached copy with a conditional request.
+     * The cached copy is also used when the server cannot be reached. Downloads are made with
+     * range requests and kept chunk by chunk, keyed by url and validator, so that a download
+     * that was interrupted only fetches the missing ranges next time. A second caller for a url
+     * that is being downloaded waits for that download and shares its result. Copies are kept
+     * per url and set of headers, a copy is only handed out, also offline, for the headers it was
+     * downloaded with. Blocks on network, must not be called on the UI thread.
+     *
+     * @param headers additional request headers, such as authorization
+     * @return a file with the current content of the remote document
+     */
+    @NonNull
+    public File acquireRemote(@NonNull String url, @Nullable JSONObject headers) throws IOException {
+        String name = getRemoteName(url, headers);
+        File metaFile = new File(mDirectory, name + SUFFIX_META);
+        File chunksFile = new File(mDirectory, name + SUFFIX_CHUNKS);
+        File chunksMetaFile = new File(mDirectory, chunksFile.getName() + SUFFIX_META);
+        JSONObject meta = null;
+        synchronized (this) {
+            if (metaFile.exists() && new File(mDirectory, name).exists()) {
+                meta = readMeta(metaFile);
+            }
+        }
+
+        if (meta != null) {
+            HttpURLConnection connection = openConnection(url, headers);
+            try {
+                if (meta.has(ChunkMap.META_ETAG)) {
+                    connection.setRequestProperty("If-None-Match", meta.optString(ChunkMap.META_ETAG));
+                }
+                if (meta.has(ChunkMap.META_LAST_MODIFIED)) {
+                    connection.setRequestProperty("If-Modified-Since", meta.optString(ChunkMap.META_LAST_MODIFIED));
+                }
+                int responseCode;
+                try {
+                    responseCode = connection.getResponseCode();
+                } catch (IOException ex) {
+                    synchronized (this) {
+                        File cached = acquireCached(name);
+                        if (cached != null) {
+                            // offline, a possibly outdated copy is better than none
+                            mStaleHits++;
+                            return cached;
+                        }
+                    }
+                    throw ex;
+                }
+                if (HttpURLConnection.HTTP_NOT_MODIFIED == responseCode) {
+                    synchronized (this) {
+                        File cached = acquireCached(name);
+                        if (cached != null) {
+                            mHits++;
+                            return cached;
+                        }
+                    }
+                }
+            } finally {
+                connection.disconnect();
+            }
+            // changed on the server, or evicted or modified meanwhile
+        }
+
+        CountDownLatch download = new CountDownLatch(1);
+        JSONObject chunksMeta = null;
+        while (true) {
+            CountDownLatch pending;
+            synchronized (this) {
+                pending = mDownloads.get(name);
+                if (null == pending) {
+                    mMisses++;
+                    mDownloads.put(name, download);
+                    if (chunksMetaFile.exists() && chunksFile.exists()) {
+                        chunksMeta = readMeta(chunksMetaFile);
+                    }
+                    break;
+                }
+            }
+            // the same document is being downloaded by another view, wait for it outside the lock
+            try {
+                pending.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + url);
+            }
+            synchronized (this) {
+                File cached = acquireCached(name);
+                if (cached != null) {
+                    mHits++;
+                    return cached;
+                }
+            }
+            // the other download failed, try it here
+        }
+        try {
+            if (null == chunksMeta) {
+                chunksFile.delete();
+                chunksMeta = new JSONObject();
+            }
+            download(url, headers, chunksFile, chunksMeta, chunksMetaFile);
+            return commitRemote(chunksFile, name, chunksMeta);
+        } finally {
+            synchronized (this) {
+                mDownloads.remove(name);
+            }
+            download.countDown();
+        }
+    }
+
+    /**
+     * @return the name of the entry of a remote document. It depends on the request headers too,
+     * so that a copy downloaded with one set of credentials is never handed out for another.
+     */
+    @NonNull
+    private static String getRemoteName(@NonNull String url, @Nullable JSONObject headers) throws IOException {
+        return PREFIX_REMOTE + hash(getRemoteKey(url, headers)) + ".pdf";
+    }
+
+    /**
+     * @return the url, followed by the request headers sorted by name if there are any
+     */
+    @NonNull
+    static String getRemoteKey(@NonNull String url, @Nullable JSONObject headers) {
+        if (null == headers || 0 == headers.length()) {
+            return url;
+        }
+        ArrayList<String> lines = new ArrayList<>();
+        Iterator<String> keys = headers.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            // header names are case insensitive
+            lines.add(key.toLowerCase(Locale.US) + ": " + headers.optString(key));
+        }
+        Collections.sort(lines);
+        StringBuilder builder = new StringBuilder(url);
+        for (String line : lines) {
+            builder.append('\n').append(line);
+        }
+        return builder.toString();
+    }
+
+    @NonNull
+    private static HttpURLConnection openConnection(@NonNull String url, @Nullable JSONObject headers) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        if (headers != null) {
+            Iterator<String> keys = headers.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                connection.setRequestProperty(key, headers.optString(key));
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Fills the missing chunks of the file with range requests.
+     */
+    private void download(@NonNull String url, @Nullable JSONObject headers, @NonNull File file,
+            @NonNull JSONObject meta, @NonNull File metaFile) throws IOException {
+        ChunkMap chunks = ChunkMap.fromMeta(meta);
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            while (true) {
+                long start = chunks.firstMissing();
+                if (start < 0) {
+                    // drop what is left of a longer version
+                    output.setLength(chunks.getLength());
+                    return;
+                }
+                long end = chunks.endOfMissingRun(start);
+                HttpURLConnection connection = openConnection(url, headers);
+                try {
+                    connection.setRequestProperty("Range", "bytes=" + start + "-" + (end > 0 ? String.valueOf(end - 1) : ""));
+                    String validator = chunks.getValidator();
+                    if (validator != null) {
+                        // the server sends the whole document instead if it has changed
+                        connection.setRequestProperty("If-Range", validator);
+                    }
+                    int responseCode = connection.getResponseCode();
+                    long offset;
+                    if (HttpURLConnection.HTTP_PARTIAL == responseCode) {
+                        offset = parseContentRangeStart(connection.getHeaderField("Content-Range"));
+                        if (offset < 0) {
+                            throw new IOException("Unable to download " + url + ", invalid Content-Range");
+                        }
+                        chunks.setLength(parseContentRangeLength(connection.getHeaderField("Content-Range")));
+                    } else if (HttpURLConnection.HTTP_OK == responseCode) {
+                        // ranges not supported, or the document changed since the chunks were kept
+                        offset = 0;
+                        chunks.reset(connection.getContentLength());
+                        output.setLength(0);
+                    } else {
+                        throw new IOException("Unable to download " + url + ", response code " + responseCode);
+                    }
+                    chunks.setValidators(connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+
+                    InputStream is = null;
+                    try {
+                        is = connection.getInputStream();
+                        output.seek(offset);
+                        byte[] buffer = new byte[BUFFER_SIZE];
+                        long position = offset;
+                        long lastSaved = offset;
+                        int read;
+                        while ((read = is.read(buffer)) > 0) {
+                            output.write(buffer, 0, read);
+                            position += read;
+                            chunks.markWritten(offset, position);
+                            if (position - lastSaved >= META_SAVE_INTERVAL) {
+                                lastSaved = position;
+                                writeMeta(metaFile, chunks.toMeta(meta));
+                            }
+                        }
+                        if (chunks.getLength() < 0) {
+                            // no length was announced, the end of the body is the end of the file
+                            chunks.setLength(position);
+                            chunks.markWritten(offset, position);
+                        } else if (position == offset && chunks.getLength() > 0) {
+                            throw new IOException("Unable to download " + url + ", empty response");
+                        }
+                    } finally {
+                        IOUtils.closeQuietly(is);
+                        writeMeta(metaFile, chunks.toMeta(meta));
+                    }
+                } finally {
+                    connection.disconnect();
+                }
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    private static long parseContentRangeStart(@Nullable String contentRange) {
+        // bytes start-end/length
+        try {
+            String range = contentRange.substring(contentRange.indexOf(' ') + 1);
+            return Long.parseLong(range.substring(0, range.indexOf('-')));
+        } catch (Exception ex) {
+            return -1;
+        }
+    }
+
+    private static long parseContentRangeLength(@Nullable String contentRange) {
+        try {
+            return Long.parseLong(contentRange.substring(contentRange.indexOf('/') + 1));
+        } catch (Exception ex) {
+            return -1;
+        }
+    }
+
+    private synchronized void writeMeta(@NonNull File metaFile, @NonNull JSONObject meta) {
+        try {
+            FileUtils.writeStringToFile(metaFile, meta.toString(), "UTF-8");
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * @return hits, misses, stale hits, evictions and the current size in bytes
+     */
+    @NonNull
+    public synchronized HashMap<String, Long> getStats() {
+        HashMap<String, Long> stats = new HashMap<>();
+        stats.put(KEY_CACHE_HITS, mHits);
+        stats.put(KEY_CACHE_MISSES, mMisses);
+        stats.put(KEY_CACHE_STALE_HITS, mStaleHits);
+        stats.put(KEY_CACHE_EVICTIONS, mEvictions);
+        long size = 0;
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        stats.put(KEY_CACHE_SIZE, size);
+        return stats;
+    }
+
+    public boolean contains(@Nullable File file) {
+        return file != null && mDirectory.equals(file.getParentFile());
+    }
+
+    /**
+     * Gives back a file handed out by this cache.
+     */
+    public synchronized void release(@Nullable File file) {
+        if (!contains(file)) {
+            return;
+        }
+        String name = file.getName();
+        if (name.startsWith(PREFIX_PRIVATE)) {
+            file.delete();
+            return;
+        }
+        Lease lease = mLeases.remove(name);
+        if (null == lease) {
+            return;
+        }
+        if (lease.matches(file)) {
+            mReleased.put(name, new Lease(file));
+        } else {
+            // saved by the viewer, the content no longer matches the key
+            file.delete();
+        }
+        trim();
+    }
+
+    /**
+     * Deletes all entries that are not in use.
+     */
+    public synchronized void clear() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                String entryName = getEntryName(name);
+                if (!mLeases.containsKey(entryName) && !mDownloads.containsKey(entryName)
+                        && !name.startsWith(PREFIX_PRIVATE) && !name.endsWith(SUFFIX_PARTIAL)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private File acquireCached(@NonNull String name) throws IOException {
+        File file = new File(mDirectory, name);
+        Lease released = mReleased.remove(name);
+        if (released != null && file.exists() && !released.matches(file)) {
+            // written to after it was given back
+            file.delete();
+        }
+        if (!file.exists()) {
+            return null;
+        }
+        if (mLeases.containsKey(name)) {
+            // in use and possibly being edited, hand out a copy that is deleted on release
+            File copy = new File(mDirectory, PREFIX_PRIVATE + UUID.randomUUID().toString() + "-" + name);
+            FileUtils.copyFile(file, copy);
+            return copy;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        lease(file);
+        return file;
+    }
+
+    @NonNull
+    private File createPartialFile() {
+        return new File(mDirectory, UUID.randomUUID().toString() + SUFFIX_PARTIAL);
+    }
+
+    /**
+     * Moves a fully written file into place, another caller may have done the same meanwhile.
+     */
+    @NonNull
+    private synchronized File commit(@NonNull File partial, @NonNull String name) throws IOException {
+        File cached = acquireCached(name);
+        if (cached != null) {
+            partial.delete();
+            return cached;
+        }
+        File file = new File(mDirectory, name);
+        if (!partial.renameTo(file)) {
+            partial.delete();
+            throw new IOException("Unable to write " + file.getAbsolutePath());
+        }
+        lease(file);
+        trim();
+        return file;
+    }
+
+    /**
+     * Moves a completed download into place. An entry that is in use cannot be replaced,
+     * the download is handed out as a private copy then.
+     */
+    @NonNull
+    private synchronized File commitRemote(@NonNull File chunksFile, @NonNull String name,
+            @NonNull JSONObject meta) throws IOException {
+        File file = new File(mDirectory, name);
+        File metaFile = new File(mDirectory, name + SUFFIX_META);
+        new File(mDirectory, chunksFile.getName() + SUFFIX_META).delete();
+        if (mLeases.containsKey(name)) {
+            File copy = new File(mDirectory, PREFIX_PRIVATE + UUID.randomUUID().toString() + "-" + name);
+            if (!chunksFile.renameTo(copy)) {
+                throw new IOException("Unable to write " + copy.getAbsolutePath());
+            }
+            return copy;
+        }
+        file.delete();
+        mReleased.remove(name);
+        if (!chunksFile.renameTo(file)) {
+            throw new IOException("Unable to write " + file.getAbsolutePath());
+        }
+        // only the validators are needed for a complete entry
+        meta.remove(ChunkMap.META_CHUNKS);
+        FileUtils.writeStringToFile(metaFile, meta.toString(), "UTF-8");
+        lease(file);
+        trim();
+        return file;
+    }
+
+    @Nullable
+    private static JSONObject readMeta(@NonNull File metaFile) {
+        try {
+            return new JSONObject(FileUtils.readFileToString(metaFile, "UTF-8"));
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of the entry a file belongs to, i.e. without chunk and meta suffixes
+     */
+    @NonNull
+    private static String getEntryName(@NonNull String fileName) {
+        String name = fileName;
+        if (name.endsWith(SUFFIX_META)) {
+            name = name.substring(0, name.length() - SUFFIX_META.length());
+        }
+        if (name.endsWith(SUFFIX_CHUNKS)) {
+            name = name.substring(0, name.length() - SUFFIX_CHUNKS.length());
+        }
+        return name;
+    }
+
+    private void lease(@NonNull File file) {
+        mLeases.put(file.getName(), new Lease(file));
+    }
+
+    /**
+     * Evicts the least recently used entries that are not in use until the cache fits its limit.
+     */
+    private void trim() {
+        File[] files = mDirectory.listFiles();
+        if (null == files) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= mMaxSize) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (total <= mMaxSize) {
+                break;
+            }
+            String name = file.getName();
+            if (mLeases.containsKey(name) || mDownloads.containsKey(getEntryName(name)) || name.startsWith(PREFIX_PRIVATE)
+                    || name.endsWith(SUFFIX_PARTIAL) || name.endsWith(SUFFIX_META)) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                mEvictions++;
+                File metaFile = new File(mDirectory, name + SUFFIX_META);
+                if (metaFile.exists()) {
+                    total -= metaFile.length();
+                    metaFile.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes what a previous process left behind in the cache directory: partial writes,
+     * private copies and validators of evicted entries. Runs in the background, files written
+     * by this process since it started are left alone.
+     */
+    private synchronized void sweep(long startTime) {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (file.lastModified() >= startTime) {
+                    continue;
+                }
+                if (name.startsWith(PREFIX_PRIVATE) || name.endsWith(SUFFIX_PARTIAL)) {
+                    file.delete();
+                } else if (name.endsWith(SUFFIX_META) && !mDownloads.containsKey(getEntryName(name))
+                        && !new File(mDirectory, name.substring(0, name.length() - SUFFIX_META.length())).exists()) {
+                    file.delete();
+                }
+            }
+        }
+        trim();
+    }
+
+    @NonNull
+    static String hash(@NonNull String content) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+        // file paths and urls can have non ascii characters, which must not collide
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private static long getAppVersion(@NonNull Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            // the update time also changes when a debug build is reinstalled with the same version
+            return info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException ex) {
+            ex.printStackTrace();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,214 @@
+package com.pdftron.reactnative.utils;
+
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.pdftron.common.PDFNetException;
+import com.pdftron.pdf.PDFViewCtrl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_LOCK_HOLD;
+import static com.pdftron.reactnative.utils.Constants.KEY_LOCK_HOLD_MS;
+import static com.pdftron.reactnative.utils.Constants.KEY_LOCK_LONG_UI_HOLDS;
+import static com.pdftron.reactnative.utils.Constants.KEY_LOCK_SITE;
+import static com.pdftron.reactnative.utils.Constants.KEY_LOCK_SITES;
+import static com.pdftron.reactnative.utils.Constants.KEY_LOCK_TIMESTAMP;
+import static com.pdftron.reactnative.utils.Constants.KEY_LOCK_WAIT;
+
+/**
+ * Takes and releases the document lock of a {@link PDFViewCtrl} on behalf of a named call site.
+ * While monitoring, the time each site waited for and held the lock is recorded, and holds on
+ * the UI thread longer than a threshold are logged and kept, as they keep the viewer from
+ * rendering. The wait also counts towards {@link PerformanceMetrics} when that is recording.
+ * Unlocks must happen on the locking thread, in reverse order of the locks.
+ */
+public class DocumentLock {
+
+    private static final String TAG = DocumentLock.class.getSimpleName();
+
+    private static final long DEFAULT_UI_HOLD_THRESHOLD_MS = 16;
+    private static final int MAX_LONG_UI_HOLDS = 32;
+
+    private static class SiteMetrics {
+        final LatencyHistogram wait = new LatencyHistogram();
+        final LatencyHistogram hold = new LatencyHistogram();
+        long longUiHolds;
+    }
+
+    private static class Hold {
+        final String site;
+        final long acquired;
+        final int generation;
+
+        Hold(String site, long acquired, int generation) {
+            this.site = site;
+            this.acquired = acquired;
+            this.generation = generation;
+        }
+    }
+
+    private static volatile boolean sEnabled;
+    private static volatile long sUiHoldThresholdNanos = DEFAULT_UI_HOLD_THRESHOLD_MS * 1000000;
+    // changes whenever monitoring is turned on or off, holds from before are not recorded
+    private static volatile int sGeneration;
+
+    private static final ConcurrentHashMap<String, SiteMetrics> sSites = new ConcurrentHashMap<>();
+    // most recent long holds on the UI thread, guarded by itself
+    private static final ArrayDeque<HashMap<String, Object>> sLongUiHolds = new ArrayDeque<>();
+    private static final ThreadLocal<ArrayDeque<Hold>> sHolds = new ThreadLocal<ArrayDeque<Hold>>() {
+        @Override
+        protected ArrayDeque<Hold> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    /**
+     * @param uiHoldThresholdMs holds on the UI thread longer than this are reported, 0 for the default
+     */
+    public static void setMonitorEnabled(boolean enabled, long uiHoldThresholdMs) {
+        sUiHoldThresholdNanos = (uiHoldThresholdMs > 0 ? uiHoldThresholdMs : DEFAULT_UI_HOLD_THRESHOLD_MS) * 1000000;
+        sGeneration++;
+        sEnabled = enabled;
+    }
+
+    public static void docLock(@NonNull PDFViewCtrl pdfViewCtrl, @NonNull String site) throws PDFNetException {
+        if (!sEnabled && !PerformanceMetrics.isEnabled()) {
+            pdfViewCtrl.docLock(true);
+            return;
+        }
+        long start = System.nanoTime();
+        pdfViewCtrl.docLock(true);
+        onLocked(site, start);
+    }
+
+    public static void docLockRead(@NonNull PDFViewCtrl pdfViewCtrl, @NonNull String site) throws PDFNetException {
+        if (!sEnabled && !PerformanceMetrics.isEnabled()) {
+            pdfViewCtrl.docLockRead();
+            return;
+        }
+        long start = System.nanoTime();
+        pdfViewCtrl.docLockRead();
+        onLocked(site, start);
+    }
+
+    /**
+     * @return whether the read lock was taken within the given time
+     */
+    public static boolean docTryLockRead(@NonNull PDFViewCtrl pdfViewCtrl, int milliseconds, @NonNull String site) throws PDFNetException {
+        if (!sEnabled && !PerformanceMetrics.isEnabled()) {
+            return pdfViewCtrl.docTryLockRead(milliseconds);
+        }
+        long start = System.nanoTime();
+        boolean locked = pdfViewCtrl.docTryLockRead(milliseconds);
+        if (locked) {
+            onLocked(site, start);
+        }
+        return locked;
+    }
+
+    public static void docUnlock(@NonNull PDFViewCtrl pdfViewCtrl) {
+        pdfViewCtrl.docUnlock();
+        onUnlocked();
+    }
+
+    public static void docUnlockRead(@NonNull PDFViewCtrl pdfViewCtrl) {
+        pdfViewCtrl.docUnlockRead();
+        onUnlocked();
+    }
+
+    private static void onLocked(@NonNull String site, long start) {
+        long acquired = System.nanoTime();
+        if (PerformanceMetrics.isEnabled()) {
+            PerformanceMetrics.recordLockWait(acquired - start);
+        }
+        if (sEnabled) {
+            getSite(site).wait.record(acquired - start);
+            sHolds.get().push(new Hold(site, acquired, sGeneration));
+        }
+    }
+
+    private static void onUnlocked() {
+        if (!sEnabled) {
+            return;
+        }
+        ArrayDeque<Hold> holds = sHolds.get();
+        Hold hold = holds.poll();
+        if (null == hold) {
+            return;
+        }
+        if (hold.generation != sGeneration) {
+            // taken before monitoring was turned on again, what is left is stale
+            holds.clear();
+            return;
+        }
+        long held = System.nanoTime() - hold.acquired;
+        SiteMetrics metrics = getSite(hold.site);
+        metrics.hold.record(held);
+        if (held > sUiHoldThresholdNanos && Looper.myLooper() == Looper.getMainLooper()) {
+            double heldMs = LatencyHistogram.toMillis(held);
+            Log.w(TAG, "Document lock held for " + heldMs + " ms on the UI thread by " + hold.site);
+            HashMap<String, Object> longHold = new HashMap<>();
+            longHold.put(KEY_LOCK_SITE, hold.site);
+            longHold.put(KEY_LOCK_HOLD_MS, heldMs);
+            longHold.put(KEY_LOCK_TIMESTAMP, (double) System.currentTimeMillis());
+            synchronized (sLongUiHolds) {
+                metrics.longUiHolds++;
+                if (sLongUiHolds.size() >= MAX_LONG_UI_HOLDS) {
+                    sLongUiHolds.poll();
+                }
+                sLongUiHolds.offer(longHold);
+            }
+        }
+    }
+
+    /**
+     * @return for each call site the wait and hold histograms and the number of long holds on
+     * the UI thread, and the most recent long holds on the UI thread
+     */
+    @NonNull
+    public static HashMap<String, Object> snapshot() {
+        HashMap<String, Object> sites = new HashMap<>();
+        ArrayList<HashMap<String, Object>> longUiHolds;
+        synchronized (sLongUiHolds) {
+            for (Map.Entry<String, SiteMetrics> entry : sSites.entrySet()) {
+                HashMap<String, Object> site = new HashMap<>();
+                site.put(KEY_LOCK_WAIT, entry.getValue().wait.snapshot());
+                site.put(KEY_LOCK_HOLD, entry.getValue().hold.snapshot());
+                site.put(KEY_LOCK_LONG_UI_HOLDS, (double) entry.getValue().longUiHolds);
+                sites.put(entry.getKey(), site);
+            }
+            longUiHolds = new ArrayList<>(sLongUiHolds);
+        }
+        HashMap<String, Object> snapshot = new HashMap<>();
+        snapshot.put(KEY_LOCK_SITES, sites);
+        snapshot.put(KEY_LOCK_LONG_UI_HOLDS, longUiHolds);
+        return snapshot;
+    }
+
+    public static void reset() {
+        synchronized (sLongUiHolds) {
+            sSites.clear();
+            sLongUiHolds.clear();
+        }
+    }
+
+    @NonNull
+    private static SiteMetrics getSite(@NonNull String site) {
+        SiteMetrics metrics = sSites.get(site);
+        if (null == metrics) {
+            metrics = new SiteMetrics();
+            SiteMetrics existing = sSites.putIfAbsent(site, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,323 @@
+package com.pdftron.reactnative.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.webkit.URLUtil;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.common.PDFNetException;
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.PDFDraw;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prepares documents ahead of the view that is going to show them. A preloaded document is
+ * resolved to a local file through the {@link DocumentCache}, i.e. downloaded, decoded or copied
+ * out of the resources, then opened once and its first pages rasterized off screen, which loads
+ * the fonts and resources they use into the caches PDFNet shares across documents. The file is
+ * held, for a limited number of documents, until a view opening the same document takes it over.
+ */
+public class DocumentPreloader {
+
+    public interface Callback {
+        void onPreloaded(@Nullable Exception error);
+    }
+
+    private static final String TAG = DocumentPreloader.class.getSimpleName();
+
+    private static final int MAX_ENTRIES = 4;
+    private static final int THREAD_COUNT = 2;
+    private static final double WARM_DPI = 72;
+    private static final long INITIALIZE_TIMEOUT_MS = 10000;
+
+    private static final ExecutorService sPreloadExecutor = Executors.newFixedThreadPool(THREAD_COUNT);
+
+    private static DocumentPreloader sInstance;
+
+    private class Entry implements Runnable {
+        final String key;
+        final String path;
+        final boolean isBase64;
+        final String password;
+        final JSONObject headers;
+        final int pageCount;
+        final ArrayList<Callback> callbacks = new ArrayList<>();
+
+        // guarded by the preloader
+        Uri uri;
+        boolean done;
+        boolean removed;
+
+        Entry(String key, String path, boolean isBase64, String password, JSONObject headers, int pageCount) {
+            this.key = key;
+            this.path = path;
+            this.isBase64 = isBase64;
+            this.password = password;
+            this.headers = headers;
+            this.pageCount = pageCount;
+        }
+
+        @Override
+        public void run() {
+            Uri uri = null;
+            Exception error = null;
+            try {
+                PDFNetInitializer.awaitInitialized(INITIALIZE_TIMEOUT_MS);
+                uri = resolve(path, isBase64, headers);
+                warm(uri, password, pageCount);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                error = ex;
+            }
+
+            ArrayList<Callback> callbacks;
+            boolean keep;
+            synchronized (DocumentPreloader.this) {
+                keep = !removed && null == error;
+                this.uri = keep ? uri : null;
+                done = true;
+                if (!keep && mEntries.get(key) == this) {
+                    mEntries.remove(key);
+                }
+                callbacks = new ArrayList<>(this.callbacks);
+                this.callbacks.clear();
+                DocumentPreloader.this.notifyAll();
+            }
+            if (!keep) {
+                release(uri);
+            }
+            for (Callback callback : callbacks) {
+                callback.onPreloaded(error);
+            }
+        }
+    }
+
+    private final Context mContext;
+    // access ordered, the document preloaded or asked for least recently is evicted first
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private DocumentPreloader(@NonNull Context context) {
+        mContext = context;
+    }
+
+    public static synchronized DocumentPreloader getInstance(@NonNull Context context) {
+        if (null == sInstance) {
+            sInstance = new DocumentPreloader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Preloads the document in the background, the callback is called once it is ready.
+     * Preloading a document that is already preloaded or being preloaded only waits for it.
+     *
+     * @param path      the document, as given to the document prop of the view
+     * @param password  the password of the document, if any
+     * @param headers   additional request headers for remote documents
+     * @param pageCount the number of pages from the start to rasterize
+     */
+    public void preload(@NonNull String path, boolean isBase64, @Nullable String password,
+            @Nullable JSONObject headers, int pageCount, @NonNull Callback callback) throws IOException {
+        String key = getKey(path, isBase64, headers);
+        Entry evicted = null;
+        boolean ready = false;
+        synchronized (this) {
+            Entry entry = mEntries.get(key);
+            if (entry != null) {
+                if (entry.done) {
+                    ready = true;
+                } else {
+                    entry.callbacks.add(callback);
+                }
+            } else {
+                entry = new Entry(key, path, isBase64, password, headers, pageCount);
+                entry.callbacks.add(callback);
+                mEntries.put(key, entry);
+                if (mEntries.size() > MAX_ENTRIES) {
+                    evicted = remove(mEntries.keySet().iterator().next());
+                }
+                sPreloadExecutor.execute(entry);
+            }
+        }
+        if (evicted != null) {
+            release(evicted.uri);
+        }
+        if (ready) {
+            callback.onPreloaded(null);
+        }
+    }
+
+    /**
+     * Hands the preloaded document over to the caller, which then owns the file and gives it
+     * back to the {@link DocumentCache} once done with it.
+     *
+     * @param headers the request headers the document is opened with, a remote document is only
+     *                handed over if it was preloaded with the same
+     * @param wait    whether to wait for a preload that is still in progress, must not be set on
+     *                the UI thread
+     * @return the uri of the preloaded document, null if it was not preloaded
+     */
+    @Nullable
+    public Uri take(@Nullable String path, boolean isBase64, @Nullable JSONObject headers, boolean wait) {
+        if (null == path) {
+            return null;
+        }
+        synchronized (this) {
+            if (mEntries.isEmpty()) {
+                return null;
+            }
+        }
+        String key;
+        try {
+            key = getKey(path, isBase64, headers);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+        synchronized (this) {
+            Entry entry = mEntries.get(key);
+            if (null == entry) {
+                return null;
+            }
+            while (wait && !entry.done && !entry.removed) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            if (!entry.done || entry.removed) {
+                return null;
+            }
+            mEntries.remove(key);
+            entry.removed = true;
+            return entry.uri;
+        }
+    }
+
+    /**
+     * Drops all preloaded documents, those still in progress are dropped once they finish.
+     */
+    public void clear() {
+        ArrayList<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                iterator.remove();
+                entry.removed = true;
+                if (entry.done) {
+                    evicted.add(entry);
+                }
+            }
+            notifyAll();
+        }
+        for (Entry entry : evicted) {
+            release(entry.uri);
+        }
+    }
+
+    /**
+     * @return the removed entry if it was done and its file has to be given back
+     */
+    @Nullable
+    private Entry remove(@NonNull String key) {
+        Entry entry = mEntries.remove(key);
+        if (null == entry) {
+            return null;
+        }
+        entry.removed = true;
+        notifyAll();
+        return entry.done ? entry : null;
+    }
+
+    @NonNull
+    private Uri resolve(@NonNull String path, boolean isBase64, @Nullable JSONObject headers) throws IOException {
+        DocumentCache documentCache = DocumentCache.getInstance(mContext);
+        if (isBase64) {
+            return Uri.fromFile(documentCache.acquireBase64(path));
+        }
+        if (URLUtil.isHttpUrl(path) || URLUtil.isHttpsUrl(path)) {
+            return Uri.fromFile(documentCache.acquireRemote(path, headers));
+        }
+        Uri uri = ReactUtils.getUri(mContext, path, false);
+        if (null == uri) {
+            throw new IOException("Unable to resolve document.");
+        }
+        return uri;
+    }
+
+    /**
+     * Opens the document and rasterizes its first pages, only for local files.
+     */
+    private static void warm(@NonNull Uri uri, @Nullable String password, int pageCount) throws PDFNetException {
+        if (!ContentResolver.SCHEME_FILE.equals(uri.getScheme()) || null == uri.getPath() || pageCount <= 0) {
+            return;
+        }
+        PDFDoc pdfDoc = null;
+        PDFDraw pdfDraw = null;
+        boolean shouldUnlockRead = false;
+        try {
+            pdfDoc = new PDFDoc(uri.getPath());
+            boolean unlocked = password != null ? pdfDoc.initStdSecurityHandler(password) : pdfDoc.initSecurityHandler();
+            if (!unlocked) {
+                throw new PDFNetException("", 0L, TAG, "warm", "Unable to open the document with the given password.");
+            }
+            pdfDoc.lockRead();
+            shouldUnlockRead = true;
+
+            pdfDraw = new PDFDraw(WARM_DPI);
+            int count = Math.min(pageCount, pdfDoc.getPageCount());
+            for (int i = 1; i <= count; i++) {
+                Bitmap bitmap = pdfDraw.getBitmap(pdfDoc.getPage(i));
+                if (bitmap != null) {
+                    bitmap.recycle();
+                }
+            }
+        } finally {
+            if (shouldUnlockRead) {
+                pdfDoc.unlockRead();
+            }
+            if (pdfDraw != null) {
+                pdfDraw.destroy();
+            }
+            if (pdfDoc != null) {
+                pdfDoc.close();
+            }
+        }
+    }
+
+    private void release(@Nullable Uri uri) {
+        if (uri != null && ContentResolver.SCHEME_FILE.equals(uri.getScheme()) && uri.getPath() != null) {
+            DocumentCache.getInstance(mContext).release(new File(uri.getPath()));
+        }
+    }
+
+    @NonNull
+    private static String getKey(@NonNull String path, boolean isBase64, @Nullable JSONObject headers) throws IOException {
+        // base64 documents can be large, they are keyed by their hash like in the cache
+        if (isBase64) {
+            return "base64:" + DocumentCache.hash(path);
+        }
+        if (URLUtil.isHttpUrl(path) || URLUtil.isHttpsUrl(path)) {
+            // downloaded with these headers
+            return DocumentCache.getRemoteKey(path, headers);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,168 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.utils.Utils;
+import com.pdftron.pdf.utils.ViewerUtils;
+import com.pdftron.sdf.SDFDoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypts a document in the background. The document is rewritten into a temporary file
+ * next to the original, which then atomically replaces the original.
+ * Progress during the rewrite is estimated from the size of the temporary file.
+ */
+public class EncryptDocumentJob implements Runnable {
+
+    public static final String ERROR_PASSWORD = "password";
+    public static final String ERROR_ENCRYPT = "encrypt";
+
+    private static final long PROGRESS_INTERVAL_MS = 200;
+
+    // progress reported before and after the rewrite, the rewrite itself fills the range in between
+    private static final double PROGRESS_OPENED = 0.1;
+    private static final double PROGRESS_WRITTEN = 0.9;
+
+    private static final ScheduledExecutorService sProgressExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    public interface Listener {
+        void onProgress(@NonNull EncryptDocumentJob job, double progress);
+
+        void onComplete(@NonNull EncryptDocumentJob job);
+
+        void onError(@NonNull EncryptDocumentJob job, @NonNull String code, @NonNull String message);
+
+        void onCancelled(@NonNull EncryptDocumentJob job);
+    }
+
+    private final String mJobId;
+    private final String mFilePath;
+    private final String mPassword;
+    private final String mCurrentPassword;
+    private final Listener mListener;
+
+    private volatile boolean mCancelled;
+
+    public EncryptDocumentJob(@NonNull String jobId, @NonNull String filePath, @NonNull String password,
+            @Nullable String currentPassword, @NonNull Listener listener) {
+        mJobId = jobId;
+        mFilePath = filePath;
+        mPassword = password;
+        mCurrentPassword = Utils.isNullOrEmpty(currentPassword) ? "" : currentPassword;
+        mListener = listener;
+    }
+
+    public String getJobId() {
+        return mJobId;
+    }
+
+    /**
+     * Requests cancellation. A rewrite already in progress runs to completion but its output
+     * is discarded, the original file is left untouched.
+     */
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public void run() {
+        final File sourceFile = new File(mFilePath);
+        File tempFile = null;
+        PDFDoc pdfDoc = null;
+        ScheduledFuture<?> progressFuture = null;
+        try {
+            if (mCancelled) {
+                mListener.onCancelled(this);
+                return;
+            }
+            mListener.onProgress(this, 0);
+
+            pdfDoc = new PDFDoc(mFilePath);
+            if (!pdfDoc.initStdSecurityHandler(mCurrentPassword)) {
+                mListener.onError(this, ERROR_PASSWORD, "Current password is incorrect.");
+                return;
+            }
+            ViewerUtils.passwordDoc(pdfDoc, mPassword);
+            mListener.onProgress(this, PROGRESS_OPENED);
+
+            if (mCancelled) {
+                mListener.onCancelled(this);
+                return;
+            }
+
+            // same directory as the original so the final rename stays on one file system
+            tempFile = File.createTempFile(sourceFile.getName(), ".tmp", sourceFile.getParentFile());
+            progressFuture = scheduleProgress(sourceFile.length(), tempFile);
+
+            pdfDoc.lock();
+            try {
+                pdfDoc.save(tempFile.getAbsolutePath(), SDFDoc.SaveMode.REMOVE_UNUSED, null);
+            } finally {
+                pdfDoc.unlock();
+            }
+            progressFuture.cancel(false);
+            progressFuture = null;
+
+            // release the native handle before replacing the file it was opened from
+            pdfDoc.close();
+            pdfDoc = null;
+
+            if (mCancelled) {
+                mListener.onCancelled(this);
+                return;
+            }
+            mListener.onProgress(this, PROGRESS_WRITTEN);
+
+            if (!tempFile.renameTo(sourceFile)) {
+                throw new IOException("Unable to replace " + mFilePath);
+            }
+            tempFile = null;
+
+            mListener.onProgress(this, 1);
+            mListener.onComplete(this);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            mListener.onError(this, ERROR_ENCRYPT, ex.getMessage() != null ? ex.getMessage() : "Unable to encrypt document.");
+        } finally {
+            if (progressFuture != null) {
+                progressFuture.cancel(false);
+            }
+            if (pdfDoc != null) {
+                try {
+                    pdfDoc.close();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (tempFile != null && tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private ScheduledFuture<?> scheduleProgress(final long sourceLength, final File tempFile) {
+        return sProgressExecutor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                if (sourceLength <= 0 || mCancelled) {
+                    return;
+                }
+                double written = Math.min(1.0, (double) tempFile.length() / sourceLength);
+                mListener.onProgress(EncryptDocumentJob.this,
+                        PROGRESS_OPENED + written * (PROGRESS_WRITTEN - PROGRESS_OPENED));
+            }
+        }, PROGRESS_INTERVAL_MS, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+}
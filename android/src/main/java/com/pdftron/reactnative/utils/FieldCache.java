@@ -0,0 +1,48 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.common.PDFNetException;
+import com.pdftron.pdf.Field;
+import com.pdftron.pdf.FieldIterator;
+import com.pdftron.pdf.PDFDoc;
+
+import java.util.HashMap;
+
+/**
+ * Maps field names to the fields of one document, built on the first lookup. The cache belongs
+ * to the document it was built for: a lookup in another document builds it again, so that fields
+ * of a closed or replaced document are never handed out, even if an invalidation was missed.
+ * The owner still invalidates it when fields are added, removed or renamed.
+ * Lookups must hold the document lock.
+ */
+public class FieldCache {
+
+    private PDFDoc mPdfDoc;
+    private HashMap<String, Field> mFields;
+
+    @Nullable
+    public synchronized Field get(@NonNull PDFDoc pdfDoc, @NonNull String fieldName) throws PDFNetException {
+        if (null == mFields || mPdfDoc != pdfDoc) {
+            HashMap<String, Field> fields = new HashMap<>();
+            FieldIterator iterator = pdfDoc.getFieldIterator();
+            while (iterator.hasNext()) {
+                Field field = iterator.next();
+                String name = field.getName();
+                // same as getField, the first field with a name wins
+                if (name != null && !fields.containsKey(name)) {
+                    fields.put(name, field);
+                }
+            }
+            mPdfDoc = pdfDoc;
+            mFields = fields;
+        }
+        return mFields.get(fieldName);
+    }
+
+    public synchronized void invalidate() {
+        mPdfDoc = null;
+        mFields = null;
+    }
+}
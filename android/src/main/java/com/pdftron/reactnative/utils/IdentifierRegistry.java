@@ -0,0 +1,238 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.pdf.Annot;
+import com.pdftron.pdf.model.AnnotStyle;
+import com.pdftron.pdf.tools.ToolManager;
+import com.pdftron.pdf.widget.toolbar.builder.ToolbarButtonType;
+import com.pdftron.pdf.widget.toolbar.component.DefaultToolbars;
+import com.pdftron.reactnative.R;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+
+import static com.pdftron.reactnative.utils.Constants.*;
+
+/**
+ * The identifiers used on the JavaScript side for tools, toolbar buttons and quick menu items,
+ * and their native counterparts. Each identifier is one entry in the tables below, from which
+ * hashed lookups in both directions are built once and shared by all views. The build checks
+ * that every tool and quick menu identifier in {@link Constants} has an entry.
+ */
+public final class IdentifierRegistry {
+
+    private static class Tool {
+        final ToolManager.ToolMode toolMode;
+        final int annotType;
+        final int buttonId;
+        final ToolbarButtonType buttonType;
+
+        Tool(@Nullable ToolManager.ToolMode toolMode, int annotType,
+                @Nullable DefaultToolbars.ButtonId buttonId, @Nullable ToolbarButtonType buttonType) {
+            this.toolMode = toolMode;
+            this.annotType = annotType;
+            this.buttonId = buttonId != null ? buttonId.value() : 0;
+            this.buttonType = buttonType;
+        }
+    }
+
+    // only written while the class is initialized
+    private static final HashMap<String, Tool> sTools = new HashMap<>();
+    private static final EnumMap<ToolManager.ToolMode, String> sToolModeNames = new EnumMap<>(ToolManager.ToolMode.class);
+    private static final HashMap<Integer, String> sQuickMenuNames = new HashMap<>();
+    private static final HashMap<String, Integer> sQuickMenuIds = new HashMap<>();
+
+    static {
+        // name, name of the matching toolbar button, tool mode, annotation type, toolbar button id and type
+        tool(TOOL_ANNOTATION_CREATE_FREE_HAND, TOOL_BUTTON_FREE_HAND, ToolManager.ToolMode.INK_CREATE, Annot.e_Ink, DefaultToolbars.ButtonId.INK, ToolbarButtonType.INK);
+        tool(TOOL_ANNOTATION_CREATE_TEXT_HIGHLIGHT, TOOL_BUTTON_HIGHLIGHT, ToolManager.ToolMode.TEXT_HIGHLIGHT, Annot.e_Highlight, DefaultToolbars.ButtonId.TEXT_HIGHLIGHT, ToolbarButtonType.TEXT_HIGHLIGHT);
+        tool(TOOL_ANNOTATION_CREATE_TEXT_UNDERLINE, TOOL_BUTTON_UNDERLINE, ToolManager.ToolMode.TEXT_UNDERLINE, Annot.e_Underline, DefaultToolbars.ButtonId.TEXT_UNDERLINE, ToolbarButtonType.TEXT_UNDERLINE);
+        tool(TOOL_ANNOTATION_CREATE_TEXT_SQUIGGLY, TOOL_BUTTON_SQUIGGLY, ToolManager.ToolMode.TEXT_SQUIGGLY, Annot.e_Squiggly, DefaultToolbars.ButtonId.TEXT_SQUIGGLY, ToolbarButtonType.TEXT_SQUIGGLY);
+        tool(TOOL_ANNOTATION_CREATE_TEXT_STRIKEOUT, TOOL_BUTTON_STRIKEOUT, ToolManager.ToolMode.TEXT_STRIKEOUT, Annot.e_StrikeOut, DefaultToolbars.ButtonId.TEXT_STRIKEOUT, ToolbarButtonType.TEXT_STRIKEOUT);
+        tool(TOOL_ANNOTATION_CREATE_RECTANGLE, TOOL_BUTTON_RECTANGLE, ToolManager.ToolMode.RECT_CREATE, Annot.e_Square, DefaultToolbars.ButtonId.SQUARE, ToolbarButtonType.SQUARE);
+        tool(TOOL_ANNOTATION_CREATE_ELLIPSE, TOOL_BUTTON_ELLIPSE, ToolManager.ToolMode.OVAL_CREATE, Annot.e_Circle, DefaultToolbars.ButtonId.CIRCLE, ToolbarButtonType.CIRCLE);
+        tool(TOOL_ANNOTATION_CREATE_LINE, TOOL_BUTTON_LINE, ToolManager.ToolMode.LINE_CREATE, Annot.e_Line, DefaultToolbars.ButtonId.LINE, ToolbarButtonType.LINE);
+        tool(TOOL_ANNOTATION_CREATE_ARROW, TOOL_BUTTON_ARROW, ToolManager.ToolMode.ARROW_CREATE, AnnotStyle.CUSTOM_ANNOT_TYPE_ARROW, DefaultToolbars.ButtonId.ARROW, ToolbarButtonType.ARROW);
+        tool(TOOL_ANNOTATION_CREATE_POLYLINE, TOOL_BUTTON_POLYLINE, ToolManager.ToolMode.POLYLINE_CREATE, Annot.e_Polyline, DefaultToolbars.ButtonId.POLYLINE, ToolbarButtonType.POLYLINE);
+        tool(TOOL_ANNOTATION_CREATE_POLYGON, TOOL_BUTTON_POLYGON, ToolManager.ToolMode.POLYGON_CREATE, Annot.e_Polygon, DefaultToolbars.ButtonId.POLYGON, ToolbarButtonType.POLYGON);
+        tool(TOOL_ANNOTATION_CREATE_POLYGON_CLOUD, TOOL_BUTTON_CLOUD, ToolManager.ToolMode.CLOUD_CREATE, AnnotStyle.CUSTOM_ANNOT_TYPE_CLOUD, DefaultToolbars.ButtonId.POLY_CLOUD, ToolbarButtonType.POLY_CLOUD);
+        tool(TOOL_ANNOTATION_CREATE_SIGNATURE, TOOL_BUTTON_SIGNATURE, ToolManager.ToolMode.SIGNATURE, AnnotStyle.CUSTOM_ANNOT_TYPE_SIGNATURE, DefaultToolbars.ButtonId.SIGNATURE, ToolbarButtonType.SIGNATURE);
+        tool(TOOL_ANNOTATION_CREATE_FREE_TEXT, TOOL_BUTTON_FREE_TEXT, ToolManager.ToolMode.TEXT_CREATE, Annot.e_FreeText, DefaultToolbars.ButtonId.FREE_TEXT, ToolbarButtonType.FREE_TEXT);
+        tool(TOOL_ANNOTATION_CREATE_STICKY, TOOL_BUTTON_STICKY, ToolManager.ToolMode.TEXT_ANNOT_CREATE, Annot.e_Text, DefaultToolbars.ButtonId.STICKY_NOTE, ToolbarButtonType.STICKY_NOTE);
+        tool(TOOL_ANNOTATION_CREATE_CALLOUT, TOOL_BUTTON_CALLOUT, ToolManager.ToolMode.CALLOUT_CREATE, AnnotStyle.CUSTOM_ANNOT_TYPE_CALLOUT, DefaultToolbars.ButtonId.CALLOUT, ToolbarButtonType.CALLOUT);
+        tool(TOOL_ANNOTATION_CREATE_STAMP, TOOL_BUTTON_STAMP, ToolManager.ToolMode.STAMPER, Annot.e_Stamp, DefaultToolbars.ButtonId.STAMP, ToolbarButtonType.STAMP);
+        tool(TOOL_ANNOTATION_CREATE_RUBBER_STAMP, null, ToolManager.ToolMode.RUBBER_STAMPER, Annot.e_Unknown, DefaultToolbars.ButtonId.STAMP, ToolbarButtonType.STAMP);
+        tool(TOOL_ANNOTATION_CREATE_DISTANCE_MEASUREMENT, null, ToolManager.ToolMode.RULER_CREATE, AnnotStyle.CUSTOM_ANNOT_TYPE_RULER, DefaultToolbars.ButtonId.RULER, ToolbarButtonType.RULER);
+        tool(TOOL_ANNOTATION_CREATE_PERIMETER_MEASUREMENT, null, ToolManager.ToolMode.PERIMETER_MEASURE_CREATE, AnnotStyle.CUSTOM_ANNOT_TYPE_PERIMETER_MEASURE, DefaultToolbars.ButtonId.PERIMETER, ToolbarButtonType.PERIMETER);
+        tool(TOOL_ANNOTATION_CREATE_AREA_MEASUREMENT, null, ToolManager.ToolMode.AREA_MEASURE_CREATE, AnnotStyle.CUSTOM_ANNOT_TYPE_AREA_MEASURE, DefaultToolbars.ButtonId.AREA, ToolbarButtonType.AREA);
+        tool(TOOL_ANNOTATION_CREATE_FILE_ATTACHMENT, null, ToolManager.ToolMode.FILE_ATTACHMENT_CREATE, Annot.e_FileAttachment, DefaultToolbars.ButtonId.ATTACHMENT, ToolbarButtonType.ATTACHMENT);
+        tool(TOOL_ANNOTATION_CREATE_SOUND, null, ToolManager.ToolMode.SOUND_CREATE, Annot.e_Sound, DefaultToolbars.ButtonId.SOUND, ToolbarButtonType.SOUND);
+        tool(TOOL_ANNOTATION_CREATE_REDACTION, null, ToolManager.ToolMode.RECT_REDACTION, Annot.e_Redact, null, null);
+        tool(TOOL_ANNOTATION_CREATE_LINK, null, ToolManager.ToolMode.RECT_LINK, Annot.e_Link, DefaultToolbars.ButtonId.LINK, ToolbarButtonType.LINK);
+        tool(TOOL_ANNOTATION_CREATE_REDACTION_TEXT, null, ToolManager.ToolMode.TEXT_REDACTION, Annot.e_Redact, null, null);
+        tool(TOOL_ANNOTATION_CREATE_LINK_TEXT, null, ToolManager.ToolMode.TEXT_LINK_CREATE, Annot.e_Link, null, null);
+        tool(TOOL_TEXT_SELECT, null, ToolManager.ToolMode.TEXT_SELECT, Annot.e_Unknown, null, null);
+        tool(TOOL_PAN, null, ToolManager.ToolMode.PAN, Annot.e_Unknown, null, null);
+        tool(TOOL_ANNOTATION_EDIT, null, ToolManager.ToolMode.ANNOT_EDIT_RECT_GROUP, Annot.e_Unknown, DefaultToolbars.ButtonId.MULTI_SELECT, ToolbarButtonType.MULTI_SELECT);
+        tool(TOOL_FORM_CREATE_TEXT_FIELD, null, ToolManager.ToolMode.FORM_TEXT_FIELD_CREATE, Annot.e_Widget, DefaultToolbars.ButtonId.TEXT_FIELD, ToolbarButtonType.TEXT_FIELD);
+        tool(TOOL_FORM_CREATE_CHECKBOX_FIELD, null, ToolManager.ToolMode.FORM_CHECKBOX_CREATE, Annot.e_Widget, DefaultToolbars.ButtonId.CHECKBOX, ToolbarButtonType.CHECKBOX);
+        tool(TOOL_FORM_CREATE_SIGNATURE_FIELD, null, ToolManager.ToolMode.FORM_SIGNATURE_CREATE, Annot.e_Widget, DefaultToolbars.ButtonId.SIGNATURE_FIELD, ToolbarButtonType.SIGNATURE_FIELD);
+        tool(TOOL_FORM_CREATE_RADIO_FIELD, null, ToolManager.ToolMode.FORM_RADIO_GROUP_CREATE, Annot.e_Widget, DefaultToolbars.ButtonId.RADIO_BUTTON, ToolbarButtonType.RADIO_BUTTON);
+        tool(TOOL_FORM_CREATE_COMBO_BOX_FIELD, null, ToolManager.ToolMode.FORM_COMBO_BOX_CREATE, Annot.e_Widget, DefaultToolbars.ButtonId.COMBO_BOX, ToolbarButtonType.COMBO_BOX);
+        tool(TOOL_FORM_CREATE_LIST_BOX_FIELD, null, ToolManager.ToolMode.FORM_LIST_BOX_CREATE, Annot.e_Widget, DefaultToolbars.ButtonId.LIST_BOX, ToolbarButtonType.LIST_BOX);
+        tool(TOOL_ANNOTATION_ERASER_TOOL, null, ToolManager.ToolMode.INK_ERASER, Annot.e_Unknown, DefaultToolbars.ButtonId.ERASER, ToolbarButtonType.ERASER);
+        tool(TOOL_ANNOTATION_CREATE_FREE_HIGHLIGHTER, null, ToolManager.ToolMode.FREE_HIGHLIGHTER, AnnotStyle.CUSTOM_ANNOT_TYPE_FREE_HIGHLIGHTER, DefaultToolbars.ButtonId.FREE_HIGHLIGHT, ToolbarButtonType.FREE_HIGHLIGHT);
+        tool(TOOL_FORM_CREATE_TOOL_BOX_FIELD, null, null, Annot.e_Widget, null, null);
+        tool(BUTTON_UNDO, null, null, Annot.e_Unknown, DefaultToolbars.ButtonId.UNDO, ToolbarButtonType.UNDO);
+        tool(BUTTON_REDO, null, null, Annot.e_Unknown, DefaultToolbars.ButtonId.REDO, ToolbarButtonType.REDO);
+
+        // quick menu item id, name
+        quickMenu(R.id.qm_appearance, MENU_ID_STRING_STYLE);
+        quickMenu(R.id.qm_note, MENU_ID_STRING_NOTE);
+        quickMenu(R.id.qm_copy, MENU_ID_STRING_COPY);
+        quickMenu(R.id.qm_delete, MENU_ID_STRING_DELETE);
+        quickMenu(R.id.qm_flatten, MENU_ID_STRING_FLATTEN);
+        quickMenu(R.id.qm_text, MENU_ID_STRING_TEXT);
+        quickMenu(R.id.qm_edit, MENU_ID_STRING_EDIT_INK);
+        quickMenu(R.id.qm_search, MENU_ID_STRING_SEARCH);
+        quickMenu(R.id.qm_share, MENU_ID_STRING_SHARE);
+        quickMenu(R.id.qm_type, MENU_ID_STRING_MARKUP_TYPE);
+        quickMenu(R.id.qm_screencap_create, MENU_ID_STRING_SCREEN_CAPTURE);
+        quickMenu(R.id.qm_play_sound, MENU_ID_STRING_PLAY_SOUND);
+        quickMenu(R.id.qm_open_attachment, MENU_ID_STRING_OPEN_ATTACHMENT);
+        quickMenu(R.id.qm_tts, MENU_ID_STRING_READ);
+        quickMenu(R.id.qm_calibrate, MENU_ID_STRING_CALIBRATE);
+        quickMenu(R.id.qm_underline, MENU_ID_STRING_UNDERLINE);
+        quickMenu(R.id.qm_redact, MENU_ID_STRING_REDACT);
+        quickMenu(R.id.qm_redaction, MENU_ID_STRING_REDACTION);
+        quickMenu(R.id.qm_strikeout, MENU_ID_STRING_STRIKEOUT);
+        quickMenu(R.id.qm_squiggly, MENU_ID_STRING_SQUIGGLY);
+        quickMenu(R.id.qm_link, MENU_ID_STRING_LINK);
+        quickMenu(R.id.qm_highlight, MENU_ID_STRING_HIGHLIGHT);
+        quickMenu(R.id.qm_floating_sig, MENU_ID_STRING_SIGNATURE);
+        quickMenu(R.id.qm_rectangle, MENU_ID_STRING_RECTANGLE);
+        quickMenu(R.id.qm_line, MENU_ID_STRING_LINE);
+        quickMenu(R.id.qm_free_hand, MENU_ID_STRING_FREE_HAND);
+        quickMenu(R.id.qm_image_stamper, MENU_ID_STRING_IMAGE);
+        quickMenu(R.id.qm_form_text, MENU_ID_STRING_FORM_TEXT);
+        quickMenu(R.id.qm_sticky_note, MENU_ID_STRING_STICKY_NOTE);
+        quickMenu(R.id.qm_overflow, MENU_ID_STRING_OVERFLOW);
+        quickMenu(R.id.qm_ink_eraser, MENU_ID_STRING_ERASER);
+        quickMenu(R.id.qm_rubber_stamper, MENU_ID_STRING_STAMP);
+        quickMenu(R.id.qm_page_redaction, MENU_ID_STRING_PAGE_REDACTION);
+        quickMenu(R.id.qm_rect_redaction, MENU_ID_STRING_RECT_REDACTION);
+        quickMenu(R.id.qm_search_redaction, MENU_ID_STRING_SEARCH_REDACTION);
+        quickMenu(R.id.qm_shape, MENU_ID_STRING_SHAPE);
+        quickMenu(R.id.qm_cloud, MENU_ID_STRING_CLOUD);
+        quickMenu(R.id.qm_polygon, MENU_ID_STRING_POLYGON);
+        quickMenu(R.id.qm_polyline, MENU_ID_STRING_POLYLINE);
+        quickMenu(R.id.qm_free_highlighter, MENU_ID_STRING_FREE_HIGHLIGHTER);
+        quickMenu(R.id.qm_arrow, MENU_ID_STRING_ARROW);
+        quickMenu(R.id.qm_oval, MENU_ID_STRING_OVAL);
+        quickMenu(R.id.qm_callout, MENU_ID_STRING_CALLOUT);
+        quickMenu(R.id.qm_measurement, MENU_ID_STRING_MEASUREMENT);
+        quickMenu(R.id.qm_area_measure, MENU_ID_STRING_AREA_MEASUREMENT);
+        quickMenu(R.id.qm_perimeter_measure, MENU_ID_STRING_PERIMETER_MEASUREMENT);
+        quickMenu(R.id.qm_rect_area_measure, MENU_ID_STRING_RECT_AREA_MEASUREMENT);
+        quickMenu(R.id.qm_ruler, MENU_ID_STRING_RULER);
+        quickMenu(R.id.qm_form, MENU_ID_STRING_FORM);
+        quickMenu(R.id.qm_form_combo_box, MENU_ID_STRING_FORM_COMBO_BOX);
+        quickMenu(R.id.qm_form_list_box, MENU_ID_STRING_FORM_LIST_BOX);
+        quickMenu(R.id.qm_form_check_box, MENU_ID_STRING_FORM_CHECK_BOX);
+        quickMenu(R.id.qm_form_signature, MENU_ID_STRING_FORM_SIGNATURE);
+        quickMenu(R.id.qm_form_radio_group, MENU_ID_STRING_FORM_RADIO_GROUP);
+        quickMenu(R.id.qm_attach, MENU_ID_STRING_ATTACH);
+        quickMenu(R.id.qm_file_attachment, MENU_ID_STRING_FILE_ATTACHMENT);
+        quickMenu(R.id.qm_sound, MENU_ID_STRING_SOUND);
+        quickMenu(R.id.qm_free_text, MENU_ID_STRING_FREE_TEXT);
+        quickMenu(R.id.qm_crop, MENU_ID_STRING_CROP);
+        quickMenu(R.id.qm_crop_ok, MENU_ID_STRING_CROP_OK);
+        quickMenu(R.id.qm_crop_cancel, MENU_ID_STRING_CROP_CANCEL);
+        quickMenu(R.id.qm_define, MENU_ID_STRING_DEFINE);
+        quickMenu(R.id.qm_field_signed, MENU_ID_STRING_FIELD_SIGNED);
+        quickMenu(R.id.qm_first_row_group, MENU_ID_STRING_FIRST_ROW_GROUP);
+        quickMenu(R.id.qm_second_row_group, MENU_ID_STRING_SECOND_ROW_GROUP);
+        quickMenu(R.id.qm_group, MENU_ID_STRING_GROUP);
+        quickMenu(R.id.qm_paste, MENU_ID_STRING_PASTE);
+        quickMenu(R.id.qm_rect_group_select, MENU_ID_STRING_RECT_GROUP_SELECT);
+        quickMenu(R.id.qm_sign_and_save, MENU_ID_STRING_SIGN_AND_SAVE);
+        quickMenu(R.id.qm_thickness, MENU_ID_STRING_THICKNESS);
+        quickMenu(R.id.qm_translate, MENU_ID_STRING_TRANSLATE);
+        quickMenu(R.id.qm_type, MENU_ID_STRING_TYPE);
+        quickMenu(R.id.qm_ungroup, MENU_ID_STRING_UNGROUP);
+    }
+
+    private IdentifierRegistry() {
+    }
+
+    /**
+     * @param alias another name for the same tool, not used for the reverse lookup
+     */
+    private static void tool(@NonNull String name, @Nullable String alias, @Nullable ToolManager.ToolMode toolMode,
+            int annotType, @Nullable DefaultToolbars.ButtonId buttonId, @Nullable ToolbarButtonType buttonType) {
+        Tool tool = new Tool(toolMode, annotType, buttonId, buttonType);
+        if (sTools.put(name, tool) != null || (alias != null && sTools.put(alias, tool) != null)) {
+            throw new IllegalStateException("Duplicate tool " + name);
+        }
+        if (toolMode != null && sToolModeNames.put(toolMode, name) != null) {
+            throw new IllegalStateException("Duplicate tool mode " + toolMode);
+        }
+    }
+
+    /**
+     * Several names can share an id, the first one is used for the id.
+     */
+    private static void quickMenu(int id, @NonNull String name) {
+        if (!sQuickMenuNames.containsKey(id)) {
+            sQuickMenuNames.put(id, name);
+        }
+        if (sQuickMenuIds.put(name, id) != null) {
+            throw new IllegalStateException("Duplicate quick menu item " + name);
+        }
+    }
+
+    @Nullable
+    public static ToolManager.ToolMode convStringToToolMode(@Nullable String item) {
+        Tool tool = sTools.get(item);
+        return tool != null ? tool.toolMode : null;
+    }
+
+    @Nullable
+    public static String convToolModeToString(@Nullable ToolManager.ToolMode toolMode) {
+        return toolMode != null ? sToolModeNames.get(toolMode) : null;
+    }
+
+    public static int convStringToAnnotType(@Nullable String item) {
+        Tool tool = sTools.get(item);
+        return tool != null ? tool.annotType : Annot.e_Unknown;
+    }
+
+    /**
+     * @return the id of the toolbar button, 0 if there is none
+     */
+    public static int convStringToButtonId(@Nullable String item) {
+        Tool tool = sTools.get(item);
+        return tool != null ? tool.buttonId : 0;
+    }
+
+    @Nullable
+    public static ToolbarButtonType convStringToToolbarType(@Nullable String item) {
+        Tool tool = sTools.get(item);
+        return tool != null ? tool.buttonType : null;
+    }
+
+    @Nullable
+    public static String convQuickMenuIdToString(int id) {
+        return sQuickMenuNames.get(id);
+    }
+
+    /**
+     * @return the id of the quick menu item, 0 if there is none
+     */
+    public static int convStringToQuickMenuId(@Nullable String item) {
+        Integer id = sQuickMenuIds.get(item);
+        return id != null ? id : 0;
+    }
+}
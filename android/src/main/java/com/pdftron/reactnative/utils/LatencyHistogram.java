@@ -0,0 +1,72 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_COUNT;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_MAX;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_MEAN;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_P50;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_P95;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_P99;
+
+/**
+ * Durations in power of two buckets of microseconds, so that recording is constant time and
+ * constant memory. Percentiles are the upper bound of the bucket they fall in, capped at the
+ * maximum.
+ */
+class LatencyHistogram {
+
+    // bucket i holds durations below 2^i microseconds, the last one everything above
+    private static final int BUCKET_COUNT = 32;
+
+    private final long[] mBuckets = new long[BUCKET_COUNT];
+    private long mCount;
+    private long mSumNanos;
+    private long mMaxNanos;
+
+    synchronized void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        long micros = nanos / 1000;
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        mBuckets[bucket]++;
+        mCount++;
+        mSumNanos += nanos;
+        mMaxNanos = Math.max(mMaxNanos, nanos);
+    }
+
+    /**
+     * @return the count, and the mean, percentiles and maximum in milliseconds
+     */
+    @NonNull
+    synchronized HashMap<String, Double> snapshot() {
+        HashMap<String, Double> snapshot = new HashMap<>();
+        snapshot.put(KEY_METRIC_COUNT, (double) mCount);
+        snapshot.put(KEY_METRIC_MEAN, mCount > 0 ? toMillis(mSumNanos) / mCount : 0);
+        snapshot.put(KEY_METRIC_P50, percentile(0.5));
+        snapshot.put(KEY_METRIC_P95, percentile(0.95));
+        snapshot.put(KEY_METRIC_P99, percentile(0.99));
+        snapshot.put(KEY_METRIC_MAX, toMillis(mMaxNanos));
+        return snapshot;
+    }
+
+    private double percentile(double p) {
+        if (0 == mCount) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p * mCount);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets[i];
+            if (seen >= rank) {
+                return Math.min(toMillis((1L << i) * 1000), toMillis(mMaxNanos));
+            }
+        }
+        return toMillis(mMaxNanos);
+    }
+
+    static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
@@ -0,0 +1,156 @@
+package com.pdftron.reactnative.utils;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pdftron.pdf.utils.AppUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_INIT_ALREADY_INITIALIZED;
+import static com.pdftron.reactnative.utils.Constants.KEY_INIT_DURATION;
+import static com.pdftron.reactnative.utils.Constants.KEY_INIT_LIBRARY_LOAD_DURATION;
+import static com.pdftron.reactnative.utils.Constants.KEY_INIT_RESOURCES_DURATION;
+
+/**
+ * Initializes PDFNet once per process on a background thread. Initialization outlives the
+ * React instance, so calling it again after a reload only reports the earlier result.
+ * A failed initialization can be retried.
+ */
+public class PDFNetInitializer {
+
+    public interface Callback {
+        /**
+         * @param stats durations in milliseconds, null if initialization failed
+         */
+        void onInitialized(@Nullable HashMap<String, Object> stats, @Nullable Exception error);
+    }
+
+    private static final String PDFNET_CLASS = "com.pdftron.pdf.PDFNet";
+
+    private static final ExecutorService sInitExecutor = Executors.newSingleThreadExecutor();
+
+    private static final Object sLock = new Object();
+    private static final ArrayList<Callback> sCallbacks = new ArrayList<>();
+
+    // guarded by sLock
+    private static CountDownLatch sLatch;
+    private static HashMap<String, Object> sStats;
+
+    /**
+     * Starts initialization unless it was started already, the callback is called on
+     * the initializing thread once it is done, or right away if it is done already.
+     */
+    public static void initialize(@NonNull Context context, @NonNull final String key, @NonNull Callback callback) {
+        final Context appContext = context.getApplicationContext();
+        HashMap<String, Object> stats = null;
+        synchronized (sLock) {
+            if (sStats != null) {
+                stats = new HashMap<>(sStats);
+                stats.put(KEY_INIT_ALREADY_INITIALIZED, true);
+            } else {
+                sCallbacks.add(callback);
+                if (sLatch != null) {
+                    // in progress
+                    return;
+                }
+                sLatch = new CountDownLatch(1);
+                sInitExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        initializeNow(appContext, key);
+                    }
+                });
+            }
+        }
+        if (stats != null) {
+            callback.onInitialized(stats, null);
+        }
+    }
+
+    /**
+     * Calls the callback on the initializing thread once an initialization in progress is done,
+     * for callers that must not block.
+     *
+     * @return whether an initialization is in progress, the callback is not called otherwise
+     */
+    public static boolean notifyWhenInitialized(@NonNull Callback callback) {
+        synchronized (sLock) {
+            if (null == sLatch || sStats != null) {
+                return false;
+            }
+            sCallbacks.add(callback);
+            return true;
+        }
+    }
+
+    /**
+     * Blocks until an initialization in progress is done. Returns right away if none was
+     * started, so that apps initializing PDFNet themselves are not held up.
+     *
+     * @return whether PDFNet was initialized by this class
+     */
+    public static boolean awaitInitialized(long timeoutMs) {
+        CountDownLatch latch;
+        synchronized (sLock) {
+            latch = sLatch;
+        }
+        if (latch != null) {
+            try {
+                latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (sLock) {
+            return sStats != null;
+        }
+    }
+
+    private static void initializeNow(@NonNull Context context, @NonNull String key) {
+        HashMap<String, Object> stats = null;
+        Exception error = null;
+        try {
+            long start = SystemClock.elapsedRealtime();
+            // loads the native library, the rest of the time is spent on license check and resources
+            Class.forName(PDFNET_CLASS);
+            long libraryLoaded = SystemClock.elapsedRealtime();
+            AppUtils.initializePDFNetApplication(context, key);
+            long end = SystemClock.elapsedRealtime();
+
+            stats = new HashMap<>();
+            stats.put(KEY_INIT_DURATION, (double) (end - start));
+            stats.put(KEY_INIT_LIBRARY_LOAD_DURATION, (double) (libraryLoaded - start));
+            stats.put(KEY_INIT_RESOURCES_DURATION, (double) (end - libraryLoaded));
+            stats.put(KEY_INIT_ALREADY_INITIALIZED, false);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            error = ex;
+        }
+
+        ArrayList<Callback> callbacks;
+        CountDownLatch latch;
+        synchronized (sLock) {
+            sStats = stats;
+            latch = sLatch;
+            if (null == stats) {
+                // allow a retry
+                sLatch = null;
+            }
+            callbacks = new ArrayList<>(sCallbacks);
+            sCallbacks.clear();
+        }
+        latch.countDown();
+        for (Callback callback : callbacks) {
+            callback.onInitialized(stats != null ? new HashMap<>(stats) : null, error);
+        }
+    }
+}
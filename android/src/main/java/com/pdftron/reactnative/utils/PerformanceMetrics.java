@@ -0,0 +1,135 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_EXECUTION;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_LOCK_WAIT;
+import static com.pdftron.reactnative.utils.Constants.KEY_METRIC_QUEUE_WAIT;
+
+/**
+ * Latency histograms of the native module methods, split into the time a call waited to run,
+ * the time it waited for the document lock and the time it spent working. Off by default,
+ * when off a tracked call costs a single volatile read.
+ */
+public class PerformanceMetrics {
+
+    private static class MethodMetrics {
+        final LatencyHistogram queueWait = new LatencyHistogram();
+        final LatencyHistogram lockWait = new LatencyHistogram();
+        final LatencyHistogram execution = new LatencyHistogram();
+    }
+
+    // the tracked call running on a thread
+    private static class Call {
+        long lockWaitNanos;
+    }
+
+    private static volatile boolean sEnabled;
+
+    private static final ConcurrentHashMap<String, MethodMetrics> sMetrics = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Call> sCurrentCall = new ThreadLocal<>();
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * @return the task, recording its time in the queue from now until it runs, and its
+     * lock wait and execution time once it runs
+     */
+    @NonNull
+    public static Runnable track(@NonNull final String method, @NonNull final Runnable task) {
+        if (!sEnabled) {
+            return task;
+        }
+        final long queued = System.nanoTime();
+        return new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                Call previous = sCurrentCall.get();
+                Call call = new Call();
+                sCurrentCall.set(call);
+                try {
+                    task.run();
+                } finally {
+                    sCurrentCall.set(previous);
+                    long end = System.nanoTime();
+                    MethodMetrics metrics = getMetrics(method);
+                    metrics.queueWait.record(start - queued);
+                    metrics.lockWait.record(call.lockWaitNanos);
+                    metrics.execution.record(end - start - call.lockWaitNanos);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the start time to pass to {@link #recordExecution}, 0 when disabled
+     */
+    public static long start() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since start for a call that does not go through a queue.
+     */
+    public static void recordExecution(@NonNull String method, long start) {
+        if (0 == start || !sEnabled) {
+            return;
+        }
+        getMetrics(method).execution.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the wait for the document lock towards the tracked call on this thread, if any.
+     */
+    static void recordLockWait(long nanos) {
+        Call call = sCurrentCall.get();
+        if (call != null) {
+            call.lockWaitNanos += nanos;
+        }
+    }
+
+    /**
+     * @return for each method, the count, mean, percentiles and maximum in milliseconds of
+     * its queue wait, lock wait and execution time
+     */
+    @NonNull
+    public static HashMap<String, HashMap<String, HashMap<String, Double>>> snapshot() {
+        HashMap<String, HashMap<String, HashMap<String, Double>>> snapshot = new HashMap<>();
+        for (Map.Entry<String, MethodMetrics> entry : sMetrics.entrySet()) {
+            HashMap<String, HashMap<String, Double>> method = new HashMap<>();
+            method.put(KEY_METRIC_QUEUE_WAIT, entry.getValue().queueWait.snapshot());
+            method.put(KEY_METRIC_LOCK_WAIT, entry.getValue().lockWait.snapshot());
+            method.put(KEY_METRIC_EXECUTION, entry.getValue().execution.snapshot());
+            snapshot.put(entry.getKey(), method);
+        }
+        return snapshot;
+    }
+
+    public static void reset() {
+        sMetrics.clear();
+    }
+
+    @NonNull
+    private static MethodMetrics getMetrics(@NonNull String method) {
+        MethodMetrics metrics = sMetrics.get(method);
+        if (null == metrics) {
+            metrics = new MethodMetrics();
+            MethodMetrics existing = sMetrics.putIfAbsent(method, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        return metrics;
+    }
+}
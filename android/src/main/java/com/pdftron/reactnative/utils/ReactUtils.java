@@ -4,12 +4,14 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.net.Uri;
 import android.util.Base64;
+import android.util.Base64OutputStream;
 import android.util.Log;
 import android.webkit.URLUtil;
 
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.UiThreadUtil;
 import com.pdftron.pdf.utils.Utils;
 
 import org.apache.commons.io.FilenameUtils;
@@ -19,29 +21,31 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLEncoder;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 public class ReactUtils {
 
     private static final String TAG = ReactUtils.class.getName();
 
+    private static final int BASE64_BUFFER_SIZE = 64 * 1024;
+    // a multiple of the 57 bytes that make up one line of Base64.DEFAULT output
+    private static final int BASE64_ENCODE_BLOCK_SIZE = 57 * 1024;
+
     public static Uri getUri(Context context, String path, boolean isBase64) {
         if (context == null || path == null) {
             return null;
         }
         try {
             if (isBase64) {
-                byte[] data = Base64.decode(path, Base64.DEFAULT);
-                File tempFile = File.createTempFile("tmp", ".pdf");
-                FileOutputStream fos = null;
-                try {
-                    fos = new FileOutputStream(tempFile);
-                    IOUtils.write(data, fos);
-                    return Uri.fromFile(tempFile);
-                } finally {
-                    IOUtils.closeQuietly(fos);
-                }
+                // cached by content, released by the caller through DocumentCache
+                return Uri.fromFile(DocumentCache.getInstance(context).acquireBase64(path));
             }
             Uri fileUri = Uri.parse(path);
             if (ContentResolver.SCHEME_ANDROID_RESOURCE.equals(fileUri.getScheme())) {
@@ -50,9 +54,9 @@ public class ReactUtils {
                 String resName = FilenameUtils.removeExtension(resNameWithExtension);
                 int resId = Utils.getResourceRaw(context, resName);
                 if (resId != 0) {
-                    File file = Utils.copyResourceToLocal(context, resId,
+                    File file = DocumentCache.getInstance(context).acquireResource(context, resId,
                             resName, "." + extension);
-                    if (null != file && file.exists()) {
+                    if (file.exists()) {
                         fileUri = Uri.fromFile(file);
                     }
                 }
@@ -77,6 +81,73 @@ public class ReactUtils {
         return null;
     }
 
+    /**
+     * Decodes the base64 string into the given file a small buffer at a time, so that the
+     * decoded data is never held in memory as a whole.
+     */
+    public static void decodeBase64ToFile(String base64, File file) throws IOException {
+        OutputStream os = null;
+        try {
+            os = new Base64OutputStream(new FileOutputStream(file), Base64.DEFAULT, false);
+            byte[] buffer = new byte[BASE64_BUFFER_SIZE];
+            int length = base64.length();
+            for (int start = 0; start < length; start += buffer.length) {
+                int count = Math.min(buffer.length, length - start);
+                for (int i = 0; i < count; i++) {
+                    // base64 is ascii, no charset conversion needed
+                    buffer[i] = (byte) base64.charAt(start + i);
+                }
+                os.write(buffer, 0, count);
+            }
+            os.close();
+            os = null;
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    /**
+     * Encodes the file as base64 into the given output file without holding either in memory.
+     * The output has no line breaks.
+     */
+    public static void encodeFileToBase64(File file, File output) throws IOException {
+        InputStream is = null;
+        OutputStream os = null;
+        try {
+            is = new FileInputStream(file);
+            os = new Base64OutputStream(new FileOutputStream(output), Base64.NO_WRAP);
+            IOUtils.copyLarge(is, os, new byte[BASE64_BUFFER_SIZE]);
+            os.close();
+            os = null;
+        } finally {
+            IOUtils.closeQuietly(is);
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    /**
+     * Encodes the file as base64 a block at a time, the result is the same as
+     * {@code Base64.encodeToString(data, Base64.DEFAULT)} without reading the whole file first.
+     */
+    public static String encodeFileToBase64(File file) throws IOException {
+        // 4 characters for every 3 bytes, plus a line break for every 57 bytes
+        long length = file.length();
+        StringBuilder builder = new StringBuilder((int) Math.min(Integer.MAX_VALUE, (length + 2) / 3 * 4 + length / 57 + 1));
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            byte[] buffer = new byte[BASE64_ENCODE_BLOCK_SIZE];
+            int read = IOUtils.read(is, buffer);
+            while (read > 0) {
+                builder.append(Base64.encodeToString(buffer, 0, read, Base64.DEFAULT));
+                read = IOUtils.read(is, buffer);
+            }
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        return builder.toString();
+    }
+
     public static JSONObject convertMapToJson(ReadableMap readableMap) throws JSONException {
         JSONObject object = new JSONObject();
         ReadableMapKeySetIterator iterator = readableMap.keySetIterator();
@@ -131,4 +202,33 @@ public class ReactUtils {
         }
         return array;
     }
+
+    /**
+     * Runs the given task on the UI thread and blocks the calling thread until it completes.
+     * An exception thrown by the task is rethrown on the calling thread.
+     * Must not be called while holding the document lock.
+     */
+    public static void runOnUiThreadAndWait(Runnable task) {
+        if (UiThreadUtil.isOnUiThread()) {
+            task.run();
+            return;
+        }
+        FutureTask<Void> futureTask = new FutureTask<>(task, null);
+        UiThreadUtil.runOnUiThread(futureTask);
+        try {
+            futureTask.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            // surface the failure of the task to the caller as if it had run on this thread
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
 }
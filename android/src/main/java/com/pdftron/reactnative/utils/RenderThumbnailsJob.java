@@ -0,0 +1,227 @@
+package com.pdftron.reactnative.utils;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.PDFDraw;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Renders page thumbnails of a local document in the background. Thumbnails are kept in a disk
+ * cache keyed by a fingerprint of the document file (path, size and modification time), the
+ * page number and the size, so that a document is only opened when one of its thumbnails is
+ * missing. The least recently used thumbnails are evicted once the cache grows beyond its
+ * size limit.
+ */
+public class RenderThumbnailsJob implements Runnable {
+
+    public static final String ERROR_DOCUMENT = "document";
+    public static final String ERROR_RENDER = "render";
+
+    private static final String CACHE_DIR = "pdftron_thumbnails";
+    private static final String SUFFIX_PARTIAL = ".part";
+    private static final long MAX_CACHE_SIZE = 64L * 1024 * 1024;
+    private static final int JPEG_QUALITY = 85;
+    private static final long INITIALIZE_TIMEOUT_MS = 10000;
+
+    public interface Listener {
+        /**
+         * @param paths for each requested page, the thumbnail file, null if the page does not exist
+         */
+        void onComplete(@NonNull RenderThumbnailsJob job, @NonNull String[] paths);
+
+        void onError(@NonNull RenderThumbnailsJob job, @NonNull String code, @NonNull String message);
+
+        void onCancelled(@NonNull RenderThumbnailsJob job);
+    }
+
+    private final String mJobId;
+    private final File mCacheDir;
+    private final String mFilePath;
+    private final int[] mPages;
+    private final int mMaxSize;
+    private final Listener mListener;
+
+    private volatile boolean mCancelled;
+
+    public RenderThumbnailsJob(@NonNull String jobId, @NonNull File cacheDir, @NonNull String path,
+            @NonNull int[] pages, int maxSize, @NonNull Listener listener) {
+        mJobId = jobId;
+        mCacheDir = new File(cacheDir, CACHE_DIR);
+        Uri uri = Uri.parse(path);
+        mFilePath = ContentResolver.SCHEME_FILE.equals(uri.getScheme()) ? uri.getPath() : path;
+        mPages = pages;
+        mMaxSize = maxSize;
+        mListener = listener;
+    }
+
+    public String getJobId() {
+        return mJobId;
+    }
+
+    /**
+     * Requests cancellation, takes effect before the next page is rendered.
+     * Thumbnails rendered so far are kept in the cache.
+     */
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    @Override
+    public void run() {
+        PDFDoc pdfDoc = null;
+        PDFDraw pdfDraw = null;
+        boolean shouldUnlockRead = false;
+        try {
+            if (mCancelled) {
+                mListener.onCancelled(this);
+                return;
+            }
+            PDFNetInitializer.awaitInitialized(INITIALIZE_TIMEOUT_MS);
+            File file = new File(mFilePath);
+            if (!file.isFile()) {
+                mListener.onError(this, ERROR_DOCUMENT, "Unable to find document " + mFilePath);
+                return;
+            }
+            mCacheDir.mkdirs();
+            String fingerprint = DocumentCache.hash(file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified());
+
+            String[] paths = new String[mPages.length];
+            boolean written = false;
+            for (int i = 0; i < mPages.length; i++) {
+                if (mCancelled) {
+                    mListener.onCancelled(this);
+                    return;
+                }
+                File thumbnail = new File(mCacheDir, fingerprint + "-" + mPages[i] + "-" + mMaxSize + ".jpg");
+                if (thumbnail.exists()) {
+                    // keeps it from being evicted as least recently used
+                    thumbnail.setLastModified(System.currentTimeMillis());
+                    paths[i] = thumbnail.getAbsolutePath();
+                    continue;
+                }
+                if (null == pdfDoc) {
+                    pdfDoc = new PDFDoc(mFilePath);
+                    if (!pdfDoc.initSecurityHandler()) {
+                        mListener.onError(this, ERROR_DOCUMENT, "Unable to open password protected document.");
+                        return;
+                    }
+                    pdfDoc.lockRead();
+                    shouldUnlockRead = true;
+                    pdfDraw = new PDFDraw();
+                    pdfDraw.setImageSize(mMaxSize, mMaxSize, true);
+                }
+                if (mPages[i] < 1 || mPages[i] > pdfDoc.getPageCount()) {
+                    continue;
+                }
+                Bitmap bitmap = pdfDraw.getBitmap(pdfDoc.getPage(mPages[i]));
+                if (null == bitmap) {
+                    continue;
+                }
+                try {
+                    write(bitmap, thumbnail);
+                } finally {
+                    bitmap.recycle();
+                }
+                written = true;
+                paths[i] = thumbnail.getAbsolutePath();
+            }
+            if (written) {
+                trim(mCacheDir);
+            }
+            mListener.onComplete(this, paths);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            mListener.onError(this, ERROR_RENDER, ex.getMessage() != null ? ex.getMessage() : "Unable to render thumbnails.");
+        } finally {
+            if (shouldUnlockRead) {
+                try {
+                    pdfDoc.unlockRead();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (pdfDraw != null) {
+                try {
+                    pdfDraw.destroy();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (pdfDoc != null) {
+                try {
+                    pdfDoc.close();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Written to a partial file first, so that a thumbnail in the cache is always complete,
+     * also when another job renders the same one.
+     */
+    private static void write(@NonNull Bitmap bitmap, @NonNull File thumbnail) throws IOException {
+        File partial = File.createTempFile(thumbnail.getName(), SUFFIX_PARTIAL, thumbnail.getParentFile());
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(partial);
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, os)) {
+                throw new IOException("Unable to encode thumbnail.");
+            }
+            os.close();
+            os = null;
+            if (!partial.renameTo(thumbnail)) {
+                throw new IOException("Unable to write " + thumbnail.getPath());
+            }
+        } finally {
+            IOUtils.closeQuietly(os);
+            partial.delete();
+        }
+    }
+
+    private static synchronized void trim(@NonNull File cacheDir) {
+        File[] files = cacheDir.listFiles();
+        if (null == files) {
+            return;
+        }
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= MAX_CACHE_SIZE) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (size <= MAX_CACHE_SIZE) {
+                break;
+            }
+            if (file.getName().endsWith(SUFFIX_PARTIAL)) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs submitted tasks one at a time, in submission order, on top of a shared executor.
+ * Tasks of different {@link SerialExecutor} instances may run in parallel.
+ * A task can be given its own executor, e.g. the UI thread, so that no thread of the shared
+ * executor is held while it waits there.
+ */
+public class SerialExecutor implements Executor {
+
+    private final Executor mExecutor;
+    private final ArrayDeque<Task> mTasks = new ArrayDeque<>();
+    private Task mActive;
+
+    private static class Task {
+        final Executor executor;
+        final Runnable runnable;
+
+        Task(Executor executor, Runnable runnable) {
+            this.executor = executor;
+            this.runnable = runnable;
+        }
+    }
+
+    public SerialExecutor(@NonNull Executor executor) {
+        mExecutor = executor;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        execute(mExecutor, task);
+    }
+
+    /**
+     * Runs the task on the given executor, in order with the other tasks.
+     */
+    public synchronized void execute(@NonNull Executor executor, @NonNull final Runnable task) {
+        mTasks.offer(new Task(executor, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            }
+        }));
+        if (mActive == null) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * @return true if no task is waiting to run; the task that is running does not count
+     */
+    public synchronized boolean isEmpty() {
+        return mTasks.isEmpty();
+    }
+
+    private synchronized void scheduleNext() {
+        mActive = mTasks.poll();
+        if (mActive != null) {
+            mActive.executor.execute(mActive.runnable);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.pdftron.reactnative.utils;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Coalesces page and zoom changes so that at most one event of each kind is sent per frame,
+ * or per throttle interval when one is set. Pending changes are always delivered eventually,
+ * so the last value of a gesture is never lost. All methods must be called on the UI thread.
+ */
+public class ViewportEventCoalescer implements Choreographer.FrameCallback {
+
+    public interface Listener {
+        void onPageChanged(int previousPage, int currentPage);
+
+        void onZoomChanged(double zoom);
+    }
+
+    private final Listener mListener;
+
+    private long mThrottleMs;
+    private long mLastDispatchMs;
+    private boolean mFrameScheduled;
+
+    private boolean mPagePending;
+    private int mPreviousPage;
+    private int mCurrentPage;
+
+    private boolean mZoomPending;
+    private double mZoom;
+
+    public ViewportEventCoalescer(@NonNull Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @param throttleMs minimum interval between two events, 0 to send at most once per frame
+     */
+    public void setThrottle(long throttleMs) {
+        mThrottleMs = Math.max(0, throttleMs);
+    }
+
+    public void onPageChanged(int previousPage, int currentPage) {
+        if (!mPagePending) {
+            // keep the page the gesture started from
+            mPreviousPage = previousPage;
+            mPagePending = true;
+        }
+        mCurrentPage = currentPage;
+        scheduleFrame();
+    }
+
+    public void onZoomChanged(double zoom) {
+        mZoom = zoom;
+        mZoomPending = true;
+        scheduleFrame();
+    }
+
+    /**
+     * Sends pending events right away, used when a gesture ends.
+     */
+    public void flush() {
+        if (mFrameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            mFrameScheduled = false;
+        }
+        dispatch();
+    }
+
+    /**
+     * Drops pending events.
+     */
+    public void cancel() {
+        if (mFrameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            mFrameScheduled = false;
+        }
+        mPagePending = false;
+        mZoomPending = false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        if (mThrottleMs > 0 && SystemClock.uptimeMillis() - mLastDispatchMs < mThrottleMs) {
+            scheduleFrame();
+            return;
+        }
+        dispatch();
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void dispatch() {
+        if (!mPagePending && !mZoomPending) {
+            return;
+        }
+        mLastDispatchMs = SystemClock.uptimeMillis();
+        if (mPagePending) {
+            mPagePending = false;
+            mListener.onPageChanged(mPreviousPage, mCurrentPage);
+        }
+        if (mZoomPending) {
+            mZoomPending = false;
+            mListener.onZoomChanged(mZoom);
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package com.pdftron.reactnative.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.pdftron.common.PDFNetException;
+import com.pdftron.fdf.FDFDoc;
+import com.pdftron.pdf.Annot;
+import com.pdftron.pdf.PDFDoc;
+import com.pdftron.pdf.Page;
+import com.pdftron.pdf.annots.Markup;
+import com.pdftron.sdf.DictIterator;
+import com.pdftron.sdf.Obj;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+/**
+ * A parsed XFDF command that is applied to the pages it references only, instead of
+ * extracting and updating the annotations of the whole document.
+ * Commands that carry form field data, widgets or pdf-info are applied through a full
+ * merge, as their effect is not limited to single annotations.
+ * Modified annotations are updated in place, keeping their position and identity; they are
+ * only replaced if their type or page changes. An added annotation whose id is already in the
+ * document, e.g. from a command that is echoed back, replaces that annotation.
+ * A command that fails is rolled back as a whole.
+ */
+public class XfdfCommand {
+
+    private static final String TAG = XfdfCommand.class.getSimpleName();
+
+    private static final String XFDF_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>"
+            + "<xfdf xmlns=\"http://ns.adobe.com/xfdf/\" xml:space=\"preserve\"><annots>";
+    private static final String XFDF_FOOTER = "</annots></xfdf>";
+
+    private static final String ELEMENT_ADD = "add";
+    private static final String ELEMENT_MODIFY = "modify";
+    private static final String ELEMENT_DELETE = "delete";
+    private static final String ELEMENT_FIELDS = "fields";
+    private static final String ELEMENT_PDF_INFO = "pdf-info";
+    private static final String ELEMENT_WIDGET = "widget";
+    private static final String ATTR_PAGE = "page";
+    private static final String ATTR_NAME = "name";
+    private static final String DOCTYPE = "<!DOCTYPE";
+    private static final Pattern EMPTY_DELETE = Pattern.compile("<" + ELEMENT_DELETE + "\\s*/>");
+
+    // entries that tie an annotation to its page and other annotations, never taken from a modify
+    private static final HashSet<String> KEPT_KEYS = new HashSet<>(Arrays.asList(
+            "P", "Page", "Parent", "Popup", "IRT"));
+
+    private static class AnnotRef {
+        final int pageNum;
+        final String id;
+        @Nullable
+        final String xfdf;
+
+        AnnotRef(int pageNum, String id, @Nullable String xfdf) {
+            this.pageNum = pageNum;
+            this.id = id;
+            this.xfdf = xfdf;
+        }
+    }
+
+    /**
+     * A change made to the document while a command is applied, undone if a later step fails.
+     */
+    interface Change {
+        void undo() throws PDFNetException;
+    }
+
+    private final String mXfdfCommand;
+    private final ArrayList<AnnotRef> mAdded = new ArrayList<>();
+    private final ArrayList<AnnotRef> mDeleted = new ArrayList<>();
+    private final ArrayList<AnnotRef> mModified = new ArrayList<>();
+    private final StringBuilder mAnnots = new StringBuilder();
+    private final StringBuilder mModifiedAnnots = new StringBuilder();
+    private final HashSet<Integer> mMergedPages = new HashSet<>();
+    private boolean mRequiresFullMerge;
+
+    private XfdfCommand(@NonNull String xfdfCommand) {
+        mXfdfCommand = xfdfCommand;
+    }
+
+    public static XfdfCommand parse(@NonNull String xfdfCommand) throws Exception {
+        XfdfCommand command = new XfdfCommand(xfdfCommand);
+
+        // xfdf has no document type, one is only there to declare entities
+        if (xfdfCommand.contains(DOCTYPE)) {
+            throw new PDFNetException("", 0L, TAG, "parse", "DOCTYPE is not allowed in an XFDF command.");
+        }
+        DocumentBuilder builder = newDocumentBuilder();
+        Document document = builder.parse(new InputSource(new StringReader(xfdfCommand)));
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+
+        NodeList sections = document.getDocumentElement().getChildNodes();
+        for (int i = 0; i < sections.getLength(); i++) {
+            Node section = sections.item(i);
+            if (section.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            String name = section.getNodeName();
+            if (ELEMENT_ADD.equals(name) || ELEMENT_MODIFY.equals(name)) {
+                NodeList annots = section.getChildNodes();
+                for (int j = 0; j < annots.getLength(); j++) {
+                    Node node = annots.item(j);
+                    if (node.getNodeType() != Node.ELEMENT_NODE) {
+                        continue;
+                    }
+                    Element annot = (Element) node;
+                    if (ELEMENT_WIDGET.equals(annot.getNodeName())) {
+                        command.mRequiresFullMerge = true;
+                        return command;
+                    }
+                    StringWriter writer = new StringWriter();
+                    transformer.transform(new DOMSource(annot), new StreamResult(writer));
+                    String xfdf = writer.toString();
+                    if (ELEMENT_MODIFY.equals(name)) {
+                        command.mModified.add(new AnnotRef(getPageNum(annot), annot.getAttribute(ATTR_NAME), xfdf));
+                        command.mModifiedAnnots.append(xfdf);
+                    } else {
+                        command.mAdded.add(new AnnotRef(getPageNum(annot), annot.getAttribute(ATTR_NAME), xfdf));
+                        command.mMergedPages.add(getPageNum(annot));
+                        command.mAnnots.append(xfdf);
+                    }
+                }
+            } else if (ELEMENT_DELETE.equals(name)) {
+                NodeList ids = section.getChildNodes();
+                for (int j = 0; j < ids.getLength(); j++) {
+                    Node node = ids.item(j);
+                    if (node.getNodeType() == Node.ELEMENT_NODE) {
+                        command.mDeleted.add(new AnnotRef(getPageNum((Element) node), node.getTextContent().trim(), null));
+                    }
+                }
+            } else if ((ELEMENT_FIELDS.equals(name) || ELEMENT_PDF_INFO.equals(name)) && hasElementChild(section)) {
+                command.mRequiresFullMerge = true;
+                return command;
+            }
+        }
+        return command;
+    }
+
+    public boolean requiresFullMerge() {
+        return mRequiresFullMerge;
+    }
+
+    /**
+     * @return the content of the delete element of the XFDF command, empty if there is none
+     */
+    @NonNull
+    public static String getDeletes(@NonNull String xfdfCommand) {
+        String open = "<" + ELEMENT_DELETE + ">";
+        int start = xfdfCommand.indexOf(open);
+        if (start < 0) {
+            return "";
+        }
+        start += open.length();
+        int end = xfdfCommand.indexOf("</" + ELEMENT_DELETE + ">", start);
+        return end < 0 ? "" : xfdfCommand.substring(start, end);
+    }
+
+    /**
+     * @param deletes content of delete elements, see {@link #getDeletes(String)}
+     * @return the XFDF command with the deletes appended to its delete element
+     */
+    @NonNull
+    public static String appendDeletes(@NonNull String xfdfCommand, @NonNull String deletes) {
+        if (deletes.isEmpty()) {
+            return xfdfCommand;
+        }
+        int end = xfdfCommand.indexOf("</" + ELEMENT_DELETE + ">");
+        if (end >= 0) {
+            return xfdfCommand.substring(0, end) + deletes + xfdfCommand.substring(end);
+        }
+        String element = "<" + ELEMENT_DELETE + ">" + deletes + "</" + ELEMENT_DELETE + ">";
+        Matcher empty = EMPTY_DELETE.matcher(xfdfCommand);
+        if (empty.find()) {
+            return xfdfCommand.substring(0, empty.start()) + element + xfdfCommand.substring(empty.end());
+        }
+        int close = xfdfCommand.lastIndexOf("</xfdf>");
+        if (close < 0) {
+            return xfdfCommand + element;
+        }
+        return xfdfCommand.substring(0, close) + element + xfdfCommand.substring(close);
+    }
+
+    /**
+     * @return the one based pages of the added annotations
+     */
+    @VisibleForTesting
+    @NonNull
+    Set<Integer> getAddedPages() {
+        return mMergedPages;
+    }
+
+    @VisibleForTesting
+    @NonNull
+    List<String> getAddedIds() {
+        return getIds(mAdded);
+    }
+
+    @VisibleForTesting
+    @NonNull
+    List<String> getModifiedIds() {
+        return getIds(mModified);
+    }
+
+    @VisibleForTesting
+    @NonNull
+    List<String> getDeletedIds() {
+        return getIds(mDeleted);
+    }
+
+    @NonNull
+    private static List<String> getIds(@NonNull List<AnnotRef> refs) {
+        ArrayList<String> ids = new ArrayList<>();
+        for (AnnotRef ref : refs) {
+            ids.add(ref.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Applies the command to the document and keeps the given index current.
+     * If a step fails, the changes made so far are undone before the exception is thrown.
+     * The caller must hold the document write lock.
+     */
+    public void apply(@NonNull PDFDoc pdfDoc, @NonNull AnnotationIndex index) throws PDFNetException {
+        if (mRequiresFullMerge) {
+            FDFDoc fdfDoc = pdfDoc.fdfExtract(PDFDoc.e_both);
+            fdfDoc.mergeAnnots(mXfdfCommand);
+            pdfDoc.fdfUpdate(fdfDoc);
+            return;
+        }
+
+        // converted before the document is changed, so that a malformed annotation changes nothing
+        FDFDoc modifiedFdfDoc = null;
+        HashMap<String, Obj> modifiedDicts = new HashMap<>();
+        if (!mModified.isEmpty()) {
+            modifiedFdfDoc = FDFDoc.createFromXFDF(XFDF_HEADER + mModifiedAnnots + XFDF_FOOTER);
+            modifiedDicts = getAnnotDicts(modifiedFdfDoc);
+        }
+
+        ArrayList<Change> changes = new ArrayList<>();
+        HashSet<Integer> changedPages = new HashSet<>();
+        try {
+            for (AnnotRef ref : mDeleted) {
+                Page page = getPage(pdfDoc, ref.pageNum);
+                Annot annot = findAnnot(index, page, ref);
+                if (annot != null) {
+                    removeAnnot(page, annot, changes);
+                    index.remove(ref.id);
+                    changedPages.add(ref.pageNum);
+                }
+            }
+
+            // replaced annotations have their replies re-attached to the replacement afterwards
+            StringBuilder mergedAnnots = new StringBuilder(mAnnots);
+            HashSet<Integer> mergedPages = new HashSet<>(mMergedPages);
+            HashMap<AnnotRef, ArrayList<Annot>> replies = new HashMap<>();
+            for (AnnotRef ref : mAdded) {
+                // merging it as well would leave two annotations with the same id
+                removeForReplacement(pdfDoc, index, ref, replies, changes, changedPages);
+            }
+            for (AnnotRef ref : mModified) {
+                Annot annot = findAnnot(index, getPage(pdfDoc, ref.pageNum), ref);
+                Obj dict = modifiedDicts.get(ref.id);
+                if (annot != null && dict != null && annot.getType() == new Annot(dict).getType()) {
+                    updateAnnot(pdfDoc, annot, dict, changes);
+                    changedPages.add(ref.pageNum);
+                    continue;
+                }
+
+                removeForReplacement(pdfDoc, index, ref, replies, changes, changedPages);
+                mergedAnnots.append(ref.xfdf);
+                mergedPages.add(ref.pageNum);
+            }
+
+            if (mergedAnnots.length() > 0) {
+                FDFDoc fdfDoc = FDFDoc.createFromXFDF(XFDF_HEADER + mergedAnnots + XFDF_FOOTER);
+                for (int pageNum : mergedPages) {
+                    Page page = getPage(pdfDoc, pageNum);
+                    if (page != null) {
+                        changes.add(mergedInto(page));
+                        changedPages.add(pageNum);
+                    }
+                }
+                pdfDoc.fdfMerge(fdfDoc);
+                for (int pageNum : mergedPages) {
+                    Page page = getPage(pdfDoc, pageNum);
+                    if (page != null) {
+                        index.putPage(page, pageNum);
+                    }
+                }
+            }
+
+            for (Map.Entry<AnnotRef, ArrayList<Annot>> entry : replies.entrySet()) {
+                Annot replacement = index.get(entry.getKey().id, entry.getKey().pageNum);
+                if (replacement != null) {
+                    for (Annot reply : entry.getValue()) {
+                        setInReplyTo(reply, replacement, changes);
+                    }
+                }
+            }
+        } catch (PDFNetException | RuntimeException ex) {
+            rollback(changes);
+            for (int pageNum : changedPages) {
+                index.removePage(pageNum);
+                Page page = getPage(pdfDoc, pageNum);
+                if (page != null) {
+                    index.putPage(page, pageNum);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    @Nullable
+    private static Page getPage(@NonNull PDFDoc pdfDoc, int pageNum) throws PDFNetException {
+        if (pageNum < 1 || pageNum > pdfDoc.getPageCount()) {
+            return null;
+        }
+        return pdfDoc.getPage(pageNum);
+    }
+
+    /**
+     * Removes the annotation with the id of the reference, if there is one, so that the
+     * annotation can be merged again. Its replies are kept to be re-attached to the replacement.
+     */
+    private static void removeForReplacement(@NonNull PDFDoc pdfDoc, @NonNull AnnotationIndex index, @NonNull AnnotRef ref,
+            @NonNull HashMap<AnnotRef, ArrayList<Annot>> replies, @NonNull ArrayList<Change> changes,
+            @NonNull HashSet<Integer> changedPages) throws PDFNetException {
+        int pageNum = findPageNum(pdfDoc, index, ref.id, ref.pageNum);
+        if (pageNum < 0) {
+            return;
+        }
+        Page page = getPage(pdfDoc, pageNum);
+        Annot annot = findAnnot(index, page, new AnnotRef(pageNum, ref.id, null));
+        if (null == annot || null == page) {
+            return;
+        }
+        ArrayList<Annot> annotReplies = findReplies(page, annot);
+        if (!annotReplies.isEmpty()) {
+            replies.put(ref, annotReplies);
+        }
+        removeAnnot(page, annot, changes);
+        index.remove(ref.id);
+        changedPages.add(pageNum);
+    }
+
+    /**
+     * @return the page of the annotation with the id, which is looked for on the given page
+     * first and then where the index has it, as it may have been moved; -1 if there is none
+     */
+    @VisibleForTesting
+    static int findPageNum(@NonNull PDFDoc pdfDoc, @NonNull AnnotationIndex index, @Nullable String id,
+            int pageNum) throws PDFNetException {
+        if (null == id || id.isEmpty()) {
+            return -1;
+        }
+        AnnotRef ref = new AnnotRef(pageNum, id, null);
+        if (findAnnot(index, getPage(pdfDoc, pageNum), ref) != null) {
+            return pageNum;
+        }
+        int indexedPageNum = index.getPageNum(id);
+        if (indexedPageNum != pageNum && findAnnot(index, getPage(pdfDoc, indexedPageNum),
+                new AnnotRef(indexedPageNum, id, null)) != null) {
+            return indexedPageNum;
+        }
+        return -1;
+    }
+
+    @Nullable
+    private static Annot findAnnot(@NonNull AnnotationIndex index, @Nullable Page page, @NonNull AnnotRef ref) throws PDFNetException {
+        Annot indexed = index.get(ref.id, ref.pageNum);
+        if (indexed != null && indexed.isValid()) {
+            return indexed;
+        }
+        return findAnnot(page, ref.id);
+    }
+
+    @Nullable
+    private static Annot findAnnot(@Nullable Page page, @Nullable String id) throws PDFNetException {
+        if (null == page || null == id || id.isEmpty()) {
+            return null;
+        }
+        int count = page.getNumAnnots();
+        for (int i = 0; i < count; i++) {
+            Annot annot = page.getAnnot(i);
+            if (annot != null && annot.isValid()) {
+                Obj uid = annot.getUniqueID();
+                if (uid != null && id.equals(uid.getAsPDFText())) {
+                    return annot;
+                }
+            }
+        }
+        return null;
+    }
+
+    @NonNull
+    private static HashMap<String, Obj> getAnnotDicts(@NonNull FDFDoc fdfDoc) throws PDFNetException {
+        HashMap<String, Obj> dicts = new HashMap<>();
+        Obj annots = fdfDoc.getFDF().findObj("Annots");
+        if (null == annots || !annots.isArray()) {
+            return dicts;
+        }
+        int count = (int) annots.size();
+        for (int i = 0; i < count; i++) {
+            Obj dict = annots.getAt(i);
+            Obj uid = dict != null ? dict.findObj("NM") : null;
+            if (uid != null) {
+                dicts.put(uid.getAsPDFText(), dict);
+            }
+        }
+        return dicts;
+    }
+
+    /**
+     * Replaces the entries of the annotation in the document with those of the converted
+     * annotation, like a replacement would, except for the entries in {@link #KEPT_KEYS}.
+     * Entries the modify element does not carry are removed.
+     */
+    @VisibleForTesting
+    static void updateAnnot(@NonNull PDFDoc pdfDoc, @NonNull final Annot annot, @NonNull Obj dict,
+            @NonNull ArrayList<Change> changes) throws PDFNetException {
+        final Obj target = annot.getSDFObj();
+        Obj source = pdfDoc.getSDFDoc().importObj(dict, true);
+
+        final ArrayList<String> keys = new ArrayList<>();
+        addKeys(target, keys);
+        addKeys(source, keys);
+        // the appearance is regenerated below if the element does not carry one
+        if (!keys.contains("AP")) {
+            keys.add("AP");
+        }
+
+        final Obj previous = pdfDoc.getSDFDoc().createIndirectDict();
+        for (String key : keys) {
+            Obj value = target.findObj(key);
+            if (value != null) {
+                previous.put(key, value);
+            }
+        }
+        changes.add(new Change() {
+            @Override
+            public void undo() throws PDFNetException {
+                for (String key : keys) {
+                    Obj value = previous.findObj(key);
+                    if (value != null) {
+                        target.put(key, value);
+                    } else {
+                        target.erase(key);
+                    }
+                }
+            }
+        });
+
+        for (String key : keys) {
+            Obj value = source.findObj(key);
+            if (value != null) {
+                target.put(key, value);
+            } else {
+                target.erase(key);
+            }
+        }
+        if (null == source.findObj("AP")) {
+            annot.refreshAppearance();
+        }
+    }
+
+    /**
+     * Adds the keys of the dictionary that are not kept and not in the list yet.
+     */
+    private static void addKeys(@NonNull Obj dict, @NonNull ArrayList<String> keys) throws PDFNetException {
+        DictIterator itr = dict.getDictIterator();
+        while (itr.hasNext()) {
+            String key = itr.key().getName();
+            if (!KEPT_KEYS.contains(key) && !keys.contains(key)) {
+                keys.add(key);
+            }
+            itr.next();
+        }
+    }
+
+    @NonNull
+    private static ArrayList<Annot> findReplies(@NonNull Page page, @NonNull Annot annot) throws PDFNetException {
+        ArrayList<Annot> replies = new ArrayList<>();
+        long objNum = annot.getSDFObj().getObjNum();
+        int count = page.getNumAnnots();
+        for (int i = 0; i < count; i++) {
+            Annot candidate = page.getAnnot(i);
+            if (candidate != null && candidate.isValid()) {
+                Obj irt = candidate.getSDFObj().findObj("IRT");
+                if (irt != null && irt.getObjNum() == objNum) {
+                    replies.add(candidate);
+                }
+            }
+        }
+        return replies;
+    }
+
+    private static void removeAnnot(@NonNull Page page, @NonNull Annot annot,
+            @NonNull ArrayList<Change> changes) throws PDFNetException {
+        if (annot.isMarkup()) {
+            Annot popup = new Markup(annot).getPopup();
+            if (popup != null && popup.isValid()) {
+                removeFromPage(page, popup, changes);
+            }
+        }
+        removeFromPage(page, annot, changes);
+    }
+
+    private static void removeFromPage(@NonNull final Page page, @NonNull final Annot annot,
+            @NonNull ArrayList<Change> changes) throws PDFNetException {
+        long objNum = annot.getSDFObj().getObjNum();
+        int count = page.getNumAnnots();
+        for (int i = 0; i < count; i++) {
+            Annot candidate = page.getAnnot(i);
+            if (candidate != null && candidate.getSDFObj().getObjNum() == objNum) {
+                final int position = i;
+                page.annotRemove(annot);
+                // put back at the same position, to keep the z-order
+                changes.add(new Change() {
+                    @Override
+                    public void undo() throws PDFNetException {
+                        page.annotInsert(position, annot);
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return a change that removes the annotations added to the page after this call
+     */
+    @VisibleForTesting
+    @NonNull
+    static Change mergedInto(@NonNull final Page page) throws PDFNetException {
+        final HashSet<Long> existing = new HashSet<>();
+        int count = page.getNumAnnots();
+        for (int i = 0; i < count; i++) {
+            Annot annot = page.getAnnot(i);
+            if (annot != null && annot.isValid()) {
+                existing.add(annot.getSDFObj().getObjNum());
+            }
+        }
+        return new Change() {
+            @Override
+            public void undo() throws PDFNetException {
+                for (int i = page.getNumAnnots() - 1; i >= 0; i--) {
+                    Annot annot = page.getAnnot(i);
+                    // already gone, the rest is still removed
+                    if (null == annot || !annot.isValid()) {
+                        continue;
+                    }
+                    if (!existing.contains(annot.getSDFObj().getObjNum())) {
+                        page.annotRemove(annot);
+                    }
+                }
+            }
+        };
+    }
+
+    private static void setInReplyTo(@NonNull Annot reply, @NonNull Annot annot,
+            @NonNull ArrayList<Change> changes) throws PDFNetException {
+        final Obj target = reply.getSDFObj();
+        final Obj previous = target.findObj("IRT");
+        target.put("IRT", annot.getSDFObj());
+        changes.add(new Change() {
+            @Override
+            public void undo() throws PDFNetException {
+                if (previous != null) {
+                    target.put("IRT", previous);
+                } else {
+                    target.erase("IRT");
+                }
+            }
+        });
+    }
+
+    private static void rollback(@NonNull ArrayList<Change> changes) {
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            try {
+                changes.get(i).undo();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    @NonNull
+    private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setExpandEntityReferences(false);
+        factory.setXIncludeAware(false);
+        // not every parser knows every feature, the DOCTYPE check in parse covers the rest
+        setFeature(factory, XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        setFeature(factory, "http://apache.org/xml/features/disallow-doctype-decl", true);
+        setFeature(factory, "http://xml.org/sax/features/external-general-entities", false);
+        setFeature(factory, "http://xml.org/sax/features/external-parameter-entities", false);
+        setFeature(factory, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        return factory.newDocumentBuilder();
+    }
+
+    private static void setFeature(@NonNull DocumentBuilderFactory factory, @NonNull String feature, boolean value) {
+        try {
+            factory.setFeature(feature, value);
+        } catch (ParserConfigurationException ignored) {
+            // not supported by this parser
+        }
+    }
+
+    private static int getPageNum(@NonNull Element element) {
+        // xfdf pages are zero based
+        try {
+            return Integer.parseInt(element.getAttribute(ATTR_PAGE)) + 1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static boolean hasElementChild(@NonNull Node node) {
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i).getNodeType() == Node.ELEMENT_NODE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,26 +3,69 @@ package com.pdftron.reactnative.viewmanagers;
 import android.content.Intent;
 import android.util.Log;
 import android.util.SparseArray;
+import android.view.Choreographer;
 import android.view.View;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
 import com.pdftron.common.PDFNetException;
 import com.pdftron.pdf.utils.PdfViewCtrlSettingsManager;
+import com.pdftron.reactnative.utils.DeferredOperationQueue;
+import com.pdftron.reactnative.utils.PerformanceMetrics;
+import com.pdftron.reactnative.utils.SerialExecutor;
 import com.pdftron.reactnative.views.DocumentView;
 
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
 
     private static final String REACT_CLASS = "RCTDocumentView";
 
-    private SparseArray<DocumentView> mDocumentViews = new SparseArray<>();
+    // shared by all documents, each document gets its own serial queue on top of it;
+    // bounded, documents beyond the pool size wait for a thread
+    private static final int DOCUMENT_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor sDocumentExecutor = new ThreadPoolExecutor(DOCUMENT_THREADS,
+            DOCUMENT_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+    static {
+        sDocumentExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Executor sUiExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            UiThreadUtil.runOnUiThread(command);
+        }
+    };
+
+    private final SparseArray<DocumentView> mDocumentViews = new SparseArray<>();
+    private final SparseArray<SerialExecutor> mDocumentQueues = new SparseArray<>();
+    private final SparseArray<ArrayList<PendingAnnotationCommand>> mPendingAnnotationCommands = new SparseArray<>();
+
+    private static class PendingAnnotationCommand {
+        final String xfdfCommand;
+        final boolean initialLoad;
+        final Promise promise;
+
+        PendingAnnotationCommand(String xfdfCommand, boolean initialLoad, Promise promise) {
+            this.xfdfCommand = xfdfCommand;
+            this.initialLoad = initialLoad;
+            this.promise = promise;
+        }
+    }
 
     @Override
     public String getName() {
@@ -34,13 +77,19 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         public void onViewAttachedToWindow(View v) {
             DocumentView documentView = (DocumentView) v;
             Log.d(getName(), "add to map: " + v.getId());
-            mDocumentViews.put(v.getId(), documentView);
+            synchronized (mDocumentViews) {
+                mDocumentViews.put(v.getId(), documentView);
+            }
         }
 
         @Override
         public void onViewDetachedFromWindow(View v) {
             Log.d(getName(), "remove from map: " + v.getId());
-            mDocumentViews.remove(v.getId());
+            synchronized (mDocumentViews) {
+                mDocumentViews.remove(v.getId());
+            }
+            // tasks already queued still run, and fail to find the view
+            removeDocumentQueueWhenDrained(v.getId());
         }
     };
 
@@ -158,6 +207,11 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         documentView.setIsBase64String(isBase64);
     }
 
+    @ReactProp(name = "remoteDocumentCacheEnabled")
+    public void setRemoteDocumentCacheEnabled(DocumentView documentView, boolean remoteDocumentCacheEnabled) {
+        documentView.setRemoteDocumentCacheEnabled(remoteDocumentCacheEnabled);
+    }
+
     @ReactProp(name = "autoSaveEnabled")
     public void setAutoSaveEnabled(DocumentView documentView, boolean autoSaveEnabled) {
         documentView.setAutoSaveEnabled(autoSaveEnabled);
@@ -203,6 +257,26 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         documentView.setHideAnnotationMenu(tools);
     }
 
+    @ReactProp(name = "viewportEventThrottle")
+    public void setViewportEventThrottle(DocumentView documentView, int throttleMs) {
+        documentView.setViewportEventThrottle(throttleMs);
+    }
+
+    @ReactProp(name = "subscribedEvents")
+    public void setSubscribedEvents(DocumentView documentView, @Nullable ReadableArray events) {
+        documentView.setSubscribedEvents(events);
+    }
+
+    @ReactProp(name = "bookmarkChangeMode")
+    public void setBookmarkChangeMode(DocumentView documentView, String mode) {
+        documentView.setBookmarkChangeMode(mode);
+    }
+
+    @ReactProp(name = "annotationChangeBatchWindow")
+    public void setAnnotationChangeBatchWindow(DocumentView documentView, int windowMs) {
+        documentView.setAnnotationChangeBatchWindow(windowMs);
+    }
+
     @ReactProp(name = "pageChangeOnTap")
     public void setPageChangeOnTap(DocumentView documentView, boolean pageChangeOnTap) {
         documentView.setPageChangeOnTap(pageChangeOnTap);
@@ -293,35 +367,131 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         documentView.setHideThumbnailFilterModes(filterModes);
     }
 
-    public void importBookmarkJson(int tag, String bookmarkJson) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+    public void importBookmarkJson(int tag, String bookmarkJson, Promise promise) throws PDFNetException {
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
-            documentView.importBookmarkJson(bookmarkJson);
+            documentView.importBookmarkJson(bookmarkJson, resolveWhenApplied(promise));
         } else {
             throw new PDFNetException("", 0L, getName(), "importBookmarkJson", "Unable to find DocumentView.");
         }
     }
 
-    public void importAnnotationCommand(int tag, String xfdfCommand, boolean initialLoad) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
-        if (documentView != null) {
-            documentView.importAnnotationCommand(xfdfCommand, initialLoad);
-        } else {
-            throw new PDFNetException("", 0L, getName(), "importAnnotationCommand", "set collabEnabled to true is required.");
+    /**
+     * Queues an annotation command. Commands arriving within one frame are applied together
+     * on the document queue, ahead of any task queued after them.
+     */
+    public void importAnnotationCommand(final int tag, String xfdfCommand, boolean initialLoad, Promise promise) {
+        synchronized (mPendingAnnotationCommands) {
+            ArrayList<PendingAnnotationCommand> pending = mPendingAnnotationCommands.get(tag);
+            if (null == pending) {
+                pending = new ArrayList<>();
+                mPendingAnnotationCommands.put(tag, pending);
+                UiThreadUtil.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+                            @Override
+                            public void doFrame(long frameTimeNanos) {
+                                flushAnnotationCommands(tag);
+                            }
+                        });
+                    }
+                });
+            }
+            pending.add(new PendingAnnotationCommand(xfdfCommand, initialLoad, promise));
         }
     }
 
-    public void importAnnotations(int tag, String xfdf) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+    private void flushAnnotationCommands(final int tag) {
+        synchronized (mPendingAnnotationCommands) {
+            final ArrayList<PendingAnnotationCommand> commands = mPendingAnnotationCommands.get(tag);
+            if (null == commands) {
+                return;
+            }
+            mPendingAnnotationCommands.remove(tag);
+            // one sample per batch, waiting starts when the batch is flushed
+            executeOnDocumentQueue(tag, sDocumentExecutor, PerformanceMetrics.track("importAnnotationCommand", new Runnable() {
+                @Override
+                public void run() {
+                    applyAnnotationCommands(tag, commands);
+                }
+            }));
+        }
+    }
+
+    /**
+     * @return a callback that settles the promise once the operation was applied, which
+     * may be after the document has finished downloading
+     */
+    private static DeferredOperationQueue.Callback resolveWhenApplied(final Promise promise) {
+        return new DeferredOperationQueue.Callback() {
+            @Override
+            public void onApplied(@Nullable Exception error) {
+                if (error != null) {
+                    promise.reject(error);
+                } else {
+                    promise.resolve(null);
+                }
+            }
+        };
+    }
+
+    private void applyAnnotationCommands(int tag, final ArrayList<PendingAnnotationCommand> commands) {
+        DocumentView documentView = getDocumentView(tag);
+        if (null == documentView) {
+            PDFNetException ex = new PDFNetException("", 0L, getName(), "importAnnotationCommand", "Unable to find DocumentView.");
+            for (PendingAnnotationCommand command : commands) {
+                command.promise.reject(ex);
+            }
+            return;
+        }
+        if (documentView.isCollabEnabled()) {
+            for (PendingAnnotationCommand command : commands) {
+                try {
+                    documentView.importAnnotationCommand(command.xfdfCommand, command.initialLoad, resolveWhenApplied(command.promise));
+                } catch (Exception ex) {
+                    command.promise.reject(ex);
+                }
+            }
+            return;
+        }
+        ArrayList<String> xfdfCommands = new ArrayList<>(commands.size());
+        for (PendingAnnotationCommand command : commands) {
+            xfdfCommands.add(command.xfdfCommand);
+        }
+        final Exception[] errors = new Exception[commands.size()];
+        try {
+            documentView.importAnnotationCommands(xfdfCommands, errors, new DeferredOperationQueue.Callback() {
+                @Override
+                public void onApplied(@Nullable Exception error) {
+                    for (int i = 0; i < commands.size(); i++) {
+                        Exception commandError = error != null ? error : errors[i];
+                        if (commandError != null) {
+                            commands.get(i).promise.reject(commandError);
+                        } else {
+                            commands.get(i).promise.resolve(null);
+                        }
+                    }
+                }
+            });
+        } catch (Exception ex) {
+            for (PendingAnnotationCommand command : commands) {
+                command.promise.reject(ex);
+            }
+        }
+    }
+
+    public void importAnnotations(int tag, String xfdf, Promise promise) throws PDFNetException {
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
-            documentView.importAnnotations(xfdf);
+            documentView.importAnnotations(xfdf, resolveWhenApplied(promise));
         } else {
             throw new PDFNetException("", 0L, getName(), "importAnnotations", "Unable to find DocumentView.");
         }
     }
 
     public String exportAnnotations(int tag, ReadableMap options) throws Exception {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             return documentView.exportAnnotations(options);
         } else {
@@ -329,17 +499,17 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         }
     }
 
-    public String saveDocument(int tag) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+    public String saveDocument(int tag, ReadableMap options) throws Exception {
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
-            return documentView.saveDocument();
+            return documentView.saveDocument(options);
         } else {
             throw new PDFNetException("", 0L, getName(), "saveDocument", "Unable to find DocumentView.");
         }
     }
 
     public void flattenAnnotations(int tag, boolean formsOnly) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.flattenAnnotations(formsOnly);
         } else {
@@ -348,7 +518,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public String getDocumentPath(int tag) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             return documentView.getDocumentPath();
         } else {
@@ -357,7 +527,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public void setToolMode(int tag, String item) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.setToolMode(item);
         } else {
@@ -366,7 +536,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public boolean commitTool(int tag) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             return documentView.commitTool();
         } else {
@@ -375,7 +545,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public int getPageCount(int tag) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             return documentView.getPageCount();
         } else {
@@ -384,7 +554,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public void setFlagForFields(int tag, ReadableArray fields, Integer flag, Boolean value) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.setFlagForFields(fields, flag, value);
         } else {
@@ -393,7 +563,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public void setValuesForFields(int tag, ReadableMap map) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.setValuesForFields(map);
         } else {
@@ -401,8 +571,17 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         }
     }
 
+    public void setValuesForFieldsFromFile(int tag, String filePath) throws Exception {
+        DocumentView documentView = getDocumentView(tag);
+        if (documentView != null) {
+            documentView.setValuesForFieldsFromFile(filePath);
+        } else {
+            throw new PDFNetException("", 0L, getName(), "setValuesForFieldsFromFile", "Unable to find DocumentView.");
+        }
+    }
+
     public void deleteAnnotations(int tag, ReadableArray annots) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.deleteAnnotations(annots);
         } else {
@@ -411,7 +590,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public boolean handleBackButton(int tag) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             return documentView.handleBackButton();
         } else {
@@ -420,7 +599,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public void setFlagsForAnnotations(int tag, ReadableArray annotationFlagList) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.setFlagsForAnnotations(annotationFlagList);
         } else {
@@ -429,7 +608,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public void selectAnnotation(int tag, String annotId, int pageNumber) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.selectAnnotation(annotId, pageNumber);
         } else {
@@ -437,8 +616,26 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         }
     }
 
+    public WritableMap getSkippedEventCounts(int tag) throws PDFNetException {
+        DocumentView documentView = getDocumentView(tag);
+        if (documentView != null) {
+            return documentView.getSkippedEventCounts();
+        } else {
+            throw new PDFNetException("", 0L, getName(), "getSkippedEventCounts", "Unable to find DocumentView.");
+        }
+    }
+
+    public int applyAnnotationOperations(int tag, ReadableArray operations) throws PDFNetException {
+        DocumentView documentView = getDocumentView(tag);
+        if (documentView != null) {
+            return documentView.applyAnnotationOperations(operations);
+        } else {
+            throw new PDFNetException("", 0L, getName(), "applyAnnotationOperations", "Unable to find DocumentView.");
+        }
+    }
+
     public void setPropertiesForAnnotation(int tag, String annotId, int pageNumber, ReadableMap propertyMap) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.setPropertiesForAnnotation(annotId, pageNumber, propertyMap);
         } else {
@@ -447,7 +644,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public void closeAllTabs(int tag) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             documentView.closeAllTabs();
         } else {
@@ -456,7 +653,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public WritableMap getPageCropBox(int tag, int pageNumber) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             return documentView.getPageCropBox(pageNumber);
         } else {
@@ -465,7 +662,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public boolean setCurrentPage(int tag, int pageNumber) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             boolean setResult = documentView.setCurrentPage(pageNumber);
             return setResult;
@@ -475,7 +672,7 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
     }
 
     public double getZoom(int tag) throws PDFNetException {
-        DocumentView documentView = mDocumentViews.get(tag);
+        DocumentView documentView = getDocumentView(tag);
         if (documentView != null) {
             return documentView.getZoom();
         } else {
@@ -483,16 +680,98 @@ public class DocumentViewViewManager extends ViewGroupManager<DocumentView> {
         }
     }
 
+    /**
+     * Runs document work off the UI thread. Tasks for the same tag run in call order,
+     * tasks for different tags may run in parallel.
+     */
+    public void runOnDocumentQueue(int tag, Runnable task) {
+        synchronized (mPendingAnnotationCommands) {
+            flushAnnotationCommands(tag);
+            executeOnDocumentQueue(tag, sDocumentExecutor, task);
+        }
+    }
+
+    /**
+     * Runs UI work in call order with the document work of the same tag. The task is posted to
+     * the UI thread when its turn comes, no document thread waits for it.
+     */
+    public void runOnDocumentUiQueue(int tag, final Runnable task) {
+        synchronized (mPendingAnnotationCommands) {
+            flushAnnotationCommands(tag);
+            executeOnDocumentQueue(tag, sUiExecutor, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            });
+        }
+    }
+
+    private void executeOnDocumentQueue(int tag, Executor executor, Runnable task) {
+        // under the lock, so that a drained queue is not removed while a task is added to it
+        synchronized (mDocumentQueues) {
+            SerialExecutor queue = mDocumentQueues.get(tag);
+            if (null == queue) {
+                queue = new SerialExecutor(sDocumentExecutor);
+                mDocumentQueues.put(tag, queue);
+            }
+            queue.execute(executor, task);
+        }
+    }
+
+    /**
+     * Removes the queue of a detached view once the tasks queued for it have run, so that a
+     * new queue for the same tag never runs alongside them.
+     */
+    private void removeDocumentQueueWhenDrained(final int tag) {
+        final SerialExecutor queue;
+        synchronized (mDocumentQueues) {
+            queue = mDocumentQueues.get(tag);
+            if (null == queue) {
+                return;
+            }
+            queue.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (mDocumentQueues) {
+                        if (mDocumentQueues.get(tag) != queue || getDocumentView(tag) != null) {
+                            // attached again, the queue is in use
+                            return;
+                        }
+                        if (queue.isEmpty()) {
+                            mDocumentQueues.remove(tag);
+                        } else {
+                            removeDocumentQueueWhenDrained(tag);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    @Nullable
+    private DocumentView getDocumentView(int tag) {
+        synchronized (mDocumentViews) {
+            return mDocumentViews.get(tag);
+        }
+    }
+
     @Override
     public boolean needsCustomLayoutForChildren() {
         return true;
     }
 
     public void onActivityResult(int requestCode, int resultCode, Intent data) {
-        for (int i = 0; i < mDocumentViews.size(); i++) {
-            int key = mDocumentViews.keyAt(i);
-            DocumentView documentView = mDocumentViews.get(key);
-            documentView.onActivityResult(requestCode, resultCode, data);
+        synchronized (mDocumentViews) {
+            for (int i = 0; i < mDocumentViews.size(); i++) {
+                int key = mDocumentViews.keyAt(i);
+                DocumentView documentView = mDocumentViews.get(key);
+                documentView.onActivityResult(requestCode, resultCode, data);
+            }
         }
     }
 }
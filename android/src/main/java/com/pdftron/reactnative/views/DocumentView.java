@@ -8,9 +8,11 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.util.AttributeSet;
 import android.util.Base64;
+import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
+import android.webkit.URLUtil;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -23,6 +25,7 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.uimanager.ThemedReactContext;
@@ -52,7 +55,6 @@ import com.pdftron.pdf.controls.PdfViewCtrlTabHostFragment2;
 import com.pdftron.pdf.controls.ThumbnailsViewFragment;
 import com.pdftron.pdf.dialog.ViewModePickerDialogFragment;
 import com.pdftron.pdf.dialog.digitalsignature.DigitalSignatureDialogFragment;
-import com.pdftron.pdf.model.AnnotStyle;
 import com.pdftron.pdf.tools.AdvancedShapeCreate;
 import com.pdftron.pdf.tools.FreehandCreate;
 import com.pdftron.pdf.tools.QuickMenu;
@@ -72,17 +74,44 @@ import com.pdftron.pdf.widget.toolbar.builder.ToolbarButtonType;
 import com.pdftron.pdf.widget.toolbar.component.DefaultToolbars;
 import com.pdftron.reactnative.R;
 import com.pdftron.reactnative.nativeviews.RNPdfViewCtrlTabFragment;
+import com.pdftron.reactnative.utils.AnnotationChangeBatch;
+import com.pdftron.reactnative.utils.AnnotationIndex;
+import com.pdftron.reactnative.utils.BookmarkDelta;
+import com.pdftron.reactnative.utils.DeferredOperationQueue;
+import com.pdftron.reactnative.utils.DocumentCache;
+import com.pdftron.reactnative.utils.DocumentLock;
+import com.pdftron.reactnative.utils.DocumentPreloader;
+import com.pdftron.reactnative.utils.FieldCache;
+import com.pdftron.reactnative.utils.IdentifierRegistry;
+import com.pdftron.reactnative.utils.PDFNetInitializer;
 import com.pdftron.reactnative.utils.ReactUtils;
+import com.pdftron.reactnative.utils.ViewportEventCoalescer;
+import com.pdftron.reactnative.utils.XfdfCommand;
 import com.pdftron.sdf.Obj;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.json.JSONException;
+import org.json.JSONObject;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.pdftron.reactnative.utils.Constants.*;
 
@@ -90,10 +119,21 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
     private static final String TAG = DocumentView.class.getSimpleName();
 
+    private static final long ANNOTATION_CHANGE_RETRY_MS = 16;
+
+    private static final int DEFAULT_EXPORT_CHUNK_SIZE = 64 * 1024;
+
     private String mDocumentPath;
     private String mTabTitle;
     private boolean mIsBase64;
     private File mTempFile;
+    private File mCachedFile;
+    private boolean mRemoteDocumentCacheEnabled;
+    // the url of a remote document opened from its url, added to the cache once downloaded
+    private String mRemoteDocumentToAdopt;
+    private JSONObject mRemoteDocumentToAdoptHeaders;
+
+    private static final ExecutorService sRemoteDocumentExecutor = Executors.newCachedThreadPool();
 
     private FragmentManager mFragmentManagerSave; // used to deal with lifecycle issue
 
@@ -119,20 +159,145 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     private String mCurrentUser;
     private String mCurrentUserName;
 
-    // quick menu
-    private ArrayList<Object> mAnnotMenuItems;
-    private ArrayList<Object> mAnnotMenuOverrideItems;
-    private ArrayList<Object> mHideAnnotMenuTools;
-    private ArrayList<Object> mLongPressMenuItems;
-    private ArrayList<Object> mLongPressMenuOverrideItems;
+    // quick menu, compiled from the props when they are set
+    private HashSet<String> mAnnotMenuItems;
+    private HashSet<String> mAnnotMenuOverrideItems;
+    private BitSet mHideAnnotMenuTypes;
+    private HashSet<String> mLongPressMenuItems;
+    private HashSet<String> mLongPressMenuOverrideItems;
 
     // custom behaviour
     private ReadableArray mActionOverrideItems;
 
     private boolean mReadOnly;
 
+    // attached to the window, waiting for PDFNet to be initialized before attaching the viewer
+    private boolean mAttachPending;
+
     private ArrayList<ViewModePickerDialogFragment.ViewModePickerItems> mViewModePickerItems = new ArrayList<>();
 
+    private final ViewportEventCoalescer mViewportEventCoalescer = new ViewportEventCoalescer(new ViewportEventCoalescer.Listener() {
+        @Override
+        public void onPageChanged(int previousPage, int currentPage) {
+            if (!shouldEmit(ON_PAGE_CHANGED)) {
+                return;
+            }
+            WritableMap params = Arguments.createMap();
+            params.putString(ON_PAGE_CHANGED, ON_PAGE_CHANGED);
+            params.putInt(PREV_PAGE_KEY, previousPage);
+            params.putInt(PAGE_CURRENT_KEY, currentPage);
+            onReceiveNativeEvent(params);
+        }
+
+        @Override
+        public void onZoomChanged(double zoom) {
+            if (!shouldEmit(ON_ZOOM_CHANGED)) {
+                return;
+            }
+            WritableMap params = Arguments.createMap();
+            params.putString(ON_ZOOM_CHANGED, ON_ZOOM_CHANGED);
+            params.putDouble(ZOOM_KEY, zoom);
+            onReceiveNativeEvent(params);
+        }
+    });
+
+    // names of the events JS has handlers for, null when unknown so that everything is sent
+    private volatile HashSet<String> mSubscribedEvents;
+    private final HashMap<String, Integer> mSkippedEventCounts = new HashMap<>();
+
+    // annotation changes are collected for one batching window and sent as net changes per annotation
+    private final AnnotationChangeBatch mAnnotationChangeBatch = new AnnotationChangeBatch();
+    private int mAnnotationChangeBatchWindow;
+    private boolean mAnnotationChangeFlushScheduled;
+
+    private final Runnable mFlushAnnotationChangesRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushAnnotationChanges();
+        }
+    };
+
+    private final AnnotationIndex mAnnotationIndex = new AnnotationIndex();
+
+    // field name -> field, built on the first fill and dropped when annotations, pages or the document change
+    private final FieldCache mFieldCache = new FieldCache();
+
+    // bookmark edits are exported once they settle, on a background thread
+    private static final int BOOKMARK_CHANGE_DEBOUNCE_MS = 250;
+    private static final ExecutorService sBookmarkExecutor = Executors.newSingleThreadExecutor();
+
+    private String mBookmarkChangeMode = BOOKMARK_CHANGE_MODE_FULL;
+    private boolean mBookmarkChangePending;
+    // last bookmarks sent in diff mode, guarded by mBookmarkSnapshotLock
+    private JSONObject mBookmarkSnapshot;
+    private final Object mBookmarkSnapshotLock = new Object();
+
+    private final Runnable mExportBookmarksRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mBookmarkChangePending = false;
+            final PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+            if (null == pdfViewCtrl) {
+                return;
+            }
+            sBookmarkExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    emitBookmarkChange(pdfViewCtrl);
+                }
+            });
+        }
+    };
+
+    // imports that arrive while the document is still downloading wait here and are applied
+    // together once it has finished, on a background thread
+    private static final int MAX_DEFERRED_OPERATIONS = 64;
+    private static final ExecutorService sDeferredOperationExecutor = Executors.newSingleThreadExecutor();
+
+    private final DeferredOperationQueue mDeferredOperations = new DeferredOperationQueue(MAX_DEFERRED_OPERATIONS,
+            new DeferredOperationQueue.Listener() {
+                @Override
+                public void onBatchApplied(boolean annotationsReplaced) {
+                    PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+                    if (null == pdfViewCtrl) {
+                        return;
+                    }
+                    if (annotationsReplaced) {
+                        mAnnotationIndex.rebuild(pdfViewCtrl);
+                        invalidateFieldCache();
+                    }
+                    updateOnUiThread(pdfViewCtrl);
+                }
+            });
+
+    // whether the download of the open document has finished
+    private volatile boolean mDocumentDownloaded;
+
+    private final PDFViewCtrl.DocumentDownloadListener mDocumentDownloadListener = new PDFViewCtrl.DocumentDownloadListener() {
+        @Override
+        public void onDownloadEvent(PDFViewCtrl.DownloadState state, int page_num, int page_downloaded, int page_count, String message) {
+            if (state == PDFViewCtrl.DownloadState.FINISHED) {
+                final PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+                if (null == pdfViewCtrl) {
+                    return;
+                }
+                // set before the batch is scheduled, operations arriving from now on are applied
+                // right away even while the downloader is still attached
+                mDocumentDownloaded = true;
+                adoptRemoteDocument();
+                sDeferredOperationExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        mDeferredOperations.applyAll(pdfViewCtrl);
+                    }
+                });
+            } else if (state == PDFViewCtrl.DownloadState.FAILED) {
+                mRemoteDocumentToAdopt = null;
+                mDeferredOperations.cancelAll(new PDFNetException("", 0L, TAG, "onDownloadEvent", "Unable to download the document."));
+            }
+        }
+    };
+
     public DocumentView(Context context) {
         super(context);
     }
@@ -219,12 +384,32 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         if (Utils.isNullOrEmpty(path)) {
             return;
         }
+        if (mAttachPending) {
+            // opened once the viewer is attached
+            mDocumentPath = path;
+            return;
+        }
+        if (mDocumentPath != null) {
+            // waiting operations were meant for the document that is replaced
+            mDocumentDownloaded = false;
+            mRemoteDocumentToAdopt = null;
+            invalidateFieldCache();
+            mDeferredOperations.cancelAll(new PDFNetException("", 0L, TAG, "setDocument", "The document was changed before it finished downloading."));
+        }
+        Uri preloadedUri = mDocumentPath != null ? takePreloadedDocument(path) : null;
+        if (null == preloadedUri && mDocumentPath != null && isCachedRemoteDocument(path)) {
+            mDocumentPath = path;
+            openRemoteDocument(path);
+            return;
+        }
         if (mDocumentPath != null) {
             // we are switching document
-            Uri fileUri = ReactUtils.getUri(getContext(), path, mIsBase64);
+            Uri fileUri = preloadedUri != null ? preloadedUri : ReactUtils.getUri(getContext(), path, mIsBase64);
             if (fileUri != null) {
+                setCachedFile(fileUri);
                 setDocumentUri(fileUri);
                 setViewerConfig(getConfig());
+                invalidateFieldCache();
                 prepView();
             }
         }
@@ -293,7 +478,14 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     }
 
     public void setReadOnly(boolean readOnly) {
+        boolean wasReadOnly = mReadOnly;
         mReadOnly = readOnly;
+        // a read-only view must not write ids into the document
+        mAnnotationIndex.setAssignIds(!readOnly);
+        if (wasReadOnly && !readOnly && getPdfViewCtrl() != null && getPdfViewCtrl().getDoc() != null) {
+            // give the annotations skipped while read-only their ids
+            mAnnotationIndex.rebuild(getPdfViewCtrl());
+        }
         if (readOnly) {
             mBuilder = mBuilder.skipReadOnlyCheck(false);
         } else {
@@ -371,6 +563,10 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         mIsBase64 = isBase64String;
     }
 
+    public void setRemoteDocumentCacheEnabled(boolean remoteDocumentCacheEnabled) {
+        mRemoteDocumentCacheEnabled = remoteDocumentCacheEnabled;
+    }
+
     public void setAutoSaveEnabled(boolean autoSaveEnabled) {
         mAutoSaveEnabled = autoSaveEnabled;
     }
@@ -392,21 +588,98 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     }
 
     public void setAnnotationMenuItems(ReadableArray items) {
-        mAnnotMenuItems = items != null ? items.toArrayList() : null;
+        mAnnotMenuItems = toStringSet(items);
     }
 
     public void setHideAnnotationMenu(ReadableArray tools) {
-        mHideAnnotMenuTools = tools != null ? tools.toArrayList() : null;
+        if (null == tools) {
+            mHideAnnotMenuTypes = null;
+            return;
+        }
+        BitSet types = new BitSet();
+        for (int i = 0; i < tools.size(); i++) {
+            if (tools.getType(i) == ReadableType.String) {
+                int type = IdentifierRegistry.convStringToAnnotType(tools.getString(i));
+                if (type >= 0) {
+                    types.set(type);
+                }
+            }
+        }
+        mHideAnnotMenuTypes = types;
     }
 
     public void setLongPressMenuItems(ReadableArray items) {
-        mLongPressMenuItems = items != null ? items.toArrayList() : null;
+        mLongPressMenuItems = toStringSet(items);
     }
 
     public void setLongPressMenuEnabled(boolean longPressMenuEnabled) {
         mToolManagerBuilder = mToolManagerBuilder.setDisableQuickMenu(!longPressMenuEnabled);
     }
 
+    public void setViewportEventThrottle(int throttleMs) {
+        mViewportEventCoalescer.setThrottle(throttleMs);
+    }
+
+    public void setSubscribedEvents(@Nullable ReadableArray events) {
+        if (null == events) {
+            mSubscribedEvents = null;
+            return;
+        }
+        HashSet<String> subscribedEvents = new HashSet<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            subscribedEvents.add(events.getString(i));
+        }
+        mSubscribedEvents = subscribedEvents;
+    }
+
+    public WritableMap getSkippedEventCounts() {
+        WritableMap result = Arguments.createMap();
+        synchronized (mSkippedEventCounts) {
+            for (Map.Entry<String, Integer> entry : mSkippedEventCounts.entrySet()) {
+                result.putInt(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private boolean hasSubscriber(String eventName) {
+        HashSet<String> subscribedEvents = mSubscribedEvents;
+        return null == subscribedEvents || subscribedEvents.contains(eventName);
+    }
+
+    /**
+     * @return whether the payload of the event should be built, counts the event as skipped otherwise
+     */
+    private boolean shouldEmit(String eventName) {
+        if (hasSubscriber(eventName)) {
+            return true;
+        }
+        countSkippedEvent(eventName);
+        return false;
+    }
+
+    private void countSkippedEvent(String eventName) {
+        synchronized (mSkippedEventCounts) {
+            Integer count = mSkippedEventCounts.get(eventName);
+            mSkippedEventCounts.put(eventName, null == count ? 1 : count + 1);
+        }
+    }
+
+    public void setBookmarkChangeMode(String mode) {
+        mBookmarkChangeMode = BOOKMARK_CHANGE_MODE_DIFF.equals(mode) ? BOOKMARK_CHANGE_MODE_DIFF : BOOKMARK_CHANGE_MODE_FULL;
+        if (BOOKMARK_CHANGE_MODE_FULL.equals(mBookmarkChangeMode)) {
+            synchronized (mBookmarkSnapshotLock) {
+                mBookmarkSnapshot = null;
+            }
+        } else {
+            takeBookmarkSnapshot();
+        }
+    }
+
+    public void setAnnotationChangeBatchWindow(int windowMs) {
+        mAnnotationChangeBatchWindow = Math.max(0, windowMs);
+    }
+
     public void setPageChangeOnTap(boolean pageChangeOnTap) {
         Context context = getContext();
         if (context != null) {
@@ -435,11 +708,28 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     }
 
     public void setOverrideAnnotationMenuBehavior(ReadableArray items) {
-        mAnnotMenuOverrideItems = items != null ? items.toArrayList() : null;
+        mAnnotMenuOverrideItems = toStringSet(items);
     }
 
     public void setOverrideLongPressMenuBehavior(ReadableArray items) {
-        mLongPressMenuOverrideItems = items != null ? items.toArrayList() : null;
+        mLongPressMenuOverrideItems = toStringSet(items);
+    }
+
+    /**
+     * @return the strings in the array, null if there is no array
+     */
+    @Nullable
+    private static HashSet<String> toStringSet(@Nullable ReadableArray items) {
+        if (null == items) {
+            return null;
+        }
+        HashSet<String> set = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.getType(i) == ReadableType.String) {
+                set.add(items.getString(i));
+            }
+        }
+        return set;
     }
 
     public void setOverrideBehavior(@NonNull ReadableArray items) {
@@ -503,8 +793,8 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
                                 .setIcon(convStringToToolbarDefaultIconRes(toolbarIcon));
                         for (int j = 0; j < toolbarItems.size(); j++) {
                             String toolStr = toolbarItems.getString(j);
-                            ToolbarButtonType buttonType = convStringToToolbarType(toolStr);
-                            int buttonId = convStringToButtonId(toolStr);
+                            ToolbarButtonType buttonType = IdentifierRegistry.convStringToToolbarType(toolStr);
+                            int buttonId = IdentifierRegistry.convStringToButtonId(toolStr);
                             if (buttonType != null && buttonId != 0) {
                                 if (buttonType == ToolbarButtonType.UNDO ||
                                         buttonType == ToolbarButtonType.REDO) {
@@ -648,455 +938,13 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     private void disableTools(ReadableArray args) {
         for (int i = 0; i < args.size(); i++) {
             String item = args.getString(i);
-            ToolManager.ToolMode mode = convStringToToolMode(item);
+            ToolManager.ToolMode mode = IdentifierRegistry.convStringToToolMode(item);
             if (mode != null) {
                 mDisabledTools.add(mode);
             }
         }
     }
 
-    @Nullable
-    private int convStringToAnnotType(String item) {
-        int annotType = Annot.e_Unknown;
-        if (TOOL_BUTTON_FREE_HAND.equals(item) || TOOL_ANNOTATION_CREATE_FREE_HAND.equals(item)) {
-            annotType = Annot.e_Ink;
-        } else if (TOOL_BUTTON_HIGHLIGHT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_HIGHLIGHT.equals(item)) {
-            annotType = Annot.e_Highlight;
-        } else if (TOOL_BUTTON_UNDERLINE.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_UNDERLINE.equals(item)) {
-            annotType = Annot.e_Underline;
-        } else if (TOOL_BUTTON_SQUIGGLY.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_SQUIGGLY.equals(item)) {
-            annotType = Annot.e_Squiggly;
-        } else if (TOOL_BUTTON_STRIKEOUT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_STRIKEOUT.equals(item)) {
-            annotType = Annot.e_StrikeOut;
-        } else if (TOOL_BUTTON_RECTANGLE.equals(item) || TOOL_ANNOTATION_CREATE_RECTANGLE.equals(item)) {
-            annotType = Annot.e_Square;
-        } else if (TOOL_BUTTON_ELLIPSE.equals(item) || TOOL_ANNOTATION_CREATE_ELLIPSE.equals(item)) {
-            annotType = Annot.e_Circle;
-        } else if (TOOL_BUTTON_LINE.equals(item) || TOOL_ANNOTATION_CREATE_LINE.equals(item)) {
-            annotType = Annot.e_Line;
-        } else if (TOOL_BUTTON_ARROW.equals(item) || TOOL_ANNOTATION_CREATE_ARROW.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_ARROW;
-        } else if (TOOL_BUTTON_POLYLINE.equals(item) || TOOL_ANNOTATION_CREATE_POLYLINE.equals(item)) {
-            annotType = Annot.e_Polyline;
-        } else if (TOOL_BUTTON_POLYGON.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON.equals(item)) {
-            annotType = Annot.e_Polygon;
-        } else if (TOOL_BUTTON_CLOUD.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON_CLOUD.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_CLOUD;
-        } else if (TOOL_BUTTON_SIGNATURE.equals(item) || TOOL_ANNOTATION_CREATE_SIGNATURE.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_SIGNATURE;
-        } else if (TOOL_BUTTON_FREE_TEXT.equals(item) || TOOL_ANNOTATION_CREATE_FREE_TEXT.equals(item)) {
-            annotType = Annot.e_FreeText;
-        } else if (TOOL_BUTTON_STICKY.equals(item) || TOOL_ANNOTATION_CREATE_STICKY.equals(item)) {
-            annotType = Annot.e_Text;
-        } else if (TOOL_BUTTON_CALLOUT.equals(item) || TOOL_ANNOTATION_CREATE_CALLOUT.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_CALLOUT;
-        } else if (TOOL_BUTTON_STAMP.equals(item) || TOOL_ANNOTATION_CREATE_STAMP.equals(item)) {
-            annotType = Annot.e_Stamp;
-        } else if (TOOL_ANNOTATION_CREATE_DISTANCE_MEASUREMENT.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_RULER;
-        } else if (TOOL_ANNOTATION_CREATE_PERIMETER_MEASUREMENT.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_PERIMETER_MEASURE;
-        } else if (TOOL_ANNOTATION_CREATE_AREA_MEASUREMENT.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_AREA_MEASURE;
-        } else if (TOOL_ANNOTATION_CREATE_FILE_ATTACHMENT.equals(item)) {
-            annotType = Annot.e_FileAttachment;
-        } else if (TOOL_ANNOTATION_CREATE_SOUND.equals(item)) {
-            annotType = Annot.e_Sound;
-        } else if (TOOL_ANNOTATION_CREATE_REDACTION.equals(item) || TOOL_ANNOTATION_CREATE_REDACTION_TEXT.equals(item)) {
-            annotType = Annot.e_Redact;
-        } else if (TOOL_ANNOTATION_CREATE_LINK.equals(item) || TOOL_ANNOTATION_CREATE_LINK_TEXT.equals(item)) {
-            annotType = Annot.e_Link;
-        } else if (TOOL_TEXT_SELECT.equals(item)) {
-            annotType = Annot.e_Unknown;
-        } else if (TOOL_PAN.equals(item)) {
-            annotType = Annot.e_Unknown;
-        } else if (TOOL_ANNOTATION_EDIT.equals(item)) {
-            annotType = Annot.e_Unknown;
-        } else if (TOOL_FORM_CREATE_TEXT_FIELD.equals(item)) {
-            annotType = Annot.e_Widget;
-        } else if (TOOL_FORM_CREATE_CHECKBOX_FIELD.equals(item)) {
-            annotType = Annot.e_Widget;
-        } else if (TOOL_FORM_CREATE_SIGNATURE_FIELD.equals(item)) {
-            annotType = Annot.e_Widget;
-        } else if (TOOL_FORM_CREATE_RADIO_FIELD.equals(item)) {
-            annotType = Annot.e_Widget;
-        } else if (TOOL_FORM_CREATE_COMBO_BOX_FIELD.equals(item)) {
-            annotType = Annot.e_Widget;
-        } else if (TOOL_FORM_CREATE_TOOL_BOX_FIELD.equals(item)) {
-            annotType = Annot.e_Widget;
-        } else if (TOOL_FORM_CREATE_LIST_BOX_FIELD.equals(item)) {
-            annotType = Annot.e_Widget;
-        } else if (TOOL_ANNOTATION_CREATE_FREE_HIGHLIGHTER.equals(item)) {
-            annotType = AnnotStyle.CUSTOM_ANNOT_TYPE_FREE_HIGHLIGHTER;
-        }
-        return annotType;
-    }
-
-    @Nullable
-    private ToolManager.ToolMode convStringToToolMode(String item) {
-        ToolManager.ToolMode mode = null;
-        if (TOOL_BUTTON_FREE_HAND.equals(item) || TOOL_ANNOTATION_CREATE_FREE_HAND.equals(item)) {
-            mode = ToolManager.ToolMode.INK_CREATE;
-        } else if (TOOL_BUTTON_HIGHLIGHT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_HIGHLIGHT.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_HIGHLIGHT;
-        } else if (TOOL_BUTTON_UNDERLINE.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_UNDERLINE.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_UNDERLINE;
-        } else if (TOOL_BUTTON_SQUIGGLY.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_SQUIGGLY.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_SQUIGGLY;
-        } else if (TOOL_BUTTON_STRIKEOUT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_STRIKEOUT.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_STRIKEOUT;
-        } else if (TOOL_BUTTON_RECTANGLE.equals(item) || TOOL_ANNOTATION_CREATE_RECTANGLE.equals(item)) {
-            mode = ToolManager.ToolMode.RECT_CREATE;
-        } else if (TOOL_BUTTON_ELLIPSE.equals(item) || TOOL_ANNOTATION_CREATE_ELLIPSE.equals(item)) {
-            mode = ToolManager.ToolMode.OVAL_CREATE;
-        } else if (TOOL_BUTTON_LINE.equals(item) || TOOL_ANNOTATION_CREATE_LINE.equals(item)) {
-            mode = ToolManager.ToolMode.LINE_CREATE;
-        } else if (TOOL_BUTTON_ARROW.equals(item) || TOOL_ANNOTATION_CREATE_ARROW.equals(item)) {
-            mode = ToolManager.ToolMode.ARROW_CREATE;
-        } else if (TOOL_BUTTON_POLYLINE.equals(item) || TOOL_ANNOTATION_CREATE_POLYLINE.equals(item)) {
-            mode = ToolManager.ToolMode.POLYLINE_CREATE;
-        } else if (TOOL_BUTTON_POLYGON.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON.equals(item)) {
-            mode = ToolManager.ToolMode.POLYGON_CREATE;
-        } else if (TOOL_BUTTON_CLOUD.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON_CLOUD.equals(item)) {
-            mode = ToolManager.ToolMode.CLOUD_CREATE;
-        } else if (TOOL_BUTTON_SIGNATURE.equals(item) || TOOL_ANNOTATION_CREATE_SIGNATURE.equals(item)) {
-            mode = ToolManager.ToolMode.SIGNATURE;
-        } else if (TOOL_BUTTON_FREE_TEXT.equals(item) || TOOL_ANNOTATION_CREATE_FREE_TEXT.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_CREATE;
-        } else if (TOOL_BUTTON_STICKY.equals(item) || TOOL_ANNOTATION_CREATE_STICKY.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_ANNOT_CREATE;
-        } else if (TOOL_BUTTON_CALLOUT.equals(item) || TOOL_ANNOTATION_CREATE_CALLOUT.equals(item)) {
-            mode = ToolManager.ToolMode.CALLOUT_CREATE;
-        } else if (TOOL_BUTTON_STAMP.equals(item) || TOOL_ANNOTATION_CREATE_STAMP.equals(item)) {
-            mode = ToolManager.ToolMode.STAMPER;
-        } else if (TOOL_ANNOTATION_CREATE_RUBBER_STAMP.equals(item)) {
-            mode = ToolManager.ToolMode.RUBBER_STAMPER;
-        } else if (TOOL_ANNOTATION_CREATE_DISTANCE_MEASUREMENT.equals(item)) {
-            mode = ToolManager.ToolMode.RULER_CREATE;
-        } else if (TOOL_ANNOTATION_CREATE_PERIMETER_MEASUREMENT.equals(item)) {
-            mode = ToolManager.ToolMode.PERIMETER_MEASURE_CREATE;
-        } else if (TOOL_ANNOTATION_CREATE_AREA_MEASUREMENT.equals(item)) {
-            mode = ToolManager.ToolMode.AREA_MEASURE_CREATE;
-        } else if (TOOL_ANNOTATION_CREATE_FILE_ATTACHMENT.equals(item)) {
-            mode = ToolManager.ToolMode.FILE_ATTACHMENT_CREATE;
-        } else if (TOOL_ANNOTATION_CREATE_SOUND.equals(item)) {
-            mode = ToolManager.ToolMode.SOUND_CREATE;
-        } else if (TOOL_ANNOTATION_CREATE_REDACTION.equals(item)) {
-            mode = ToolManager.ToolMode.RECT_REDACTION;
-        } else if (TOOL_ANNOTATION_CREATE_LINK.equals(item)) {
-            mode = ToolManager.ToolMode.RECT_LINK;
-        } else if (TOOL_ANNOTATION_CREATE_REDACTION_TEXT.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_REDACTION;
-        } else if (TOOL_ANNOTATION_CREATE_LINK_TEXT.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_LINK_CREATE;
-        } else if (TOOL_TEXT_SELECT.equals(item)) {
-            mode = ToolManager.ToolMode.TEXT_SELECT;
-        } else if (TOOL_PAN.equals(item)) {
-            mode = ToolManager.ToolMode.PAN;
-        } else if (TOOL_ANNOTATION_EDIT.equals(item)) {
-            mode = ToolManager.ToolMode.ANNOT_EDIT_RECT_GROUP;
-        } else if (TOOL_FORM_CREATE_TEXT_FIELD.equals(item)) {
-            mode = ToolManager.ToolMode.FORM_TEXT_FIELD_CREATE;
-        } else if (TOOL_FORM_CREATE_CHECKBOX_FIELD.equals(item)) {
-            mode = ToolManager.ToolMode.FORM_CHECKBOX_CREATE;
-        } else if (TOOL_FORM_CREATE_SIGNATURE_FIELD.equals(item)) {
-            mode = ToolManager.ToolMode.FORM_SIGNATURE_CREATE;
-        } else if (TOOL_FORM_CREATE_RADIO_FIELD.equals(item)) {
-            mode = ToolManager.ToolMode.FORM_RADIO_GROUP_CREATE;
-        } else if (TOOL_FORM_CREATE_COMBO_BOX_FIELD.equals(item)) {
-            mode = ToolManager.ToolMode.FORM_COMBO_BOX_CREATE;
-        } else if (TOOL_FORM_CREATE_LIST_BOX_FIELD.equals(item)) {
-            mode = ToolManager.ToolMode.FORM_LIST_BOX_CREATE;
-        } else if (TOOL_ANNOTATION_ERASER_TOOL.equals(item)) {
-            mode = ToolManager.ToolMode.INK_ERASER;
-        } else if (TOOL_ANNOTATION_CREATE_FREE_HIGHLIGHTER.equals(item)) {
-            mode = ToolManager.ToolMode.FREE_HIGHLIGHTER;
-        }
-        return mode;
-    }
-
-    @Nullable
-    private String convToolModeToString(ToolManager.ToolMode toolMode) {
-        String toolModeString = null;
-        switch (toolMode) {
-            case INK_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_FREE_HAND;
-                break;
-            case TEXT_UNDERLINE:
-                toolModeString = TOOL_ANNOTATION_CREATE_TEXT_UNDERLINE;
-                break;
-            case TEXT_SQUIGGLY:
-                toolModeString = TOOL_ANNOTATION_CREATE_TEXT_SQUIGGLY;
-                break;
-            case TEXT_STRIKEOUT:
-                toolModeString = TOOL_ANNOTATION_CREATE_TEXT_STRIKEOUT;
-                break;
-            case RECT_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_RECTANGLE;
-                break;
-            case OVAL_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_ELLIPSE;
-                break;
-            case LINE_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_LINE;
-                break;
-            case ARROW_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_ARROW;
-                break;
-            case POLYLINE_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_POLYLINE;
-                break;
-            case POLYGON_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_POLYGON;
-                break;
-            case CLOUD_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_POLYGON_CLOUD;
-                break;
-            case SIGNATURE:
-                toolModeString = TOOL_ANNOTATION_CREATE_SIGNATURE;
-                break;
-            case TEXT_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_FREE_TEXT;
-                break;
-            case TEXT_ANNOT_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_STICKY;
-                break;
-            case STAMPER:
-                toolModeString = TOOL_ANNOTATION_CREATE_STAMP;
-                break;
-            case RUBBER_STAMPER:
-                toolModeString = TOOL_ANNOTATION_CREATE_RUBBER_STAMP;
-                break;
-            case RULER_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_DISTANCE_MEASUREMENT;
-                break;
-            case PERIMETER_MEASURE_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_PERIMETER_MEASUREMENT;
-                break;
-            case AREA_MEASURE_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_AREA_MEASUREMENT;
-                break;
-            case FILE_ATTACHMENT_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_FILE_ATTACHMENT;
-                break;
-            case SOUND_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_SOUND;
-                break;
-            case RECT_REDACTION:
-                toolModeString = TOOL_ANNOTATION_CREATE_REDACTION;
-                break;
-            case RECT_LINK:
-                toolModeString = TOOL_ANNOTATION_CREATE_LINK;
-                break;
-            case TEXT_REDACTION:
-                toolModeString = TOOL_ANNOTATION_CREATE_REDACTION_TEXT;
-                break;
-            case TEXT_LINK_CREATE:
-                toolModeString = TOOL_ANNOTATION_CREATE_LINK_TEXT;
-                break;
-            case TEXT_SELECT:
-                toolModeString = TOOL_TEXT_SELECT;
-                break;
-            case PAN:
-                toolModeString = TOOL_PAN;
-                break;
-            case ANNOT_EDIT_RECT_GROUP:
-                toolModeString = TOOL_ANNOTATION_EDIT;
-                break;
-            case FORM_TEXT_FIELD_CREATE:
-                toolModeString = TOOL_FORM_CREATE_TEXT_FIELD;
-                break;
-            case FORM_CHECKBOX_CREATE:
-                toolModeString = TOOL_FORM_CREATE_CHECKBOX_FIELD;
-                break;
-            case FORM_SIGNATURE_CREATE:
-                toolModeString = TOOL_FORM_CREATE_SIGNATURE_FIELD;
-                break;
-            case FORM_RADIO_GROUP_CREATE:
-                toolModeString = TOOL_FORM_CREATE_RADIO_FIELD;
-                break;
-            case FORM_COMBO_BOX_CREATE:
-                toolModeString = TOOL_FORM_CREATE_COMBO_BOX_FIELD;
-                break;
-            case FORM_LIST_BOX_CREATE:
-                toolModeString = TOOL_FORM_CREATE_LIST_BOX_FIELD;
-                break;
-            case INK_ERASER:
-                toolModeString = TOOL_ANNOTATION_ERASER_TOOL;
-                break;
-            case FREE_HIGHLIGHTER:
-                toolModeString = TOOL_ANNOTATION_CREATE_FREE_HIGHLIGHTER;
-                break;
-        }
-
-        return toolModeString;
-    }
-
-    private int convStringToButtonId(String item) {
-        int buttonId = 0;
-        if (TOOL_BUTTON_FREE_HAND.equals(item) || TOOL_ANNOTATION_CREATE_FREE_HAND.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.INK.value();
-        } else if (TOOL_BUTTON_HIGHLIGHT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_HIGHLIGHT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.TEXT_HIGHLIGHT.value();
-        } else if (TOOL_BUTTON_UNDERLINE.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_UNDERLINE.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.TEXT_UNDERLINE.value();
-        } else if (TOOL_BUTTON_SQUIGGLY.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_SQUIGGLY.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.TEXT_SQUIGGLY.value();
-        } else if (TOOL_BUTTON_STRIKEOUT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_STRIKEOUT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.TEXT_STRIKEOUT.value();
-        } else if (TOOL_BUTTON_RECTANGLE.equals(item) || TOOL_ANNOTATION_CREATE_RECTANGLE.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.SQUARE.value();
-        } else if (TOOL_BUTTON_ELLIPSE.equals(item) || TOOL_ANNOTATION_CREATE_ELLIPSE.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.CIRCLE.value();
-        } else if (TOOL_BUTTON_LINE.equals(item) || TOOL_ANNOTATION_CREATE_LINE.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.LINE.value();
-        } else if (TOOL_BUTTON_ARROW.equals(item) || TOOL_ANNOTATION_CREATE_ARROW.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.ARROW.value();
-        } else if (TOOL_BUTTON_POLYLINE.equals(item) || TOOL_ANNOTATION_CREATE_POLYLINE.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.POLYLINE.value();
-        } else if (TOOL_BUTTON_POLYGON.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.POLYGON.value();
-        } else if (TOOL_BUTTON_CLOUD.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON_CLOUD.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.POLY_CLOUD.value();
-        } else if (TOOL_BUTTON_SIGNATURE.equals(item) || TOOL_ANNOTATION_CREATE_SIGNATURE.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.SIGNATURE.value();
-        } else if (TOOL_BUTTON_FREE_TEXT.equals(item) || TOOL_ANNOTATION_CREATE_FREE_TEXT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.FREE_TEXT.value();
-        } else if (TOOL_BUTTON_STICKY.equals(item) || TOOL_ANNOTATION_CREATE_STICKY.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.STICKY_NOTE.value();
-        } else if (TOOL_BUTTON_CALLOUT.equals(item) || TOOL_ANNOTATION_CREATE_CALLOUT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.CALLOUT.value();
-        } else if (TOOL_BUTTON_STAMP.equals(item) || TOOL_ANNOTATION_CREATE_STAMP.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.STAMP.value();
-        } else if (TOOL_ANNOTATION_CREATE_RUBBER_STAMP.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.STAMP.value();
-        } else if (TOOL_ANNOTATION_CREATE_DISTANCE_MEASUREMENT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.RULER.value();
-        } else if (TOOL_ANNOTATION_CREATE_PERIMETER_MEASUREMENT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.PERIMETER.value();
-        } else if (TOOL_ANNOTATION_CREATE_AREA_MEASUREMENT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.AREA.value();
-        } else if (TOOL_ANNOTATION_CREATE_FILE_ATTACHMENT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.ATTACHMENT.value();
-        } else if (TOOL_ANNOTATION_CREATE_SOUND.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.SOUND.value();
-        } else if (TOOL_ANNOTATION_CREATE_REDACTION.equals(item)) {
-            // TODO
-        } else if (TOOL_ANNOTATION_CREATE_LINK.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.LINK.value();
-        } else if (TOOL_ANNOTATION_CREATE_REDACTION_TEXT.equals(item)) {
-            // TODO
-        } else if (TOOL_ANNOTATION_CREATE_LINK_TEXT.equals(item)) {
-            // TODO
-        } else if (TOOL_ANNOTATION_EDIT.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.MULTI_SELECT.value();
-        } else if (TOOL_FORM_CREATE_TEXT_FIELD.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.TEXT_FIELD.value();
-        } else if (TOOL_FORM_CREATE_CHECKBOX_FIELD.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.CHECKBOX.value();
-        } else if (TOOL_FORM_CREATE_SIGNATURE_FIELD.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.SIGNATURE_FIELD.value();
-        } else if (TOOL_FORM_CREATE_RADIO_FIELD.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.RADIO_BUTTON.value();
-        } else if (TOOL_FORM_CREATE_COMBO_BOX_FIELD.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.COMBO_BOX.value();
-        } else if (TOOL_FORM_CREATE_LIST_BOX_FIELD.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.LIST_BOX.value();
-        } else if (TOOL_ANNOTATION_ERASER_TOOL.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.ERASER.value();
-        } else if (TOOL_ANNOTATION_CREATE_FREE_HIGHLIGHTER.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.FREE_HIGHLIGHT.value();
-        } else if (BUTTON_UNDO.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.UNDO.value();
-        } else if (BUTTON_REDO.equals(item)) {
-            buttonId = DefaultToolbars.ButtonId.REDO.value();
-        }
-        return buttonId;
-    }
-
-    @Nullable
-    private ToolbarButtonType convStringToToolbarType(String item) {
-        ToolbarButtonType buttonType = null;
-        if (TOOL_BUTTON_FREE_HAND.equals(item) || TOOL_ANNOTATION_CREATE_FREE_HAND.equals(item)) {
-            buttonType = ToolbarButtonType.INK;
-        } else if (TOOL_BUTTON_HIGHLIGHT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_HIGHLIGHT.equals(item)) {
-            buttonType = ToolbarButtonType.TEXT_HIGHLIGHT;
-        } else if (TOOL_BUTTON_UNDERLINE.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_UNDERLINE.equals(item)) {
-            buttonType = ToolbarButtonType.TEXT_UNDERLINE;
-        } else if (TOOL_BUTTON_SQUIGGLY.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_SQUIGGLY.equals(item)) {
-            buttonType = ToolbarButtonType.TEXT_SQUIGGLY;
-        } else if (TOOL_BUTTON_STRIKEOUT.equals(item) || TOOL_ANNOTATION_CREATE_TEXT_STRIKEOUT.equals(item)) {
-            buttonType = ToolbarButtonType.TEXT_STRIKEOUT;
-        } else if (TOOL_BUTTON_RECTANGLE.equals(item) || TOOL_ANNOTATION_CREATE_RECTANGLE.equals(item)) {
-            buttonType = ToolbarButtonType.SQUARE;
-        } else if (TOOL_BUTTON_ELLIPSE.equals(item) || TOOL_ANNOTATION_CREATE_ELLIPSE.equals(item)) {
-            buttonType = ToolbarButtonType.CIRCLE;
-        } else if (TOOL_BUTTON_LINE.equals(item) || TOOL_ANNOTATION_CREATE_LINE.equals(item)) {
-            buttonType = ToolbarButtonType.LINE;
-        } else if (TOOL_BUTTON_ARROW.equals(item) || TOOL_ANNOTATION_CREATE_ARROW.equals(item)) {
-            buttonType = ToolbarButtonType.ARROW;
-        } else if (TOOL_BUTTON_POLYLINE.equals(item) || TOOL_ANNOTATION_CREATE_POLYLINE.equals(item)) {
-            buttonType = ToolbarButtonType.POLYLINE;
-        } else if (TOOL_BUTTON_POLYGON.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON.equals(item)) {
-            buttonType = ToolbarButtonType.POLYGON;
-        } else if (TOOL_BUTTON_CLOUD.equals(item) || TOOL_ANNOTATION_CREATE_POLYGON_CLOUD.equals(item)) {
-            buttonType = ToolbarButtonType.POLY_CLOUD;
-        } else if (TOOL_BUTTON_SIGNATURE.equals(item) || TOOL_ANNOTATION_CREATE_SIGNATURE.equals(item)) {
-            buttonType = ToolbarButtonType.SIGNATURE;
-        } else if (TOOL_BUTTON_FREE_TEXT.equals(item) || TOOL_ANNOTATION_CREATE_FREE_TEXT.equals(item)) {
-            buttonType = ToolbarButtonType.FREE_TEXT;
-        } else if (TOOL_BUTTON_STICKY.equals(item) || TOOL_ANNOTATION_CREATE_STICKY.equals(item)) {
-            buttonType = ToolbarButtonType.STICKY_NOTE;
-        } else if (TOOL_BUTTON_CALLOUT.equals(item) || TOOL_ANNOTATION_CREATE_CALLOUT.equals(item)) {
-            buttonType = ToolbarButtonType.CALLOUT;
-        } else if (TOOL_BUTTON_STAMP.equals(item) || TOOL_ANNOTATION_CREATE_STAMP.equals(item)) {
-            buttonType = ToolbarButtonType.STAMP;
-        } else if (TOOL_ANNOTATION_CREATE_RUBBER_STAMP.equals(item)) {
-            buttonType = ToolbarButtonType.STAMP;
-        } else if (TOOL_ANNOTATION_CREATE_DISTANCE_MEASUREMENT.equals(item)) {
-            buttonType = ToolbarButtonType.RULER;
-        } else if (TOOL_ANNOTATION_CREATE_PERIMETER_MEASUREMENT.equals(item)) {
-            buttonType = ToolbarButtonType.PERIMETER;
-        } else if (TOOL_ANNOTATION_CREATE_AREA_MEASUREMENT.equals(item)) {
-            buttonType = ToolbarButtonType.AREA;
-        } else if (TOOL_ANNOTATION_CREATE_FILE_ATTACHMENT.equals(item)) {
-            buttonType = ToolbarButtonType.ATTACHMENT;
-        } else if (TOOL_ANNOTATION_CREATE_SOUND.equals(item)) {
-            buttonType = ToolbarButtonType.SOUND;
-        } else if (TOOL_ANNOTATION_CREATE_REDACTION.equals(item)) {
-            // TODO
-        } else if (TOOL_ANNOTATION_CREATE_LINK.equals(item)) {
-            buttonType = ToolbarButtonType.LINK;
-        } else if (TOOL_ANNOTATION_CREATE_REDACTION_TEXT.equals(item)) {
-            // TODO
-        } else if (TOOL_ANNOTATION_CREATE_LINK_TEXT.equals(item)) {
-            // TODO
-        } else if (TOOL_ANNOTATION_EDIT.equals(item)) {
-            buttonType = ToolbarButtonType.MULTI_SELECT;
-        } else if (TOOL_FORM_CREATE_TEXT_FIELD.equals(item)) {
-            buttonType = ToolbarButtonType.TEXT_FIELD;
-        } else if (TOOL_FORM_CREATE_CHECKBOX_FIELD.equals(item)) {
-            buttonType = ToolbarButtonType.CHECKBOX;
-        } else if (TOOL_FORM_CREATE_SIGNATURE_FIELD.equals(item)) {
-            buttonType = ToolbarButtonType.SIGNATURE_FIELD;
-        } else if (TOOL_FORM_CREATE_RADIO_FIELD.equals(item)) {
-            buttonType = ToolbarButtonType.RADIO_BUTTON;
-        } else if (TOOL_FORM_CREATE_COMBO_BOX_FIELD.equals(item)) {
-            buttonType = ToolbarButtonType.COMBO_BOX;
-        } else if (TOOL_FORM_CREATE_LIST_BOX_FIELD.equals(item)) {
-            buttonType = ToolbarButtonType.LIST_BOX;
-        } else if (TOOL_ANNOTATION_ERASER_TOOL.equals(item)) {
-            buttonType = ToolbarButtonType.ERASER;
-        } else if (TOOL_ANNOTATION_CREATE_FREE_HIGHLIGHTER.equals(item)) {
-            buttonType = ToolbarButtonType.FREE_HIGHLIGHT;
-        } else if (BUTTON_UNDO.equals(item)) {
-            buttonType = ToolbarButtonType.UNDO;
-        } else if (BUTTON_REDO.equals(item)) {
-            buttonType = ToolbarButtonType.REDO;
-        }
-        return buttonType;
-    }
-
     private int convStringToToolbarDefaultIconRes(String item) {
         if (TAG_VIEW_TOOLBAR.equals(item)) {
             return R.drawable.ic_view;
@@ -1122,174 +970,20 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         return 0;
     }
 
-    private void checkQuickMenu(List<QuickMenuItem> menuItems, ArrayList<Object> keepList, List<QuickMenuItem> removeList) {
+    private void checkQuickMenu(List<QuickMenuItem> menuItems, Set<String> keepList, List<QuickMenuItem> removeList) {
         for (QuickMenuItem item : menuItems) {
             int menuId = item.getItemId();
             if (ToolConfig.getInstance().getToolModeByQMItemId(menuId) != null) {
                 // skip real annotation tools
                 return;
             }
-            String menuStr = convQuickMenuIdToString(menuId);
+            String menuStr = IdentifierRegistry.convQuickMenuIdToString(menuId);
             if (!keepList.contains(menuStr)) {
                 removeList.add(item);
             }
         }
     }
 
-    @Nullable
-    private String convQuickMenuIdToString(int id) {
-        String menuStr = null;
-        if (id == R.id.qm_appearance) {
-            menuStr = MENU_ID_STRING_STYLE;
-        } else if (id == R.id.qm_note) {
-            menuStr = MENU_ID_STRING_NOTE;
-        } else if (id == R.id.qm_copy) {
-            menuStr = MENU_ID_STRING_COPY;
-        } else if (id == R.id.qm_delete) {
-            menuStr = MENU_ID_STRING_DELETE;
-        } else if (id == R.id.qm_flatten) {
-            menuStr = MENU_ID_STRING_FLATTEN;
-        } else if (id == R.id.qm_text) {
-            menuStr = MENU_ID_STRING_TEXT;
-        } else if (id == R.id.qm_edit) {
-            menuStr = MENU_ID_STRING_EDIT_INK;
-        } else if (id == R.id.qm_search) {
-            menuStr = MENU_ID_STRING_SEARCH;
-        } else if (id == R.id.qm_share) {
-            menuStr = MENU_ID_STRING_SHARE;
-        } else if (id == R.id.qm_type) {
-            menuStr = MENU_ID_STRING_MARKUP_TYPE;
-        } else if (id == R.id.qm_screencap_create) {
-            menuStr = MENU_ID_STRING_SCREEN_CAPTURE;
-        } else if (id == R.id.qm_play_sound) {
-            menuStr = MENU_ID_STRING_PLAY_SOUND;
-        } else if (id == R.id.qm_open_attachment) {
-            menuStr = MENU_ID_STRING_OPEN_ATTACHMENT;
-        } else if (id == R.id.qm_tts) {
-            menuStr = MENU_ID_STRING_READ;
-        } else if (id == R.id.qm_calibrate) {
-            menuStr = MENU_ID_STRING_CALIBRATE;
-        } else if (id == R.id.qm_underline) {
-            menuStr = MENU_ID_STRING_UNDERLINE;
-        } else if (id == R.id.qm_redact) {
-            menuStr = MENU_ID_STRING_REDACT;
-        } else if (id == R.id.qm_redaction) {
-            menuStr = MENU_ID_STRING_REDACTION;
-        } else if (id == R.id.qm_strikeout) {
-            menuStr = MENU_ID_STRING_STRIKEOUT;
-        } else if (id == R.id.qm_squiggly) {
-            menuStr = MENU_ID_STRING_SQUIGGLY;
-        } else if (id == R.id.qm_link) {
-            menuStr = MENU_ID_STRING_LINK;
-        } else if (id == R.id.qm_highlight) {
-            menuStr = MENU_ID_STRING_HIGHLIGHT;
-        } else if (id == R.id.qm_floating_sig) {
-            menuStr = MENU_ID_STRING_SIGNATURE;
-        } else if (id == R.id.qm_rectangle) {
-            menuStr = MENU_ID_STRING_RECTANGLE;
-        } else if (id == R.id.qm_line) {
-            menuStr = MENU_ID_STRING_LINE;
-        } else if (id == R.id.qm_free_hand) {
-            menuStr = MENU_ID_STRING_FREE_HAND;
-        } else if (id == R.id.qm_image_stamper) {
-            menuStr = MENU_ID_STRING_IMAGE;
-        } else if (id == R.id.qm_form_text) {
-            menuStr = MENU_ID_STRING_FORM_TEXT;
-        } else if (id == R.id.qm_sticky_note) {
-            menuStr = MENU_ID_STRING_STICKY_NOTE;
-        } else if (id == R.id.qm_overflow) {
-            menuStr = MENU_ID_STRING_OVERFLOW;
-        } else if (id == R.id.qm_ink_eraser) {
-            menuStr = MENU_ID_STRING_ERASER;
-        } else if (id == R.id.qm_rubber_stamper) {
-            menuStr = MENU_ID_STRING_STAMP;
-        } else if (id == R.id.qm_page_redaction) {
-            menuStr = MENU_ID_STRING_PAGE_REDACTION;
-        } else if (id == R.id.qm_rect_redaction) {
-            menuStr = MENU_ID_STRING_RECT_REDACTION;
-        } else if (id == R.id.qm_search_redaction) {
-            menuStr = MENU_ID_STRING_SEARCH_REDACTION;
-        } else if (id == R.id.qm_shape) {
-            menuStr = MENU_ID_STRING_SHAPE;
-        } else if (id == R.id.qm_cloud) {
-            menuStr = MENU_ID_STRING_CLOUD;
-        } else if (id == R.id.qm_polygon) {
-            menuStr = MENU_ID_STRING_POLYGON;
-        } else if (id == R.id.qm_polyline) {
-            menuStr = MENU_ID_STRING_POLYLINE;
-        } else if (id == R.id.qm_free_highlighter) {
-            menuStr = MENU_ID_STRING_FREE_HIGHLIGHTER;
-        } else if (id == R.id.qm_arrow) {
-            menuStr = MENU_ID_STRING_ARROW;
-        } else if (id == R.id.qm_oval) {
-            menuStr = MENU_ID_STRING_OVAL;
-        } else if (id == R.id.qm_callout) {
-            menuStr = MENU_ID_STRING_CALLOUT;
-        } else if (id == R.id.qm_measurement) {
-            menuStr = MENU_ID_STRING_MEASUREMENT;
-        } else if (id == R.id.qm_area_measure) {
-            menuStr = MENU_ID_STRING_AREA_MEASUREMENT;
-        } else if (id == R.id.qm_perimeter_measure) {
-            menuStr = MENU_ID_STRING_PERIMETER_MEASUREMENT;
-        } else if (id == R.id.qm_rect_area_measure) {
-            menuStr = MENU_ID_STRING_RECT_AREA_MEASUREMENT;
-        } else if (id == R.id.qm_ruler) {
-            menuStr = MENU_ID_STRING_RULER;
-        } else if (id == R.id.qm_form) {
-            menuStr = MENU_ID_STRING_FORM;
-        } else if (id == R.id.qm_form_combo_box) {
-            menuStr = MENU_ID_STRING_FORM_COMBO_BOX;
-        } else if (id == R.id.qm_form_list_box) {
-            menuStr = MENU_ID_STRING_FORM_LIST_BOX;
-        } else if (id == R.id.qm_form_check_box) {
-            menuStr = MENU_ID_STRING_FORM_CHECK_BOX;
-        } else if (id == R.id.qm_form_signature) {
-            menuStr = MENU_ID_STRING_FORM_SIGNATURE;
-        } else if (id == R.id.qm_form_radio_group) {
-            menuStr = MENU_ID_STRING_FORM_RADIO_GROUP;
-        } else if (id == R.id.qm_attach) {
-            menuStr = MENU_ID_STRING_ATTACH;
-        } else if (id == R.id.qm_file_attachment) {
-            menuStr = MENU_ID_STRING_FILE_ATTACHMENT;
-        } else if (id == R.id.qm_sound) {
-            menuStr = MENU_ID_STRING_SOUND;
-        } else if (id == R.id.qm_free_text) {
-            menuStr = MENU_ID_STRING_FREE_TEXT;
-        } else if (id == R.id.qm_crop) {
-            menuStr = MENU_ID_STRING_CROP;
-        } else if (id == R.id.qm_crop_ok) {
-            menuStr = MENU_ID_STRING_CROP_OK;
-        } else if (id == R.id.qm_crop_cancel) {
-            menuStr = MENU_ID_STRING_CROP_CANCEL;
-        } else if (id == R.id.qm_define) {
-            menuStr = MENU_ID_STRING_DEFINE;
-        } else if (id == R.id.qm_field_signed) {
-            menuStr = MENU_ID_STRING_FIELD_SIGNED;
-        } else if (id == R.id.qm_first_row_group) {
-            menuStr = MENU_ID_STRING_FIRST_ROW_GROUP;
-        } else if (id == R.id.qm_second_row_group) {
-            menuStr = MENU_ID_STRING_SECOND_ROW_GROUP;
-        } else if (id == R.id.qm_group) {
-            menuStr = MENU_ID_STRING_GROUP;
-        } else if (id == R.id.qm_paste) {
-            menuStr = MENU_ID_STRING_PASTE;
-        } else if (id == R.id.qm_rect_group_select) {
-            menuStr = MENU_ID_STRING_RECT_GROUP_SELECT;
-        } else if (id == R.id.qm_sign_and_save) {
-            menuStr = MENU_ID_STRING_SIGN_AND_SAVE;
-        } else if (id == R.id.qm_thickness) {
-            menuStr = MENU_ID_STRING_THICKNESS;
-        } else if (id == R.id.qm_translate) {
-            menuStr = MENU_ID_STRING_TRANSLATE;
-        } else if (id == R.id.qm_type) {
-            menuStr = MENU_ID_STRING_TYPE;
-        } else if (id == R.id.qm_ungroup) {
-            menuStr = MENU_ID_STRING_UNGROUP;
-        }
-
-        return menuStr;
-    }
-
     private ViewerConfig getConfig() {
         if (mCacheDir != null) {
             mBuilder.openUrlCachePath(mCacheDir)
@@ -1355,17 +1049,47 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
     @Override
     protected void onAttachedToWindow() {
+        // the viewer needs PDFNet, mounted while RNPdftron.initialize is still running it is
+        // attached once that is done instead of blocking the UI thread
+        mAttachPending = PDFNetInitializer.notifyWhenInitialized(new PDFNetInitializer.Callback() {
+            @Override
+            public void onInitialized(@Nullable HashMap<String, Object> stats, @Nullable Exception error) {
+                UiThreadUtil.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mAttachPending && isAttachedToWindow()) {
+                            mAttachPending = false;
+                            attachViewer();
+                        }
+                    }
+                });
+            }
+        });
+        if (!mAttachPending) {
+            attachViewer();
+        }
+    }
+
+    private void attachViewer() {
         if (null == mFragmentManager) {
             setSupportFragmentManager(mFragmentManagerSave);
         }
-        // TODO, update base64 when ViewerBuilder supports byte array
-        Uri fileUri = ReactUtils.getUri(getContext(), mDocumentPath, mIsBase64);
+        // TODO, update base64 when ViewerBuilder supports byte array,
+        // until then it is decoded to a cached file in a streaming fashion
+        // a document warmed up by RNPdftron.preloadDocument is taken over as is
+        Uri fileUri = takePreloadedDocument(mDocumentPath);
+        if (null == fileUri) {
+            if (isCachedRemoteDocument(mDocumentPath)) {
+                // opened once the cached copy is known to be current
+                openRemoteDocument(mDocumentPath);
+            } else {
+                fileUri = ReactUtils.getUri(getContext(), mDocumentPath, mIsBase64);
+            }
+        }
         if (fileUri != null) {
+            setCachedFile(fileUri);
             setDocumentUri(fileUri);
             setViewerConfig(getConfig());
-            if (mIsBase64 && fileUri.getPath() != null) {
-                mTempFile = new File(fileUri.getPath());
-            }
         }
         super.onAttachedToWindow();
 
@@ -1395,12 +1119,30 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
     @Override
     protected void onDetachedFromWindow() {
+        if (mAttachPending) {
+            // detached before PDFNet was initialized, the viewer was never attached
+            mAttachPending = false;
+            return;
+        }
         if (getPdfViewCtrl() != null) {
             getPdfViewCtrl().removePageChangeListener(mPageChangeListener);
             getPdfViewCtrl().removeOnCanvasSizeChangeListener(mOnCanvasSizeChangeListener);
+            getPdfViewCtrl().removeDocumentDownloadListener(mDocumentDownloadListener);
         }
+        mDeferredOperations.cancelAll(new PDFNetException("", 0L, TAG, "onDetachedFromWindow", "The document was closed before it finished downloading."));
+        mViewportEventCoalescer.cancel();
+        removeCallbacks(mFlushAnnotationChangesRunnable);
+        removeCallbacks(mExportBookmarksRunnable);
         if (getToolManager() != null) {
+            // the document is still open, deliver what is pending before the listeners go away
+            flushAnnotationChanges();
+            if (mBookmarkChangePending) {
+                mBookmarkChangePending = false;
+                emitBookmarkChange(getPdfViewCtrl());
+            }
             getToolManager().removeAnnotationModificationListener(mAnnotationModificationListener);
+            mAnnotationIndex.clear();
+            invalidateFieldCache();
             getToolManager().removeAnnotationsSelectionListener(mAnnotationsSelectionListener);
             getToolManager().removePdfDocModificationListener(mPdfDocModificationListener);
             getToolManager().removeToolChangedListener(mToolChangedListener);
@@ -1415,9 +1157,104 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         getViewTreeObserver().removeOnGlobalLayoutListener(mOnGlobalLayoutListener);
 
-        if (mTempFile != null && mTempFile.exists()) {
-            mTempFile.delete();
+        setCachedFile(null);
+    }
+
+    private boolean isCachedRemoteDocument(@Nullable String path) {
+        return mRemoteDocumentCacheEnabled && !mIsBase64 && path != null
+                && (URLUtil.isHttpUrl(path) || URLUtil.isHttpsUrl(path));
+    }
+
+    /**
+     * Revalidates the cached copy of the remote document in the background and opens it.
+     * A document that is not cached yet, or has changed, is opened from its url as usual, so that
+     * its first pages show while it loads. The copy the viewer downloads is added to the cache
+     * once the download has finished, see {@link #adoptRemoteDocument}. The document is also
+     * opened from its url if the cache fails.
+     */
+    private void openRemoteDocument(@NonNull final String path) {
+        final Context context = getContext();
+        final JSONObject headers = mCustomHeaders;
+        sRemoteDocumentExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DocumentCache documentCache = DocumentCache.getInstance(context);
+                File file = null;
+                // a preload of the same document that is still in progress is waited for
+                Uri preloadedUri = DocumentPreloader.getInstance(context).take(path, false, headers, true);
+                if (null == preloadedUri) {
+                    try {
+                        file = documentCache.acquireRemoteIfCurrent(path, headers);
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    }
+                }
+                final boolean fromUrl = null == preloadedUri && null == file;
+                final Uri fileUri = preloadedUri != null ? preloadedUri
+                        : file != null ? Uri.fromFile(file) : ReactUtils.getUri(context, path, false);
+                UiThreadUtil.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!path.equals(mDocumentPath) || !isAttachedToWindow() || null == fileUri) {
+                            // switched away or closed meanwhile
+                            if (fileUri != null) {
+                                documentCache.release(new File(fileUri.getPath()));
+                            }
+                            return;
+                        }
+                        mRemoteDocumentToAdopt = fromUrl ? path : null;
+                        mRemoteDocumentToAdoptHeaders = headers;
+                        setCachedFile(fileUri);
+                        setDocumentUri(fileUri);
+                        setViewerConfig(getConfig());
+                        invalidateFieldCache();
+                        prepView();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Adds the copy of a remote document the viewer downloaded from its url to the document cache,
+     * in the background. Nothing is downloaded again for it.
+     */
+    private void adoptRemoteDocument() {
+        final String url = mRemoteDocumentToAdopt;
+        final JSONObject headers = mRemoteDocumentToAdoptHeaders;
+        mRemoteDocumentToAdopt = null;
+        mRemoteDocumentToAdoptHeaders = null;
+        if (null == url || !url.equals(mDocumentPath) || null == getPdfViewCtrlTabFragment()) {
+            return;
+        }
+        final String filePath = getPdfViewCtrlTabFragment().getFilePath();
+        if (Utils.isNullOrEmpty(filePath)) {
+            return;
         }
+        final Context context = getContext();
+        sRemoteDocumentExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                DocumentCache.getInstance(context).adoptRemote(url, headers, new File(filePath));
+            }
+        });
+    }
+
+    @Nullable
+    private Uri takePreloadedDocument(@Nullable String path) {
+        return DocumentPreloader.getInstance(getContext()).take(path, mIsBase64, mCustomHeaders, false);
+    }
+
+    /**
+     * Keeps the file the document cache handed out for the current document, if any,
+     * and gives back the one of the previous document.
+     */
+    private void setCachedFile(@Nullable Uri fileUri) {
+        DocumentCache documentCache = DocumentCache.getInstance(getContext());
+        documentCache.release(mCachedFile);
+        File file = fileUri != null && fileUri.getPath() != null ? new File(fileUri.getPath()) : null;
+        mCachedFile = documentCache.contains(file) ? file : null;
+        mTempFile = mIsBase64 ? mCachedFile : null;
     }
 
     public void onActivityResult(int requestCode, int resultCode, Intent data) {
@@ -1497,7 +1334,7 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         @Override
         public boolean onQuickMenuClicked(QuickMenuItem quickMenuItem) {
             int menuId = quickMenuItem.getItemId();
-            String menuStr = convQuickMenuIdToString(menuId);
+            String menuStr = IdentifierRegistry.convQuickMenuIdToString(menuId);
 
             // check if this is an override menu
             boolean result = false;
@@ -1509,6 +1346,9 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
                     }
                     try {
                         // notify event
+                        if (!shouldEmit(ON_ANNOTATION_MENU_PRESS)) {
+                            return result;
+                        }
                         WritableMap params = Arguments.createMap();
                         params.putString(ON_ANNOTATION_MENU_PRESS, ON_ANNOTATION_MENU_PRESS);
                         params.putString(KEY_ANNOTATION_MENU, menuStr);
@@ -1523,6 +1363,9 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
                     }
                     try {
                         // notify event
+                        if (!shouldEmit(ON_LONG_PRESS_MENU_PRESS)) {
+                            return result;
+                        }
                         WritableMap params = Arguments.createMap();
                         params.putString(ON_LONG_PRESS_MENU_PRESS, ON_LONG_PRESS_MENU_PRESS);
                         params.putString(KEY_LONG_PRESS_MENU, menuStr);
@@ -1540,29 +1383,25 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         @Override
         public boolean onShowQuickMenu(QuickMenu quickMenu, Annot annot) {
             // first check if we need to show at all
-            if (mHideAnnotMenuTools != null && annot != null && getPdfViewCtrl() != null) {
-                for (Object item : mHideAnnotMenuTools) {
-                    if (item instanceof String) {
-                        String mode = (String) item;
-                        int type = convStringToAnnotType(mode);
-                        boolean shouldUnlockRead = false;
-                        try {
-                            getPdfViewCtrl().docLockRead();
-                            shouldUnlockRead = true;
+            BitSet hideAnnotMenuTypes = mHideAnnotMenuTypes;
+            if (hideAnnotMenuTypes != null && !hideAnnotMenuTypes.isEmpty() && annot != null && getPdfViewCtrl() != null) {
+                int annotType = -1;
+                boolean shouldUnlockRead = false;
+                try {
+                    DocumentLock.docLockRead(getPdfViewCtrl(), "onShowQuickMenu");
+                    shouldUnlockRead = true;
 
-                            int annotType = AnnotUtils.getAnnotType(annot);
-                            if (annotType == type) {
-                                return true;
-                            }
-                        } catch (Exception ex) {
-                            ex.printStackTrace();
-                        } finally {
-                            if (shouldUnlockRead) {
-                                getPdfViewCtrl().docUnlockRead();
-                            }
-                        }
+                    annotType = AnnotUtils.getAnnotType(annot);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                } finally {
+                    if (shouldUnlockRead) {
+                        DocumentLock.docUnlockRead(getPdfViewCtrl());
                     }
                 }
+                if (annotType >= 0 && hideAnnotMenuTypes.get(annotType)) {
+                    return true;
+                }
             }
 
             // remove unwanted items
@@ -1608,7 +1447,8 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         public void onAnnotationsSelectionChanged(HashMap<Annot, Integer> hashMap) {
             mSelectedAnnots = new HashMap<>(hashMap);
 
-            if (hasAnnotationsSelected() && getPdfViewCtrl() != null && getToolManager() != null) {
+            if (hasAnnotationsSelected() && getPdfViewCtrl() != null && getToolManager() != null
+                    && shouldEmit(ON_ANNOTATIONS_SELECTED)) {
                 try {
                     // notify event
                     WritableMap params = Arguments.createMap();
@@ -1635,7 +1475,7 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
             String url = null;
             boolean shouldUnlockRead = false;
             try {
-                pdfViewCtrl.docLockRead();
+                DocumentLock.docLockRead(pdfViewCtrl, "onInterceptExecuteAction");
                 shouldUnlockRead = true;
 
                 Action action = actionParameter.getAction();
@@ -1651,7 +1491,7 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
                 ex.printStackTrace();
             } finally {
                 if (shouldUnlockRead) {
-                    pdfViewCtrl.docUnlockRead();
+                    DocumentLock.docUnlockRead(pdfViewCtrl);
                 }
             }
             if (url != null) {
@@ -1675,11 +1515,11 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         @Override
         public void onPageChange(int old_page, int cur_page, PDFViewCtrl.PageChangeState pageChangeState) {
             if (old_page != cur_page || pageChangeState == PDFViewCtrl.PageChangeState.END) {
-                WritableMap params = Arguments.createMap();
-                params.putString(ON_PAGE_CHANGED, ON_PAGE_CHANGED);
-                params.putInt(PREV_PAGE_KEY, old_page);
-                params.putInt(PAGE_CURRENT_KEY, cur_page);
-                onReceiveNativeEvent(params);
+                mViewportEventCoalescer.onPageChanged(old_page, cur_page);
+                if (pageChangeState == PDFViewCtrl.PageChangeState.END) {
+                    // gesture is over, deliver the final state right away
+                    mViewportEventCoalescer.flush();
+                }
             }
         }
     };
@@ -1687,19 +1527,18 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     private PDFViewCtrl.OnCanvasSizeChangeListener mOnCanvasSizeChangeListener = new PDFViewCtrl.OnCanvasSizeChangeListener() {
         @Override
         public void onCanvasSizeChanged() {
-            WritableMap params = Arguments.createMap();
-            params.putString(ON_ZOOM_CHANGED, ON_ZOOM_CHANGED);
-            params.putDouble(ZOOM_KEY, getPdfViewCtrl().getZoom());
-            onReceiveNativeEvent(params);
+            mViewportEventCoalescer.onZoomChanged(getPdfViewCtrl().getZoom());
         }
     };
 
     private ToolManager.AnnotationModificationListener mAnnotationModificationListener = new ToolManager.AnnotationModificationListener() {
         @Override
         public void onAnnotationsAdded(Map<Annot, Integer> map) {
-            handleAnnotationChanged(KEY_ACTION_ADD, map);
-
-            handleExportAnnotationCommand(KEY_ACTION_ADD, map);
+            for (Map.Entry<Annot, Integer> entry : map.entrySet()) {
+                mAnnotationIndex.put(entry.getKey(), entry.getValue());
+            }
+            invalidateFieldCache();
+            queueAnnotationChanges(KEY_ACTION_ADD, map);
         }
 
         @Override
@@ -1709,11 +1548,15 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         @Override
         public void onAnnotationsModified(Map<Annot, Integer> map, Bundle bundle) {
-            handleAnnotationChanged(KEY_ACTION_MODIFY, map);
-
-            handleExportAnnotationCommand(KEY_ACTION_MODIFY, map);
+            for (Map.Entry<Annot, Integer> entry : map.entrySet()) {
+                mAnnotationIndex.put(entry.getKey(), entry.getValue());
+            }
+            queueAnnotationChanges(KEY_ACTION_MODIFY, map);
 
             // handle form fields change
+            if (!shouldEmit(ON_FORM_FIELD_VALUE_CHANGED)) {
+                return;
+            }
             WritableMap params = Arguments.createMap();
             params.putString(ON_FORM_FIELD_VALUE_CHANGED, ON_FORM_FIELD_VALUE_CHANGED);
             WritableArray fieldsArray = Arguments.createArray();
@@ -1743,9 +1586,13 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         @Override
         public void onAnnotationsPreRemove(Map<Annot, Integer> map) {
-            handleAnnotationChanged(KEY_ACTION_DELETE, map);
-
-            handleExportAnnotationCommand(KEY_ACTION_DELETE, map);
+            for (Annot annot : map.keySet()) {
+                mAnnotationIndex.removeAnnot(annot);
+            }
+            invalidateFieldCache();
+            // removed annotations are only valid until this callback returns, their XFDF is
+            // taken now, under the lock held by the caller, and sent with the batch
+            queueAnnotationChanges(KEY_ACTION_DELETE, map);
         }
 
         @Override
@@ -1755,6 +1602,7 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         @Override
         public void onAnnotationsRemovedOnPage(int i) {
+            mAnnotationIndex.removePage(i);
 
         }
 
@@ -1767,23 +1615,11 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     private ToolManager.PdfDocModificationListener mPdfDocModificationListener = new ToolManager.PdfDocModificationListener() {
         @Override
         public void onBookmarkModified() {
-            if (getPdfDoc() != null) {
-                WritableMap params = Arguments.createMap();
-                params.putString(ON_BOOKMARK_CHANGED, ON_BOOKMARK_CHANGED);
-                String bookmarkJson = null;
-                try {
-                    bookmarkJson = BookmarkManager.exportPdfBookmarks(getPdfDoc());
-                } catch (JSONException ex) {
-                    ex.printStackTrace();
-                }
-
-                if (bookmarkJson == null) {
-                    params.putString(KEY_ERROR, "Bookmark cannot be exported");
-                } else {
-                    params.putString(KEY_BOOKMARK_JSON, bookmarkJson);
-                }
-
-                onReceiveNativeEvent(params);
+            if (getPdfDoc() != null && shouldEmit(ON_BOOKMARK_CHANGED)) {
+                // an edit usually comes in a burst, export once it has settled
+                mBookmarkChangePending = true;
+                removeCallbacks(mExportBookmarksRunnable);
+                postDelayed(mExportBookmarksRunnable, BOOKMARK_CHANGE_DEBOUNCE_MS);
             }
         }
 
@@ -1794,12 +1630,16 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         @Override
         public void onPagesAdded(List<Integer> list) {
-
+            // page numbers have shifted
+            mAnnotationIndex.rebuild(getPdfViewCtrl());
+            invalidateFieldCache();
         }
 
         @Override
         public void onPagesDeleted(List<Integer> list) {
-
+            // page numbers have shifted
+            mAnnotationIndex.rebuild(getPdfViewCtrl());
+            invalidateFieldCache();
         }
 
         @Override
@@ -1809,7 +1649,9 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         @Override
         public void onPageMoved(int i, int i1) {
-
+            // page numbers have shifted
+            mAnnotationIndex.rebuild(getPdfViewCtrl());
+            invalidateFieldCache();
         }
 
         @Override
@@ -1819,6 +1661,8 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         @Override
         public void onAllAnnotationsRemoved() {
+            mAnnotationIndex.clear();
+            invalidateFieldCache();
 
         }
 
@@ -1831,15 +1675,18 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     private ToolManager.ToolChangedListener mToolChangedListener = new ToolManager.ToolChangedListener() {
         @Override
         public void toolChanged(ToolManager.Tool newTool, @Nullable ToolManager.Tool oldTool) {
+            if (!shouldEmit(ON_TOOL_CHANGED)) {
+                return;
+            }
 
             String newToolString = null;
             if (newTool != null) {
-                newToolString = convToolModeToString((ToolManager.ToolMode) newTool.getToolMode());
+                newToolString = IdentifierRegistry.convToolModeToString((ToolManager.ToolMode) newTool.getToolMode());
             }
 
             String oldToolString = null;
             if (oldTool != null) {
-                oldToolString = convToolModeToString((ToolManager.ToolMode) newTool.getToolMode());
+                oldToolString = IdentifierRegistry.convToolModeToString((ToolManager.ToolMode) newTool.getToolMode());
             }
 
             String unknownString = "unknown tool";
@@ -1853,54 +1700,57 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         }
     };
 
-    private void handleAnnotationChanged(String action, Map<Annot, Integer> map) {
+    private void handleAnnotationChanged(String action, Map<String, Integer> map) {
         WritableMap params = Arguments.createMap();
         params.putString(ON_ANNOTATION_CHANGED, ON_ANNOTATION_CHANGED);
         params.putString(KEY_ACTION, action);
 
         WritableArray annotList = Arguments.createArray();
-        for (Map.Entry<Annot, Integer> entry : map.entrySet()) {
-            Annot key = entry.getKey();
-
-            String uid = null;
-            try {
-                uid = key.getUniqueID() != null ? key.getUniqueID().getAsPDFText() : null;
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            if (uid != null) {
-                Integer value = entry.getValue();
-                WritableMap annotData = Arguments.createMap();
-                annotData.putString(KEY_ANNOTATION_ID, uid);
-                annotData.putInt(KEY_ANNOTATION_PAGE, value);
-                annotList.pushMap(annotData);
-            }
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            WritableMap annotData = Arguments.createMap();
+            annotData.putString(KEY_ANNOTATION_ID, entry.getKey());
+            annotData.putInt(KEY_ANNOTATION_PAGE, entry.getValue());
+            annotList.pushMap(annotData);
         }
 
         params.putArray(KEY_ANNOTATIONS, annotList);
         onReceiveNativeEvent(params);
     }
 
-    private void handleExportAnnotationCommand(String action, Map<Annot, Integer> map) {
+    /**
+     * @param removed the XFDF commands taken from the removed annotations before they were removed
+     */
+    private void handleExportAnnotationCommand(String action, LinkedHashMap<Annot, Integer> added,
+                                               LinkedHashMap<Annot, Integer> modified,
+                                               ArrayList<String> removed) {
         if (mCollabManager == null) {
             // fallback for export annotations when collab not present
-            ArrayList<Annot> annots = new ArrayList<>(map.keySet());
             String xfdfCommand = null;
             try {
-                if (KEY_ACTION_ADD.equals(action)) {
-                    xfdfCommand = generateXfdfCommand(annots, null, null);
-                } else if (KEY_ACTION_MODIFY.equals(action)) {
-                    xfdfCommand = generateXfdfCommand(null, annots, null);
-                } else {
-                    xfdfCommand = generateXfdfCommand(null, null, annots);
+                if (!added.isEmpty() || !modified.isEmpty()) {
+                    xfdfCommand = generateXfdfCommand(
+                            added.isEmpty() ? null : new ArrayList<>(added.keySet()),
+                            modified.isEmpty() ? null : new ArrayList<>(modified.keySet()),
+                            null);
                 }
             } catch (PDFNetException e) {
                 e.printStackTrace();
             }
+            StringBuilder deletes = new StringBuilder();
+            for (String removedCommand : removed) {
+                if (null == xfdfCommand) {
+                    xfdfCommand = removedCommand;
+                } else {
+                    deletes.append(XfdfCommand.getDeletes(removedCommand));
+                }
+            }
+            if (xfdfCommand != null) {
+                xfdfCommand = XfdfCommand.appendDeletes(xfdfCommand, deletes.toString());
+            }
 
             WritableMap params = Arguments.createMap();
             params.putString(ON_EXPORT_ANNOTATION_COMMAND, ON_EXPORT_ANNOTATION_COMMAND);
-            if (xfdfCommand != null) {
+            if (xfdfCommand == null) {
                 params.putString(KEY_ERROR, "XFDF command cannot be generated");
             } else {
                 params.putString(KEY_ACTION, action);
@@ -1910,9 +1760,146 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         }
     }
 
-    // helper
-    @Nullable
-    private String generateXfdfCommand(@Nullable ArrayList<Annot> added,
+    private void queueAnnotationChanges(String action, Map<Annot, Integer> map) {
+        if (!hasSubscriber(ON_ANNOTATION_CHANGED) && !hasSubscriber(ON_EXPORT_ANNOTATION_COMMAND)) {
+            countSkippedEvent(ON_ANNOTATION_CHANGED);
+            countSkippedEvent(ON_EXPORT_ANNOTATION_COMMAND);
+            return;
+        }
+        // a deletion can only be exported while the annotation still exists
+        boolean exportRemoved = KEY_ACTION_DELETE.equals(action) && mCollabManager == null
+                && hasSubscriber(ON_EXPORT_ANNOTATION_COMMAND);
+        synchronized (mAnnotationChangeBatch) {
+            for (Map.Entry<Annot, Integer> entry : map.entrySet()) {
+                Annot annot = entry.getKey();
+                String uid = null;
+                String xfdf = null;
+                try {
+                    uid = annot.getUniqueID() != null ? annot.getUniqueID().getAsPDFText() : null;
+                    if (uid != null && exportRemoved) {
+                        xfdf = generateXfdfCommand(null, null, new ArrayList<>(Collections.singletonList(annot)));
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                if (uid != null) {
+                    mAnnotationChangeBatch.put(action, uid, annot, entry.getValue(), xfdf);
+                }
+            }
+            if (!mAnnotationChangeFlushScheduled && !mAnnotationChangeBatch.isEmpty()) {
+                mAnnotationChangeFlushScheduled = true;
+                postDelayed(mFlushAnnotationChangesRunnable, mAnnotationChangeBatchWindow);
+            }
+        }
+    }
+
+    /**
+     * Sends pending annotation changes from the UI thread. Gives way to a writer on the
+     * document queue instead of blocking the UI thread on the document lock.
+     */
+    private void flushAnnotationChanges() {
+        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+        if (pdfViewCtrl == null) {
+            return;
+        }
+        boolean shouldUnlockRead = false;
+        try {
+            shouldUnlockRead = DocumentLock.docTryLockRead(pdfViewCtrl, 0, "flushAnnotationChanges");
+            if (!shouldUnlockRead) {
+                synchronized (mAnnotationChangeBatch) {
+                    mAnnotationChangeFlushScheduled = true;
+                    removeCallbacks(mFlushAnnotationChangesRunnable);
+                    postDelayed(mFlushAnnotationChangesRunnable, ANNOTATION_CHANGE_RETRY_MS);
+                }
+                return;
+            }
+            dispatchAnnotationChanges();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        } finally {
+            if (shouldUnlockRead) {
+                DocumentLock.docUnlockRead(pdfViewCtrl);
+            }
+        }
+    }
+
+    /**
+     * Sends pending annotation changes from a document queue thread, waiting for the document
+     * lock, so that a save does not leave them behind.
+     */
+    private void flushAnnotationChangesBlocking() {
+        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+        if (pdfViewCtrl == null) {
+            return;
+        }
+        boolean shouldUnlockRead = false;
+        try {
+            DocumentLock.docLockRead(pdfViewCtrl, "flushAnnotationChangesBlocking");
+            shouldUnlockRead = true;
+            dispatchAnnotationChanges();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        } finally {
+            if (shouldUnlockRead) {
+                DocumentLock.docUnlockRead(pdfViewCtrl);
+            }
+        }
+    }
+
+    /**
+     * Sends pending annotation changes on the calling thread, which must hold the document lock.
+     * Removed annotations are no longer accessed, they are sent from what was recorded.
+     */
+    private void dispatchAnnotationChanges() {
+        LinkedHashMap<Annot, Integer> added;
+        LinkedHashMap<Annot, Integer> modified;
+        LinkedHashMap<String, Integer> addedIds;
+        LinkedHashMap<String, Integer> modifiedIds;
+        LinkedHashMap<String, Integer> removedIds;
+        ArrayList<String> removedXfdf;
+        synchronized (mAnnotationChangeBatch) {
+            mAnnotationChangeFlushScheduled = false;
+            removeCallbacks(mFlushAnnotationChangesRunnable);
+            if (mAnnotationChangeBatch.isEmpty()) {
+                return;
+            }
+            added = mAnnotationChangeBatch.getChanges(KEY_ACTION_ADD);
+            modified = mAnnotationChangeBatch.getChanges(KEY_ACTION_MODIFY);
+            addedIds = mAnnotationChangeBatch.getIds(KEY_ACTION_ADD);
+            modifiedIds = mAnnotationChangeBatch.getIds(KEY_ACTION_MODIFY);
+            removedIds = mAnnotationChangeBatch.getIds(KEY_ACTION_DELETE);
+            removedXfdf = mAnnotationChangeBatch.getXfdf(KEY_ACTION_DELETE);
+            mAnnotationChangeBatch.clear();
+        }
+
+        boolean emitChanged = shouldEmit(ON_ANNOTATION_CHANGED);
+        String exportAction = null;
+        if (!addedIds.isEmpty()) {
+            if (emitChanged) {
+                handleAnnotationChanged(KEY_ACTION_ADD, addedIds);
+            }
+            exportAction = KEY_ACTION_ADD;
+        }
+        if (!modifiedIds.isEmpty()) {
+            if (emitChanged) {
+                handleAnnotationChanged(KEY_ACTION_MODIFY, modifiedIds);
+            }
+            exportAction = exportAction == null ? KEY_ACTION_MODIFY : KEY_ACTION_MIXED;
+        }
+        if (!removedIds.isEmpty()) {
+            if (emitChanged) {
+                handleAnnotationChanged(KEY_ACTION_DELETE, removedIds);
+            }
+            exportAction = exportAction == null ? KEY_ACTION_DELETE : KEY_ACTION_MIXED;
+        }
+        if (shouldEmit(ON_EXPORT_ANNOTATION_COMMAND)) {
+            handleExportAnnotationCommand(exportAction, added, modified, removedXfdf);
+        }
+    }
+
+    // helper
+    @Nullable
+    private String generateXfdfCommand(@Nullable ArrayList<Annot> added,
                                        @Nullable ArrayList<Annot> modified,
                                        @Nullable ArrayList<Annot> removed) throws PDFNetException {
         PDFDoc pdfDoc = getPdfDoc();
@@ -1927,6 +1914,9 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     public void onTabDocumentLoaded(String tag) {
         super.onTabDocumentLoaded(tag);
 
+        // fields of the previous document must not be used for this one
+        invalidateFieldCache();
+
         if (mInitialPageNumber > 0) {
             try {
                 getPdfViewCtrl().setCurrentPage(mInitialPageNumber);
@@ -1945,10 +1935,13 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         getPdfViewCtrl().addPageChangeListener(mPageChangeListener);
         getPdfViewCtrl().addOnCanvasSizeChangeListener(mOnCanvasSizeChangeListener);
+        getPdfViewCtrl().addDocumentDownloadListener(mDocumentDownloadListener);
 
         getToolManager().addAnnotationModificationListener(mAnnotationModificationListener);
+        mAnnotationIndex.rebuild(getPdfViewCtrl());
         getToolManager().addAnnotationsSelectionListener(mAnnotationsSelectionListener);
         getToolManager().addPdfDocModificationListener(mPdfDocModificationListener);
+        takeBookmarkSnapshot();
         getToolManager().addToolChangedListener(mToolChangedListener);
 
         getToolManager().setStylusAsPen(mUseStylusAsPen);
@@ -1985,6 +1978,14 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         onReceiveNativeEvent(ON_DOCUMENT_LOADED, tag);
     }
 
+    @Override
+    public void onTabChanged(String tag) {
+        super.onTabChanged(tag);
+
+        // another tab shows another document
+        invalidateFieldCache();
+    }
+
     @Override
     public boolean onOpenDocError() {
         super.onOpenDocError();
@@ -2016,166 +2017,416 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         return true;
     }
 
-    public void importBookmarkJson(String bookmarkJson) throws PDFNetException {
-        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+    public void importBookmarkJson(final String bookmarkJson, DeferredOperationQueue.Callback callback) throws PDFNetException {
+        final PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
 
-        PDFDoc pdfDoc = pdfViewCtrl.getDoc();
-
-        boolean shouldUnlockRead = false;
-        try {
-            pdfViewCtrl.docLockRead();
-            shouldUnlockRead = true;
+        applyWhenDownloaded(new DeferredOperationQueue.Operation() {
+            @Override
+            public boolean apply(@NonNull PDFDoc pdfDoc) throws Exception {
+                try {
+                    JSONObject bookmarks = BookmarkDelta.parse(bookmarkJson);
+                    if (BookmarkDelta.isDelta(bookmarks)) {
+                        bookmarks = BookmarkDelta.apply(BookmarkDelta.parse(BookmarkManager.exportPdfBookmarks(pdfDoc)), bookmarks);
+                    }
+                    BookmarkManager.importPdfBookmarks(pdfViewCtrl, bookmarks.toString());
 
-            if (pdfDoc.hasDownloader()) {
-                // still downloading file, let's wait for next call
-                return;
+                    synchronized (mBookmarkSnapshotLock) {
+                        if (mBookmarkSnapshot != null) {
+                            // imported changes are not sent back as a delta
+                            mBookmarkSnapshot = bookmarks;
+                        }
+                    }
+                } catch (JSONException ex) {
+                    throw new PDFNetException("", 0L, TAG, "importBookmarkJson", "Unable to parse bookmark json.");
+                }
+                return false;
             }
-        } finally {
-            if (shouldUnlockRead) {
-                pdfViewCtrl.docUnlockRead();
+        }, callback);
+    }
+
+    /**
+     * Exports the bookmarks and sends onBookmarkChanged, with the full
+     * bookmark json or with the changes since the last event in diff mode.
+     * Called off the UI thread, except for the last pending change when the view is detached.
+     */
+    private void emitBookmarkChange(@Nullable PDFViewCtrl pdfViewCtrl) {
+        if (null == pdfViewCtrl || null == pdfViewCtrl.getDoc()) {
+            return;
+        }
+        WritableMap params = Arguments.createMap();
+        params.putString(ON_BOOKMARK_CHANGED, ON_BOOKMARK_CHANGED);
+        try {
+            String bookmarkJson = exportBookmarks(pdfViewCtrl);
+            if (BOOKMARK_CHANGE_MODE_DIFF.equals(mBookmarkChangeMode)) {
+                JSONObject current = BookmarkDelta.parse(bookmarkJson);
+                JSONObject delta;
+                synchronized (mBookmarkSnapshotLock) {
+                    JSONObject previous = mBookmarkSnapshot != null ? mBookmarkSnapshot : new JSONObject();
+                    delta = BookmarkDelta.diff(previous, current);
+                    mBookmarkSnapshot = current;
+                }
+                if (BookmarkDelta.isEmpty(delta)) {
+                    return;
+                }
+                params.putString(KEY_BOOKMARK_DELTA, delta.toString());
+            } else if (bookmarkJson == null) {
+                params.putString(KEY_ERROR, "Bookmark cannot be exported");
+            } else {
+                params.putString(KEY_BOOKMARK_JSON, bookmarkJson);
             }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            params.putString(KEY_ERROR, "Bookmark cannot be exported");
         }
+        onReceiveNativeEvent(params);
+    }
 
-        boolean shouldUnlock = false;
-        try {
-            pdfViewCtrl.docLock(true);
-            shouldUnlock = true;
+    /**
+     * Remembers the current bookmarks as the base of the next delta, in diff mode only.
+     */
+    private void takeBookmarkSnapshot() {
+        final PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+        if (!BOOKMARK_CHANGE_MODE_DIFF.equals(mBookmarkChangeMode) || null == pdfViewCtrl || null == pdfViewCtrl.getDoc()) {
+            return;
+        }
+        sBookmarkExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JSONObject bookmarks = BookmarkDelta.parse(exportBookmarks(pdfViewCtrl));
+                    synchronized (mBookmarkSnapshotLock) {
+                        mBookmarkSnapshot = bookmarks;
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+    }
 
-            BookmarkManager.importPdfBookmarks(pdfViewCtrl, bookmarkJson);
-            pdfViewCtrl.update(true);
-        } catch (JSONException ex) {
-            throw new PDFNetException("", 0L, TAG, "importBookmarkJson", "Unable to parse bookmark json.");
+    @Nullable
+    private static String exportBookmarks(@NonNull PDFViewCtrl pdfViewCtrl) throws Exception {
+        boolean shouldUnlockRead = false;
+        try {
+            DocumentLock.docLockRead(pdfViewCtrl, "exportBookmarks");
+            shouldUnlockRead = true;
+            return BookmarkManager.exportPdfBookmarks(pdfViewCtrl.getDoc());
         } finally {
-            if (shouldUnlock) {
-                pdfViewCtrl.docUnlock();
+            if (shouldUnlockRead) {
+                DocumentLock.docUnlockRead(pdfViewCtrl);
             }
         }
     }
 
-    public void importAnnotationCommand(String xfdfCommand, boolean initialLoad) throws PDFNetException {
+    public boolean isCollabEnabled() {
+        return mCollabManager != null;
+    }
+
+    public void importAnnotationCommand(String xfdfCommand, boolean initialLoad, final DeferredOperationQueue.Callback callback) throws Exception {
         if (mCollabManager != null) {
             mCollabManager.importAnnotationCommand(xfdfCommand, initialLoad);
+            callback.onApplied(null);
         } else {
-            PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
-            PDFDoc pdfDoc = getPdfDoc();
-            if (null == pdfViewCtrl || null == pdfDoc || null == xfdfCommand) {
-                return;
+            ArrayList<String> xfdfCommands = new ArrayList<>();
+            xfdfCommands.add(xfdfCommand);
+            final Exception[] errors = new Exception[1];
+            importAnnotationCommands(xfdfCommands, errors, new DeferredOperationQueue.Callback() {
+                @Override
+                public void onApplied(@Nullable Exception error) {
+                    callback.onApplied(error != null ? error : errors[0]);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies the given commands in order, each to the annotations it references only,
+     * under a single document lock followed by a single update.
+     *
+     * @param errors filled in for each command before the callback is called, null if it
+     *               was applied, otherwise the reason it failed
+     */
+    public void importAnnotationCommands(List<String> xfdfCommands, final Exception[] errors,
+            DeferredOperationQueue.Callback callback) throws PDFNetException {
+        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+        if (null == pdfViewCtrl || null == getPdfDoc()) {
+            callback.onApplied(null);
+            return;
+        }
+
+        // parse outside of the lock
+        final XfdfCommand[] commands = new XfdfCommand[xfdfCommands.size()];
+        for (int i = 0; i < commands.length; i++) {
+            String xfdfCommand = xfdfCommands.get(i);
+            if (null == xfdfCommand) {
+                continue;
             }
-            boolean shouldUnlockRead = false;
             try {
-                pdfViewCtrl.docLockRead();
-                shouldUnlockRead = true;
+                commands[i] = XfdfCommand.parse(xfdfCommand);
+            } catch (Exception ex) {
+                errors[i] = ex;
+            }
+        }
 
-                if (pdfDoc.hasDownloader()) {
-                    // still downloading file, let's wait for next call
-                    return;
-                }
-            } finally {
-                if (shouldUnlockRead) {
-                    pdfViewCtrl.docUnlockRead();
+        applyWhenDownloaded(new DeferredOperationQueue.Operation() {
+            @Override
+            public boolean apply(@NonNull PDFDoc pdfDoc) {
+                boolean rebuildIndex = false;
+                for (int i = 0; i < commands.length; i++) {
+                    if (commands[i] != null) {
+                        rebuildIndex |= commands[i].requiresFullMerge();
+                        try {
+                            commands[i].apply(pdfDoc, mAnnotationIndex);
+                        } catch (Exception ex) {
+                            errors[i] = ex;
+                        }
+                    }
                 }
+                return rebuildIndex;
             }
+        }, callback);
+    }
 
-            boolean shouldUnlock = false;
-            try {
-                pdfViewCtrl.docLock(true);
-                shouldUnlock = true;
-
-                FDFDoc fdfDoc = pdfDoc.fdfExtract(PDFDoc.e_both);
-                fdfDoc.mergeAnnots(xfdfCommand);
-
+    public void importAnnotations(final String xfdf, DeferredOperationQueue.Callback callback) throws PDFNetException {
+        applyWhenDownloaded(new DeferredOperationQueue.Operation() {
+            @Override
+            public boolean apply(@NonNull PDFDoc pdfDoc) throws Exception {
+                FDFDoc fdfDoc = FDFDoc.createFromXFDF(xfdf);
                 pdfDoc.fdfUpdate(fdfDoc);
-                pdfViewCtrl.update(true);
-            } finally {
-                if (shouldUnlock) {
-                    pdfViewCtrl.docUnlock();
-                }
+                return true;
             }
-        }
+        }, callback);
     }
 
-    public void importAnnotations(String xfdf) throws PDFNetException {
+    /**
+     * Applies the operation with the document write-locked. While the document is still being
+     * downloaded, the operation is queued instead and applied together with the other waiting
+     * operations once the download has finished. The callback is called once it was applied.
+     * Operations are given the document that is open when they are applied; a document switch
+     * cancels the waiting ones.
+     */
+    private void applyWhenDownloaded(DeferredOperationQueue.Operation operation,
+            DeferredOperationQueue.Callback callback) throws PDFNetException {
         PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
-
         PDFDoc pdfDoc = pdfViewCtrl.getDoc();
 
         boolean shouldUnlockRead = false;
         try {
-            pdfViewCtrl.docLockRead();
+            DocumentLock.docLockRead(pdfViewCtrl, "applyWhenDownloaded");
             shouldUnlockRead = true;
 
-            if (pdfDoc.hasDownloader()) {
-                // still downloading file, let's wait for next call
+            if (pdfDoc.hasDownloader() && !mDocumentDownloaded) {
+                // queued under the read lock, so that the batch after the download cannot miss it
+                if (!mDeferredOperations.offer(operation, callback)) {
+                    throw new PDFNetException("", 0L, TAG, "applyWhenDownloaded", "Too many operations waiting for the document download.");
+                }
                 return;
             }
         } finally {
             if (shouldUnlockRead) {
-                pdfViewCtrl.docUnlockRead();
+                DocumentLock.docUnlockRead(pdfViewCtrl);
             }
         }
 
-        boolean shouldUnlock = false;
-        try {
-            pdfViewCtrl.docLock(true);
-            shouldUnlock = true;
-
-            FDFDoc fdfDoc = FDFDoc.createFromXFDF(xfdf);
-            pdfDoc.fdfUpdate(fdfDoc);
-            pdfViewCtrl.update(true);
-        } finally {
-            if (shouldUnlock) {
-                pdfViewCtrl.docUnlock();
-            }
-        }
+        // operations still waiting go first
+        mDeferredOperations.add(operation, callback);
+        mDeferredOperations.applyAll(pdfViewCtrl);
     }
 
     public String exportAnnotations(ReadableMap options) throws Exception {
         PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+        String outputPath = options != null && options.hasKey(KEY_OUTPUT_PATH) ? options.getString(KEY_OUTPUT_PATH) : null;
+        boolean streamChunks = options != null && options.hasKey(KEY_STREAM_CHUNKS) && options.getBoolean(KEY_STREAM_CHUNKS);
+        File chunkFile = null;
         boolean shouldUnlockRead = false;
         try {
-            pdfViewCtrl.docLockRead();
+            DocumentLock.docLockRead(pdfViewCtrl, "exportAnnotations");
             shouldUnlockRead = true;
 
             PDFDoc pdfDoc = pdfViewCtrl.getDoc();
-            if (null == options || !options.hasKey(KEY_ANNOTATION_LIST)) {
-                FDFDoc fdfDoc = pdfDoc.fdfExtract(PDFDoc.e_both);
-                return fdfDoc.saveAsXFDF();
+            FDFDoc fdfDoc;
+            if (null == options || (!options.hasKey(KEY_ANNOTATION_LIST) && !options.hasKey(KEY_PAGE_RANGE)
+                    && !options.hasKey(KEY_ANNOTATION_TYPES))) {
+                fdfDoc = pdfDoc.fdfExtract(PDFDoc.e_both);
             } else {
-                ReadableArray arr = options.getArray(KEY_ANNOTATION_LIST);
-                ArrayList<Annot> annots = new ArrayList<>(arr.size());
-                for (int i = 0; i < arr.size(); i++) {
-                    ReadableMap annotData = arr.getMap(i);
-                    String id = annotData.getString(KEY_ANNOTATION_ID);
-                    int page = annotData.getInt(KEY_ANNOTATION_PAGE);
-                    if (!Utils.isNullOrEmpty(id)) {
-                        Annot ann = ViewerUtils.getAnnotById(getPdfViewCtrl(), id, page);
-                        if (ann != null && ann.isValid()) {
-                            annots.add(ann);
-                        }
-                    }
-                }
+                ArrayList<Annot> annots = getAnnotationsForExport(pdfDoc, options);
                 if (annots.size() > 0) {
-                    FDFDoc fdfDoc = pdfDoc.fdfExtract(annots);
-                    return fdfDoc.saveAsXFDF();
+                    fdfDoc = pdfDoc.fdfExtract(annots);
+                } else if (outputPath != null || streamChunks) {
+                    fdfDoc = new FDFDoc();
+                } else {
+                    return "";
                 }
-                return "";
+            }
+
+            if (outputPath != null) {
+                // written by the native side, the XFDF never becomes a Java string
+                fdfDoc.saveAsXFDF(outputPath);
+                return outputPath;
+            }
+            if (streamChunks) {
+                chunkFile = File.createTempFile("export", ".xfdf", getContext().getCacheDir());
+                fdfDoc.saveAsXFDF(chunkFile.getAbsolutePath());
+            } else {
+                return fdfDoc.saveAsXFDF();
             }
         } finally {
             if (shouldUnlockRead) {
-                pdfViewCtrl.docUnlockRead();
+                DocumentLock.docUnlockRead(pdfViewCtrl);
             }
         }
+
+        // chunks are sent after the document is unlocked
+        try {
+            String exportId = options.hasKey(KEY_EXPORT_ID) ? options.getString(KEY_EXPORT_ID) : null;
+            int chunkSize = options.hasKey(KEY_CHUNK_SIZE) ? options.getInt(KEY_CHUNK_SIZE) : DEFAULT_EXPORT_CHUNK_SIZE;
+            emitExportChunks(chunkFile, exportId, chunkSize > 0 ? chunkSize : DEFAULT_EXPORT_CHUNK_SIZE);
+        } finally {
+            chunkFile.delete();
+        }
+        return null;
     }
 
-    public String saveDocument() {
+    private ArrayList<Annot> getAnnotationsForExport(PDFDoc pdfDoc, ReadableMap options) throws PDFNetException {
+        int pageCount = pdfDoc.getPageCount();
+        int fromPage = 1;
+        int toPage = pageCount;
+        if (options.hasKey(KEY_PAGE_RANGE)) {
+            ReadableMap pageRange = options.getMap(KEY_PAGE_RANGE);
+            if (pageRange != null) {
+                if (pageRange.hasKey(KEY_PAGE_RANGE_FROM)) {
+                    fromPage = Math.max(1, pageRange.getInt(KEY_PAGE_RANGE_FROM));
+                }
+                if (pageRange.hasKey(KEY_PAGE_RANGE_TO)) {
+                    toPage = Math.min(pageCount, pageRange.getInt(KEY_PAGE_RANGE_TO));
+                }
+            }
+        }
+
+        HashSet<Integer> annotTypes = null;
+        if (options.hasKey(KEY_ANNOTATION_TYPES)) {
+            ReadableArray types = options.getArray(KEY_ANNOTATION_TYPES);
+            if (types != null) {
+                annotTypes = new HashSet<>();
+                for (int i = 0; i < types.size(); i++) {
+                    int type = IdentifierRegistry.convStringToAnnotType(types.getString(i));
+                    if (type != Annot.e_Unknown) {
+                        annotTypes.add(type);
+                    }
+                }
+            }
+        }
+
+        ArrayList<Annot> annots = new ArrayList<>();
+        if (options.hasKey(KEY_ANNOTATION_LIST)) {
+            ReadableArray arr = options.getArray(KEY_ANNOTATION_LIST);
+            for (int i = 0; i < arr.size(); i++) {
+                ReadableMap annotData = arr.getMap(i);
+                String id = annotData.getString(KEY_ANNOTATION_ID);
+                int page = annotData.getInt(KEY_ANNOTATION_PAGE);
+                if (!Utils.isNullOrEmpty(id) && page >= fromPage && page <= toPage) {
+                    Annot ann = getAnnotById(id, page);
+                    if (ann != null && ann.isValid() && (null == annotTypes || annotTypes.contains(ann.getType()))) {
+                        annots.add(ann);
+                    }
+                }
+            }
+        } else {
+            for (int pageNum = fromPage; pageNum <= toPage; pageNum++) {
+                Page page = pdfDoc.getPage(pageNum);
+                int count = page.getNumAnnots();
+                for (int i = 0; i < count; i++) {
+                    Annot ann = page.getAnnot(i);
+                    if (ann != null && ann.isValid() && (null == annotTypes || annotTypes.contains(ann.getType()))) {
+                        annots.add(ann);
+                    }
+                }
+            }
+        }
+        return annots;
+    }
+
+    private void emitExportChunks(File file, @Nullable String exportId, int chunkSize) throws IOException {
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            // room for a surrogate pair, so that every chunk makes progress
+            char[] buffer = new char[Math.max(2, chunkSize)];
+            int index = 0;
+            int length = fill(reader, buffer, 0);
+            // the last chunk is always sent, also when it is empty
+            do {
+                // a surrogate pair is not split, its high surrogate starts the next chunk
+                int end = length;
+                if (end == buffer.length && Character.isHighSurrogate(buffer[end - 1])) {
+                    end--;
+                }
+                String chunk = new String(buffer, 0, end);
+                int carried = length - end;
+                if (carried > 0) {
+                    buffer[0] = buffer[end];
+                }
+                length = carried + fill(reader, buffer, carried);
+
+                WritableMap params = Arguments.createMap();
+                params.putString(ON_EXPORT_ANNOTATIONS_CHUNK, ON_EXPORT_ANNOTATIONS_CHUNK);
+                if (exportId != null) {
+                    params.putString(KEY_EXPORT_ID, exportId);
+                }
+                params.putInt(KEY_CHUNK_INDEX, index++);
+                params.putString(KEY_CHUNK, chunk);
+                params.putBoolean(KEY_IS_LAST_CHUNK, length <= 0);
+                onReceiveNativeEvent(params);
+            } while (length > 0);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * @return the number of chars read into the buffer from the given offset on
+     */
+    private static int fill(Reader reader, char[] buffer, int offset) throws IOException {
+        int total = 0;
+        while (offset + total < buffer.length) {
+            int read = reader.read(buffer, offset + total, buffer.length - offset - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    public String saveDocument(ReadableMap options) throws IOException {
         if (getPdfViewCtrlTabFragment() != null) {
-            getPdfViewCtrlTabFragment().setSavingEnabled(true);
-            getPdfViewCtrlTabFragment().save(false, true, true);
-            getPdfViewCtrlTabFragment().setSavingEnabled(mAutoSaveEnabled);
+            flushAnnotationChangesBlocking();
+            ReactUtils.runOnUiThreadAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    PdfViewCtrlTabFragment2 tabFragment = getPdfViewCtrlTabFragment();
+                    if (tabFragment != null) {
+                        tabFragment.setSavingEnabled(true);
+                        tabFragment.save(false, true, true);
+                        tabFragment.setSavingEnabled(mAutoSaveEnabled);
+                    }
+                }
+            });
             if (mIsBase64 && mTempFile != null) {
+                // encoded on the calling worker thread a block at a time
+                String outputPath = options != null && options.hasKey(KEY_OUTPUT_PATH) ? options.getString(KEY_OUTPUT_PATH) : null;
+                if (outputPath != null) {
+                    ReactUtils.encodeFileToBase64(mTempFile, new File(outputPath));
+                    return outputPath;
+                }
+                if (options != null && options.hasKey(KEY_STREAM_CHUNKS) && options.getBoolean(KEY_STREAM_CHUNKS)) {
+                    String saveId = options.hasKey(KEY_SAVE_ID) ? options.getString(KEY_SAVE_ID) : null;
+                    int chunkSize = options.hasKey(KEY_CHUNK_SIZE) ? options.getInt(KEY_CHUNK_SIZE) : DEFAULT_EXPORT_CHUNK_SIZE;
+                    emitSaveChunks(mTempFile, saveId, chunkSize > 0 ? chunkSize : DEFAULT_EXPORT_CHUNK_SIZE);
+                    return null;
+                }
                 try {
-                    byte[] data = FileUtils.readFileToByteArray(mTempFile);
-                    return Base64.encodeToString(data, Base64.DEFAULT);
+                    return ReactUtils.encodeFileToBase64(mTempFile);
                 } catch (Exception ex) {
                     ex.printStackTrace();
                     return "";
@@ -2189,27 +2440,64 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         return null;
     }
 
+    private void emitSaveChunks(File file, @Nullable String saveId, int chunkSize) throws IOException {
+        // every chunk but the last encodes a multiple of 3 bytes, so chunks can be joined as is
+        byte[] buffer = new byte[Math.max(3, chunkSize / 4 * 3)];
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            int index = 0;
+            int read = IOUtils.read(is, buffer);
+            // the last chunk is always sent, also when it is empty
+            do {
+                String chunk = Base64.encodeToString(buffer, 0, read, Base64.NO_WRAP);
+                read = IOUtils.read(is, buffer);
+
+                WritableMap params = Arguments.createMap();
+                params.putString(ON_SAVE_DOCUMENT_CHUNK, ON_SAVE_DOCUMENT_CHUNK);
+                if (saveId != null) {
+                    params.putString(KEY_SAVE_ID, saveId);
+                }
+                params.putInt(KEY_CHUNK_INDEX, index++);
+                params.putString(KEY_CHUNK, chunk);
+                params.putBoolean(KEY_IS_LAST_CHUNK, read <= 0);
+                onReceiveNativeEvent(params);
+            } while (read > 0);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
     public void flattenAnnotations(boolean formsOnly) throws PDFNetException {
         // go back to pan tool first so it will commit currently typing text boxes
-        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+        final PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
         if (pdfViewCtrl.getToolManager() instanceof ToolManager) {
-            ToolManager toolManager = (ToolManager) pdfViewCtrl.getToolManager();
-            toolManager.setTool(toolManager.createTool(ToolManager.ToolMode.PAN, toolManager.getTool()));
+            ReactUtils.runOnUiThreadAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    ToolManager toolManager = (ToolManager) pdfViewCtrl.getToolManager();
+                    toolManager.setTool(toolManager.createTool(ToolManager.ToolMode.PAN, toolManager.getTool()));
+                }
+            });
         }
 
         PDFDoc pdfDoc = pdfViewCtrl.getDoc();
 
         boolean shouldUnlock = false;
         try {
-            pdfViewCtrl.docLock(true);
+            DocumentLock.docLock(pdfViewCtrl, "flattenAnnotations");
             shouldUnlock = true;
 
+            // flattened annotations no longer exist afterwards
+            dispatchAnnotationChanges();
             pdfDoc.flattenAnnotations(formsOnly);
         } finally {
             if (shouldUnlock) {
-                pdfViewCtrl.docUnlock();
+                DocumentLock.docUnlock(pdfViewCtrl);
             }
         }
+        mAnnotationIndex.rebuild(pdfViewCtrl);
+        invalidateFieldCache();
     }
 
     public int getPageCount() throws PDFNetException {
@@ -2217,109 +2505,120 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     }
 
     public void deleteAnnotations(ReadableArray annots) throws PDFNetException {
-        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
-        int annotCount = annots.size();
-        ToolManager toolManager = (ToolManager) pdfViewCtrl.getToolManager();
-
-        for (int i = 0; i < annotCount; i++) {
+        ArrayList<AnnotationOperation> operations = new ArrayList<>(annots.size());
+        for (int i = 0; i < annots.size(); i++) {
             ReadableMap annotData = annots.getMap(i);
             if (null == annotData) {
                 continue;
             }
-            String annotId = annotData.getString(KEY_ANNOTATION_ID);
-            int pageNum = annotData.getInt(KEY_ANNOTATION_PAGE);
-            Annot annot = ViewerUtils.getAnnotById(pdfViewCtrl, annotId, pageNum);
-            if (annot != null && annot.isValid()) {
-                boolean shouldUnlock = false;
-                try {
-                    pdfViewCtrl.docLock(true);
-                    shouldUnlock = true;
+            AnnotationOperation operation = new AnnotationOperation(KEY_OPERATION_DELETE,
+                    annotData.getString(KEY_ANNOTATION_ID), annotData.getInt(KEY_ANNOTATION_PAGE));
+            operations.add(operation);
+        }
+        applyAnnotationOperations(operations);
+    }
 
-                    HashMap<Annot, Integer> map = new HashMap<>(1);
-                    map.put(annot, pageNum);
-                    toolManager.raiseAnnotationsPreRemoveEvent(map);
+    public void setValuesForFields(ReadableMap readableMap) throws PDFNetException {
+        setValuesForFields(readableMap.toHashMap());
+    }
+
+    /**
+     * Sets field values from a JSON file of field names and values, or from an FDF or XFDF file.
+     */
+    public void setValuesForFieldsFromFile(String filePath) throws Exception {
+        String lowerPath = filePath.toLowerCase();
+        if (lowerPath.endsWith(".json")) {
+            JSONObject jsonObject = new JSONObject(FileUtils.readFileToString(new File(filePath), "UTF-8"));
+            HashMap<String, Object> values = new HashMap<>(jsonObject.length());
+            Iterator<String> keys = jsonObject.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Object value = jsonObject.get(key);
+                values.put(key, JSONObject.NULL.equals(value) ? null : value);
+            }
+            setValuesForFields(values);
+            return;
+        }
 
-                    Page page = pdfViewCtrl.getDoc().getPage(pageNum);
-                    page.annotRemove(annot);
-                    pdfViewCtrl.update(annot, pageNum);
+        // FDF and XFDF files are merged natively in one pass
+        FDFDoc fdfDoc = lowerPath.endsWith(".xfdf") ? FDFDoc.createFromXFDF(filePath) : new FDFDoc(filePath);
+        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+        PDFDoc pdfDoc = pdfViewCtrl.getDoc();
+        boolean shouldUnlock = false;
+        try {
+            DocumentLock.docLock(pdfViewCtrl, "setValuesForFieldsFromFile");
+            shouldUnlock = true;
 
-                    toolManager.raiseAnnotationsRemovedEvent(map);
-                } finally {
-                    if (shouldUnlock) {
-                        pdfViewCtrl.docUnlock();
-                    }
-                }
-                toolManager.deselectAll();
+            pdfDoc.fdfMerge(fdfDoc);
+            pdfDoc.refreshFieldAppearances();
+        } finally {
+            if (shouldUnlock) {
+                DocumentLock.docUnlock(pdfViewCtrl);
             }
         }
+        // the file may carry annotations as well
+        invalidateFieldCache();
+        mAnnotationIndex.rebuild(pdfViewCtrl);
+        updateOnUiThread(pdfViewCtrl);
     }
 
-    public void setValuesForFields(ReadableMap readableMap) throws PDFNetException {
+    private void setValuesForFields(Map<String, Object> values) throws PDFNetException {
         PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
         PDFDoc pdfDoc = pdfViewCtrl.getDoc();
 
+        ViewChangeCollection viewChanges = new ViewChangeCollection();
         boolean shouldUnlock = false;
         try {
-            pdfViewCtrl.docLock(true);
+            DocumentLock.docLock(pdfViewCtrl, "setValuesForFields");
             shouldUnlock = true;
 
-            ReadableMapKeySetIterator iterator = readableMap.keySetIterator();
-            while (iterator.hasNextKey()) {
-                String fieldName = iterator.nextKey();
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                String fieldName = entry.getKey();
 
                 if (fieldName == null) continue;
 
-                // loop through all fields looking for a matching name
-                // in case multiple form fields share the same name
-                Field field = pdfDoc.getField(fieldName);
+                Field field = mFieldCache.get(pdfDoc, fieldName);
                 if (field != null && field.isValid()) {
-                    setFieldValue(field, fieldName, readableMap);
+                    ViewChangeCollection viewChange = setFieldValue(field, entry.getValue());
+                    if (viewChange != null) {
+                        viewChanges.mergeChanges(viewChange);
+                    }
                 }
             }
         } finally {
             if (shouldUnlock) {
-                pdfViewCtrl.docUnlock();
+                DocumentLock.docUnlock(pdfViewCtrl);
             }
         }
+        // one refresh for all fields
+        refreshAndUpdateOnUiThread(pdfViewCtrl, viewChanges);
+    }
+
+    private void invalidateFieldCache() {
+        mFieldCache.invalidate();
     }
 
     // write lock required around this method
-    private void setFieldValue(@NonNull Field field, @NonNull String fieldName, @NonNull ReadableMap readableMap) throws PDFNetException {
-        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
+    @Nullable
+    private ViewChangeCollection setFieldValue(@NonNull Field field, @Nullable Object fieldValue) throws PDFNetException {
         int fieldType = field.getType();
-        switch (readableMap.getType(fieldName)) {
-            case Boolean: {
-                boolean fieldValue = readableMap.getBoolean(fieldName);
-                if (Field.e_check == fieldType) {
-                    ViewChangeCollection view_change = field.setValue(fieldValue);
-                    pdfViewCtrl.refreshAndUpdate(view_change);
-                }
+        if (fieldValue instanceof Boolean) {
+            if (Field.e_check == fieldType) {
+                return field.setValue((Boolean) fieldValue);
             }
-            break;
-            case Number: {
-                if (Field.e_text == fieldType) {
-                    double fieldValue = readableMap.getDouble(fieldName);
-                    ViewChangeCollection view_change = field.setValue(String.valueOf(fieldValue));
-                    pdfViewCtrl.refreshAndUpdate(view_change);
-                }
+        } else if (fieldValue instanceof Number) {
+            if (Field.e_text == fieldType) {
+                // as a double whatever the source, numbers from the bridge always are
+                return field.setValue(String.valueOf(((Number) fieldValue).doubleValue()));
             }
-            break;
-            case String: {
-                String fieldValue = readableMap.getString(fieldName);
-                if (fieldValue != null &&
-                        (Field.e_text == fieldType ||
-                                Field.e_radio == fieldType ||
-                                Field.e_choice == fieldType)) {
-                    ViewChangeCollection view_change = field.setValue(fieldValue);
-                    pdfViewCtrl.refreshAndUpdate(view_change);
-                }
+        } else if (fieldValue instanceof String) {
+            if (Field.e_text == fieldType ||
+                    Field.e_radio == fieldType ||
+                    Field.e_choice == fieldType) {
+                return field.setValue((String) fieldValue);
             }
-            break;
-            case Null:
-            case Map:
-            case Array:
-                break;
         }
+        return null;
     }
 
     public void setFlagForFields(ReadableArray fields, Integer flag, Boolean value) throws PDFNetException {
@@ -2328,7 +2627,7 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
         boolean shouldUnlock = false;
         try {
-            pdfViewCtrl.docLock(true);
+            DocumentLock.docLock(pdfViewCtrl, "setFlagForFields");
             shouldUnlock = true;
 
             int fieldCount = fields.size();
@@ -2337,18 +2636,17 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
                 String fieldName = fields.getString(i);
                 if (fieldName == null) continue;
 
-                Field field = pdfDoc.getField(fieldName);
+                Field field = mFieldCache.get(pdfDoc, fieldName);
                 if (field != null && field.isValid()) {
                     field.setFlag(flag, value);
                 }
             }
-
-            pdfViewCtrl.update(true);
         } finally {
             if (shouldUnlock) {
-                pdfViewCtrl.docUnlock();
+                DocumentLock.docUnlock(pdfViewCtrl);
             }
         }
+        updateOnUiThread(pdfViewCtrl);
     }
 
     public String getDocumentPath() {
@@ -2362,7 +2660,7 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
     public void setToolMode(String item) {
         if (getToolManager() != null) {
-            ToolManager.ToolMode mode = convStringToToolMode(item);
+            ToolManager.ToolMode mode = IdentifierRegistry.convStringToToolMode(item);
             Tool tool = (Tool) getToolManager().createTool(mode, null);
             boolean continuousAnnot = PdfViewCtrlSettingsManager.getContinuousAnnotationEdit(getContext());
             tool.setForceSameNextToolMode(continuousAnnot);
@@ -2388,7 +2686,12 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
 
     public void selectAnnotation(String annotId, int pageNumber) {
         if (getToolManager() != null) {
-            getToolManager().selectAnnot(annotId, pageNumber);
+            Annot annot = mAnnotationIndex.get(annotId, pageNumber);
+            if (annot != null) {
+                getToolManager().selectAnnot(annot, pageNumber);
+            } else {
+                getToolManager().selectAnnot(annotId, pageNumber);
+            }
         }
     }
 
@@ -2400,154 +2703,309 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
     }
 
     public void setPropertiesForAnnotation(String annotId, int pageNumber, ReadableMap propertyMap) throws PDFNetException {
+        AnnotationOperation operation = new AnnotationOperation(KEY_OPERATION_PROPERTIES, annotId, pageNumber);
+        operation.properties = propertyMap;
+        ArrayList<AnnotationOperation> operations = new ArrayList<>(1);
+        operations.add(operation);
+        applyAnnotationOperations(operations);
+    }
+
+    public void setFlagsForAnnotations(ReadableArray annotationFlagList) throws PDFNetException {
+        ArrayList<AnnotationOperation> operations = new ArrayList<>(annotationFlagList.size());
+        for (int i = 0; i < annotationFlagList.size(); i++) {
+            ReadableMap annotFlagData = annotationFlagList.getMap(i);
+            if (null == annotFlagData) {
+                continue;
+            }
+            AnnotationOperation operation = new AnnotationOperation(KEY_OPERATION_FLAG,
+                    annotFlagData.getString(KEY_ANNOTATION_ID), annotFlagData.getInt(KEY_ANNOTATION_PAGE));
+            operation.flag = annotFlagData.getString(KEY_ANNOTATION_FLAG);
+            operation.flagValue = annotFlagData.getBoolean(KEY_ANNOTATION_FLAG_VALUE);
+            operations.add(operation);
+        }
+        applyAnnotationOperations(operations);
+    }
+
+    /**
+     * @param operations array of {id, pageNumber, operation} where operation is one of
+     *                   delete, flag (with flag and flagValue) or properties (with properties)
+     * @return the number of annotations that were changed
+     */
+    public int applyAnnotationOperations(ReadableArray operations) throws PDFNetException {
+        ArrayList<AnnotationOperation> list = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            ReadableMap data = operations.getMap(i);
+            if (null == data || !data.hasKey(KEY_OPERATION)) {
+                continue;
+            }
+            AnnotationOperation operation = new AnnotationOperation(data.getString(KEY_OPERATION),
+                    data.getString(KEY_ANNOTATION_ID), data.getInt(KEY_ANNOTATION_PAGE));
+            if (data.hasKey(KEY_ANNOTATION_FLAG)) {
+                operation.flag = data.getString(KEY_ANNOTATION_FLAG);
+            }
+            if (data.hasKey(KEY_ANNOTATION_FLAG_VALUE)) {
+                operation.flagValue = data.getBoolean(KEY_ANNOTATION_FLAG_VALUE);
+            }
+            if (data.hasKey(KEY_OPERATION_PROPERTIES)) {
+                operation.properties = data.getMap(KEY_OPERATION_PROPERTIES);
+            }
+            list.add(operation);
+        }
+        return applyAnnotationOperations(list);
+    }
+
+    /**
+     * Applies all operations in one write lock, with one pre/post event pair for removed and
+     * one for modified annotations, followed by a single repaint of the changed area.
+     * Runs on the UI thread, where the listeners of the tools expect the events, and holds the
+     * write lock from resolving the annotations to the post events, as the tools do.
+     */
+    private int applyAnnotationOperations(final List<AnnotationOperation> operations) throws PDFNetException {
+        final int[] count = new int[1];
+        final PDFNetException[] error = new PDFNetException[1];
+        ReactUtils.runOnUiThreadAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    count[0] = applyAnnotationOperationsOnUiThread(operations);
+                } catch (PDFNetException ex) {
+                    error[0] = ex;
+                }
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+        return count[0];
+    }
+
+    private int applyAnnotationOperationsOnUiThread(List<AnnotationOperation> operations) throws PDFNetException {
         PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
         ToolManager toolManager = getToolManager();
+        PDFDoc pdfDoc = pdfViewCtrl.getDoc();
+
+        // page number -> union of the changed annotation rects in page space
+        SparseArray<com.pdftron.pdf.Rect> dirtyRects = new SparseArray<>();
+        LinkedHashMap<Annot, Integer> removed = new LinkedHashMap<>();
+        LinkedHashMap<Annot, Integer> modified = new LinkedHashMap<>();
+        ArrayList<Annot> annots = new ArrayList<>(operations.size());
 
         boolean shouldUnlock = false;
         try {
-            pdfViewCtrl.docLock(true);
+            DocumentLock.docLock(pdfViewCtrl, "applyAnnotationOperations");
             shouldUnlock = true;
 
-            Annot annot = ViewerUtils.getAnnotById(pdfViewCtrl, annotId, pageNumber);
-            if (annot != null && annot.isValid()) {
-
-                HashMap<Annot, Integer> map = new HashMap<>(1);
-                map.put(annot, pageNumber);
-                toolManager.raiseAnnotationsPreModifyEvent(map);
-
-                if (propertyMap.hasKey(KEY_ANNOTATION_CONTENTS)) {
-                    String contents = propertyMap.getString(KEY_ANNOTATION_CONTENTS);
-                    if (contents != null) {
-                        annot.setContents(contents);
-                    }
+            for (AnnotationOperation operation : operations) {
+                Annot annot = getAnnotById(operation.annotId, operation.pageNum);
+                if (annot != null && !annot.isValid()) {
+                    annot = null;
                 }
-
-                if (propertyMap.hasKey(KEY_ANNOTATION_RECT)) {
-                    ReadableMap rectMap = propertyMap.getMap(KEY_ANNOTATION_RECT);
-
-                    if (rectMap != null && rectMap.hasKey(KEY_X1) && rectMap.hasKey(KEY_Y1) &&
-                            rectMap.hasKey(KEY_X2) && rectMap.hasKey(KEY_Y2)) {
-                        double rectX1 = rectMap.getDouble(KEY_X1);
-                        double rectY1 = rectMap.getDouble(KEY_Y1);
-                        double rectX2 = rectMap.getDouble(KEY_X2);
-                        double rectY2 = rectMap.getDouble(KEY_Y2);
-                        com.pdftron.pdf.Rect rect = new com.pdftron.pdf.Rect(rectX1, rectY1, rectX2, rectY2);
-                        annot.setRect(rect);
-                    }
+                annots.add(annot);
+                if (null == annot) {
+                    continue;
                 }
-
-                if (annot.isMarkup()) {
-                    Markup markupAnnot = new Markup(annot);
-
-                    if (propertyMap.hasKey(KEY_ANNOTATION_SUBJECT)) {
-                        String subject = propertyMap.getString(KEY_ANNOTATION_SUBJECT);
-                        if (subject != null) {
-                            markupAnnot.setSubject(subject);
-                        }
+                if (KEY_OPERATION_DELETE.equals(operation.operation)) {
+                    removed.put(annot, operation.pageNum);
+                } else if (KEY_OPERATION_FLAG.equals(operation.operation)) {
+                    // an unknown flag changes nothing
+                    if (convStringToAnnotFlag(operation.flag) != -1) {
+                        modified.put(annot, operation.pageNum);
                     }
+                } else if (KEY_OPERATION_PROPERTIES.equals(operation.operation)) {
+                    modified.put(annot, operation.pageNum);
+                }
+            }
+            // a removed annotation is not modified as well
+            for (Annot annot : removed.keySet()) {
+                modified.remove(annot);
+            }
+            if (removed.isEmpty() && modified.isEmpty()) {
+                return 0;
+            }
 
-                    if (propertyMap.hasKey(KEY_ANNOTATION_TITLE)) {
-                        String title = propertyMap.getString(KEY_ANNOTATION_TITLE);
-                        if (title != null) {
-                            markupAnnot.setTitle(title);
-                        }
-                    }
+            if (!removed.isEmpty()) {
+                toolManager.raiseAnnotationsPreRemoveEvent(removed);
+            }
+            if (!modified.isEmpty()) {
+                toolManager.raiseAnnotationsPreModifyEvent(modified);
+            }
 
-                    if (propertyMap.hasKey(KEY_ANNOTATION_CONTENT_RECT)) {
-                        ReadableMap contentRectMap = propertyMap.getMap(KEY_ANNOTATION_CONTENT_RECT);
-                        if (contentRectMap != null && contentRectMap.hasKey(KEY_X1) && contentRectMap.hasKey(KEY_Y1) &&
-                                contentRectMap.hasKey(KEY_X2) && contentRectMap.hasKey(KEY_Y2)) {
-                            double rectX1 = contentRectMap.getDouble(KEY_X1);
-                            double rectY1 = contentRectMap.getDouble(KEY_Y1);
-                            double rectX2 = contentRectMap.getDouble(KEY_X2);
-                            double rectY2 = contentRectMap.getDouble(KEY_Y2);
-                            com.pdftron.pdf.Rect contentRect = new com.pdftron.pdf.Rect(rectX1, rectY1, rectX2, rectY2);
-                            markupAnnot.setContentRect(contentRect);
-                        }
-                    }
+            for (int i = 0; i < operations.size(); i++) {
+                AnnotationOperation operation = operations.get(i);
+                Annot annot = annots.get(i);
+                if (null == annot || !modified.containsKey(annot)) {
+                    continue;
                 }
+                addDirtyRect(dirtyRects, annot, operation.pageNum);
+                if (KEY_OPERATION_FLAG.equals(operation.operation)) {
+                    annot.setFlag(convStringToAnnotFlag(operation.flag), operation.flagValue);
+                } else if (operation.properties != null) {
+                    setAnnotationProperties(annot, operation.properties);
+                    // the annotation may have moved
+                    addDirtyRect(dirtyRects, annot, operation.pageNum);
+                }
+            }
 
-                pdfViewCtrl.update(annot, pageNumber);
+            for (Map.Entry<Annot, Integer> entry : removed.entrySet()) {
+                Annot annot = entry.getKey();
+                int pageNum = entry.getValue();
+                addDirtyRect(dirtyRects, annot, pageNum);
+                pdfDoc.getPage(pageNum).annotRemove(annot);
+            }
 
-                toolManager.raiseAnnotationsModifiedEvent(map, Tool.getAnnotationModificationBundle(null));
+            if (!removed.isEmpty()) {
+                toolManager.raiseAnnotationsRemovedEvent(removed);
+            }
+            if (!modified.isEmpty()) {
+                toolManager.raiseAnnotationsModifiedEvent(modified, Tool.getAnnotationModificationBundle(null));
             }
         } finally {
             if (shouldUnlock) {
-                pdfViewCtrl.docUnlock();
+                DocumentLock.docUnlock(pdfViewCtrl);
             }
         }
+
+        if (!removed.isEmpty()) {
+            toolManager.deselectAll();
+        }
+        com.pdftron.pdf.Rect screenRect = dirtyRects.size() > 0 ? getScreenRect(pdfViewCtrl, dirtyRects) : null;
+        if (screenRect != null) {
+            pdfViewCtrl.update(screenRect);
+        }
+        return removed.size() + modified.size();
     }
 
-    public void setFlagsForAnnotations(ReadableArray annotationFlagList) throws PDFNetException {
-        PDFViewCtrl pdfViewCtrl = getPdfViewCtrl();
-        ToolManager toolManager = getToolManager();
-        int flagCount = annotationFlagList.size();
+    private static void addDirtyRect(SparseArray<com.pdftron.pdf.Rect> dirtyRects, Annot annot, int pageNum) throws PDFNetException {
+        com.pdftron.pdf.Rect rect = annot.getRect();
+        rect.normalize();
+        com.pdftron.pdf.Rect union = dirtyRects.get(pageNum);
+        if (null == union) {
+            dirtyRects.put(pageNum, rect);
+        } else {
+            union.set(Math.min(union.getX1(), rect.getX1()), Math.min(union.getY1(), rect.getY1()),
+                    Math.max(union.getX2(), rect.getX2()), Math.max(union.getY2(), rect.getY2()));
+        }
+    }
 
-        boolean shouldUnlock = false;
-        try {
-            pdfViewCtrl.docLock(true);
-            shouldUnlock = true;
-            for (int i = 0; i < flagCount; i++) {
-                ReadableMap annotFlagData = annotationFlagList.getMap(i);
-                if (null == annotFlagData) {
-                    continue;
-                }
-                String annotId = annotFlagData.getString(KEY_ANNOTATION_ID);
-                int pageNum = annotFlagData.getInt(KEY_ANNOTATION_PAGE);
-                String flag = annotFlagData.getString(KEY_ANNOTATION_FLAG);
-                boolean flagValue = annotFlagData.getBoolean(KEY_ANNOTATION_FLAG_VALUE);
-
-                Annot annot = ViewerUtils.getAnnotById(pdfViewCtrl, annotId, pageNum);
-                if (annot != null && annot.isValid() && flag != null) {
-                    int flagNum = -1;
-                    switch (flag) {
-                        case KEY_ANNOTATION_FLAG_HIDDEN:
-                            flagNum = Annot.e_hidden;
-                            break;
-                        case KEY_ANNOTATION_FLAG_INVISIBLE:
-                            flagNum = Annot.e_invisible;
-                            break;
-                        case KEY_ANNOTATION_FLAG_LOCKED:
-                            flagNum = Annot.e_locked;
-                            break;
-                        case KEY_ANNOTATION_FLAG_LOCKED_CONTENTS:
-                            flagNum = Annot.e_locked_contents;
-                            break;
-                        case KEY_ANNOTATION_FLAG_NO_ROTATE:
-                            flagNum = Annot.e_no_rotate;
-                            break;
-                        case KEY_ANNOTATION_FLAG_NO_VIEW:
-                            flagNum = Annot.e_no_view;
-                            break;
-                        case KEY_ANNOTATION_FLAG_NO_ZOOM:
-                            flagNum = Annot.e_no_zoom;
-                            break;
-                        case KEY_ANNOTATION_FLAG_PRINT:
-                            flagNum = Annot.e_print;
-                            break;
-                        case KEY_ANNOTATION_FLAG_READ_ONLY:
-                            flagNum = Annot.e_read_only;
-                            break;
-                        case KEY_ANNOTATION_FLAG_TOGGLE_NO_VIEW:
-                            flagNum = Annot.e_toggle_no_view;
-                    }
-                    if (flagNum != -1) {
+    // UI thread only, the conversion depends on the current viewport
+    @Nullable
+    private static com.pdftron.pdf.Rect getScreenRect(PDFViewCtrl pdfViewCtrl, SparseArray<com.pdftron.pdf.Rect> pageRects) throws PDFNetException {
+        double x1 = Double.MAX_VALUE;
+        double y1 = Double.MAX_VALUE;
+        double x2 = -Double.MAX_VALUE;
+        double y2 = -Double.MAX_VALUE;
+        for (int i = 0; i < pageRects.size(); i++) {
+            int pageNum = pageRects.keyAt(i);
+            com.pdftron.pdf.Rect rect = pageRects.valueAt(i);
+            double[] pt1 = pdfViewCtrl.convPagePtToScreenPt(rect.getX1(), rect.getY1(), pageNum);
+            double[] pt2 = pdfViewCtrl.convPagePtToScreenPt(rect.getX2(), rect.getY2(), pageNum);
+            x1 = Math.min(x1, Math.min(pt1[0], pt2[0]));
+            y1 = Math.min(y1, Math.min(pt1[1], pt2[1]));
+            x2 = Math.max(x2, Math.max(pt1[0], pt2[0]));
+            y2 = Math.max(y2, Math.max(pt1[1], pt2[1]));
+        }
+        if (x1 > x2 || y1 > y2) {
+            return null;
+        }
+        return new com.pdftron.pdf.Rect(x1, y1, x2, y2);
+    }
 
-                        HashMap<Annot, Integer> map = new HashMap<>(1);
-                        map.put(annot, pageNum);
-                        toolManager.raiseAnnotationsPreModifyEvent(map);
+    // write lock required around this method
+    private void setAnnotationProperties(Annot annot, ReadableMap propertyMap) throws PDFNetException {
+        if (propertyMap.hasKey(KEY_ANNOTATION_CONTENTS)) {
+            String contents = propertyMap.getString(KEY_ANNOTATION_CONTENTS);
+            if (contents != null) {
+                annot.setContents(contents);
+            }
+        }
 
-                        annot.setFlag(flagNum, flagValue);
-                        pdfViewCtrl.update(annot, pageNum);
+        if (propertyMap.hasKey(KEY_ANNOTATION_RECT)) {
+            ReadableMap rectMap = propertyMap.getMap(KEY_ANNOTATION_RECT);
 
-                        toolManager.raiseAnnotationsModifiedEvent(map, Tool.getAnnotationModificationBundle(null));
-                    }
+            if (rectMap != null && rectMap.hasKey(KEY_X1) && rectMap.hasKey(KEY_Y1) &&
+                    rectMap.hasKey(KEY_X2) && rectMap.hasKey(KEY_Y2)) {
+                double rectX1 = rectMap.getDouble(KEY_X1);
+                double rectY1 = rectMap.getDouble(KEY_Y1);
+                double rectX2 = rectMap.getDouble(KEY_X2);
+                double rectY2 = rectMap.getDouble(KEY_Y2);
+                com.pdftron.pdf.Rect rect = new com.pdftron.pdf.Rect(rectX1, rectY1, rectX2, rectY2);
+                annot.setRect(rect);
+            }
+        }
+
+        if (annot.isMarkup()) {
+            Markup markupAnnot = new Markup(annot);
+
+            if (propertyMap.hasKey(KEY_ANNOTATION_SUBJECT)) {
+                String subject = propertyMap.getString(KEY_ANNOTATION_SUBJECT);
+                if (subject != null) {
+                    markupAnnot.setSubject(subject);
                 }
             }
-        } finally {
-            if (shouldUnlock) {
-                pdfViewCtrl.docUnlock();
+
+            if (propertyMap.hasKey(KEY_ANNOTATION_TITLE)) {
+                String title = propertyMap.getString(KEY_ANNOTATION_TITLE);
+                if (title != null) {
+                    markupAnnot.setTitle(title);
+                }
             }
+
+            if (propertyMap.hasKey(KEY_ANNOTATION_CONTENT_RECT)) {
+                ReadableMap contentRectMap = propertyMap.getMap(KEY_ANNOTATION_CONTENT_RECT);
+                if (contentRectMap != null && contentRectMap.hasKey(KEY_X1) && contentRectMap.hasKey(KEY_Y1) &&
+                        contentRectMap.hasKey(KEY_X2) && contentRectMap.hasKey(KEY_Y2)) {
+                    double rectX1 = contentRectMap.getDouble(KEY_X1);
+                    double rectY1 = contentRectMap.getDouble(KEY_Y1);
+                    double rectX2 = contentRectMap.getDouble(KEY_X2);
+                    double rectY2 = contentRectMap.getDouble(KEY_Y2);
+                    com.pdftron.pdf.Rect contentRect = new com.pdftron.pdf.Rect(rectX1, rectY1, rectX2, rectY2);
+                    markupAnnot.setContentRect(contentRect);
+                }
+            }
+        }
+    }
+
+    private static int convStringToAnnotFlag(@Nullable String flag) {
+        if (null == flag) {
+            return -1;
+        }
+        switch (flag) {
+            case KEY_ANNOTATION_FLAG_HIDDEN:
+                return Annot.e_hidden;
+            case KEY_ANNOTATION_FLAG_INVISIBLE:
+                return Annot.e_invisible;
+            case KEY_ANNOTATION_FLAG_LOCKED:
+                return Annot.e_locked;
+            case KEY_ANNOTATION_FLAG_LOCKED_CONTENTS:
+                return Annot.e_locked_contents;
+            case KEY_ANNOTATION_FLAG_NO_ROTATE:
+                return Annot.e_no_rotate;
+            case KEY_ANNOTATION_FLAG_NO_VIEW:
+                return Annot.e_no_view;
+            case KEY_ANNOTATION_FLAG_NO_ZOOM:
+                return Annot.e_no_zoom;
+            case KEY_ANNOTATION_FLAG_PRINT:
+                return Annot.e_print;
+            case KEY_ANNOTATION_FLAG_READ_ONLY:
+                return Annot.e_read_only;
+            case KEY_ANNOTATION_FLAG_TOGGLE_NO_VIEW:
+                return Annot.e_toggle_no_view;
+        }
+        return -1;
+    }
+
+    private static class AnnotationOperation {
+        final String operation;
+        final String annotId;
+        final int pageNum;
+        String flag;
+        boolean flagValue;
+        ReadableMap properties;
+
+        AnnotationOperation(String operation, String annotId, int pageNum) {
+            this.operation = operation;
+            this.annotId = annotId;
+            this.pageNum = pageNum;
         }
     }
 
@@ -2582,6 +3040,43 @@ public class DocumentView extends com.pdftron.pdf.controls.DocumentView2 {
         return pdfViewCtrl.getZoom();
     }
 
+    @Nullable
+    private Annot getAnnotById(String annotId, int pageNum) {
+        Annot annot = mAnnotationIndex.get(annotId, pageNum);
+        if (annot != null) {
+            return annot;
+        }
+        // not indexed yet, or added by a path that raised no event
+        return ViewerUtils.getAnnotById(getPdfViewCtrl(), annotId, pageNum);
+    }
+
+    // document work runs on the document queue, repaints are posted back to the UI thread
+    private void updateOnUiThread(final PDFViewCtrl pdfViewCtrl) {
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    pdfViewCtrl.update(true);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private void refreshAndUpdateOnUiThread(final PDFViewCtrl pdfViewCtrl, final ViewChangeCollection viewChange) {
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    pdfViewCtrl.refreshAndUpdate(viewChange);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+    }
+
     public PdfViewCtrlTabFragment2 getPdfViewCtrlTabFragment() {
         if (mPdfViewCtrlTabHostFragment != null) {
             return mPdfViewCtrlTabHostFragment.getCurrentPdfViewCtrlFragment();
@@ -14,8 +14,11 @@ import com.pdftron.pdf.PDFViewCtrl;
 import com.pdftron.pdf.config.ToolManagerBuilder;
 import com.pdftron.pdf.utils.AppUtils;
 import com.pdftron.pdf.utils.Utils;
+import com.pdftron.reactnative.utils.DocumentCache;
 import com.pdftron.reactnative.utils.ReactUtils;
 
+import java.io.File;
+
 import javax.annotation.Nonnull;
 
 public class PDFViewCtrlView extends PDFViewCtrl {
@@ -23,6 +26,7 @@ public class PDFViewCtrlView extends PDFViewCtrl {
     private static final String TAG = PDFViewCtrlView.class.getSimpleName();
 
     private PDFDoc mPdfDoc = null;
+    private File mCachedFile = null;
 
     public PDFViewCtrlView(Context context, AttributeSet attrs) {
         super(context, attrs);
@@ -49,7 +53,13 @@ public class PDFViewCtrlView extends PDFViewCtrl {
 
     public void setDocument(@Nonnull String path) {
         try {
+            DocumentCache.getInstance(getContext()).release(mCachedFile);
+            mCachedFile = null;
             Uri fileUri = ReactUtils.getUri(getContext(), path, false);
+            if (fileUri != null && fileUri.getPath() != null
+                    && DocumentCache.getInstance(getContext()).contains(new File(fileUri.getPath()))) {
+                mCachedFile = new File(fileUri.getPath());
+            }
             mPdfDoc = openPDFUri(fileUri, "");
         } catch (Exception ex) {
             Log.e(TAG, ex.getMessage() != null ? ex.getMessage() : "unknown error");
@@ -71,6 +81,8 @@ public class PDFViewCtrlView extends PDFViewCtrl {
         if (mPdfDoc != null) {
             Utils.closeQuietly(mPdfDoc);
         }
+        DocumentCache.getInstance(getContext()).release(mCachedFile);
+        mCachedFile = null;
     }
 
     private final Runnable mLayoutRunnable = new Runnable() {
@@ -25,6 +25,9 @@ export default class DocumentView extends PureComponent {
     onDocumentError: PropTypes.func,
     onPageChanged: PropTypes.func,
     onZoomChanged: PropTypes.func,
+    viewportEventThrottle: PropTypes.number,
+    annotationChangeBatchWindow: PropTypes.number,
+    subscribedEvents: PropTypes.array,
     disabledElements: PropTypes.array,
     disabledTools: PropTypes.array,
     longPressMenuItems: PropTypes.array,
@@ -54,10 +57,13 @@ export default class DocumentView extends PureComponent {
     annotationAuthor: PropTypes.string,
     showSavedSignatures: PropTypes.bool,
     isBase64String: PropTypes.bool,
+    remoteDocumentCacheEnabled: PropTypes.bool,
     collabEnabled: PropTypes.bool,
     currentUser: PropTypes.string,
     currentUserName: PropTypes.string,
     onExportAnnotationCommand: PropTypes.func,
+    onExportAnnotationsChunk: PropTypes.func,
+    onSaveDocumentChunk: PropTypes.func,
     autoSaveEnabled: PropTypes.bool,
     pageChangeOnTap: PropTypes.bool,
     followSystemDarkMode: PropTypes.bool,
@@ -73,6 +79,7 @@ export default class DocumentView extends PureComponent {
     hideTopToolbars: PropTypes.bool,
     hideTopAppNavBar: PropTypes.bool,
     onBookmarkChanged: PropTypes.func,
+    bookmarkChangeMode: PropTypes.oneOf(['full', 'diff']),
     hideThumbnailFilterModes: PropTypes.array,
     onToolChanged: PropTypes.func,
     ...ViewPropTypes,
@@ -140,6 +147,24 @@ export default class DocumentView extends PureComponent {
           'xfdfCommand': event.nativeEvent.xfdfCommand,
         });
       }
+    } else if (event.nativeEvent.onExportAnnotationsChunk) {
+      if (this.props.onExportAnnotationsChunk) {
+        this.props.onExportAnnotationsChunk({
+          'exportId': event.nativeEvent.exportId,
+          'index': event.nativeEvent.index,
+          'chunk': event.nativeEvent.chunk,
+          'isLast': event.nativeEvent.isLast,
+        });
+      }
+    } else if (event.nativeEvent.onSaveDocumentChunk) {
+      if (this.props.onSaveDocumentChunk) {
+        this.props.onSaveDocumentChunk({
+          'saveId': event.nativeEvent.saveId,
+          'index': event.nativeEvent.index,
+          'chunk': event.nativeEvent.chunk,
+          'isLast': event.nativeEvent.isLast,
+        });
+      }
     } else if (event.nativeEvent.onAnnotationMenuPress) {
       if (this.props.onAnnotationMenuPress) {
         this.props.onAnnotationMenuPress({
@@ -165,6 +190,7 @@ export default class DocumentView extends PureComponent {
       if (this.props.onBookmarkChanged) {
         this.props.onBookmarkChanged({
           'bookmarkJson': event.nativeEvent.bookmarkJson,
+          'bookmarkDelta': event.nativeEvent.bookmarkDelta,
         });
       }
     } else if (event.nativeEvent.onToolChanged) {
@@ -263,9 +289,12 @@ export default class DocumentView extends PureComponent {
     return Promise.resolve();
   }
 
-  saveDocument = () => {
+  saveDocument = (options) => {
     const tag = findNodeHandle(this._viewerRef);
     if (tag != null) {
+      if (Platform.OS === 'android') {
+        return DocumentViewManager.saveDocument(tag, options);
+      }
       return DocumentViewManager.saveDocument(tag);
     }
     return Promise.resolve();
@@ -295,6 +324,14 @@ export default class DocumentView extends PureComponent {
     return Promise.resolve();
   }
 
+  setValuesForFieldsFromFile = (filePath) => {
+    const tag = findNodeHandle(this._viewerRef);
+    if (tag != null) {
+      return DocumentViewManager.setValuesForFieldsFromFile(tag, filePath);
+    }
+    return Promise.resolve();
+  }
+
   handleBackButton = () => {
     const tag = findNodeHandle(this._viewerRef);
     if (tag != null) {
@@ -344,6 +381,22 @@ export default class DocumentView extends PureComponent {
     return Promise.resolve();
   }
 
+  getSkippedEventCounts = () => {
+    const tag = findNodeHandle(this._viewerRef);
+    if (tag != null) {
+      return DocumentViewManager.getSkippedEventCounts(tag);
+    }
+    return Promise.resolve();
+  }
+
+  applyAnnotationOperations = (operations) => {
+    const tag = findNodeHandle(this._viewerRef);
+    if (tag != null) {
+      return DocumentViewManager.applyAnnotationOperations(tag, operations);
+    }
+    return Promise.resolve();
+  }
+
   getPageCropBox = (pageNumber) => {
     const tag = findNodeHandle(this._viewerRef);
     if (tag != null) {
@@ -380,12 +433,26 @@ export default class DocumentView extends PureComponent {
     this._viewerRef = ref;
   };
 
+  // names of the event handler props that are set, so native can skip events nobody listens to
+  getSubscribedEvents = () => {
+    const events = Object.keys(this.props).filter(
+      key => key.startsWith('on') && key !== 'onChange' && typeof this.props[key] === 'function');
+    const eventsKey = events.join(',');
+    if (eventsKey !== this._subscribedEventsKey) {
+      // keep the same array while handlers don't change, so the prop is not sent again
+      this._subscribedEventsKey = eventsKey;
+      this._subscribedEvents = events;
+    }
+    return this._subscribedEvents;
+  }
+
   render() {
     return (
       <RCTDocumentView
         ref={this._setNativeRef}
         style={{ flex:1 }}
         onChange={this.onChange}
+        subscribedEvents={this.getSubscribedEvents()}
         {...this.props}
       />
     )